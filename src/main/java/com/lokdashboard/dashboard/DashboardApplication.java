@@ -1,11 +1,14 @@
 package com.lokdashboard.dashboard;
 
+import com.lokdashboard.dashboard.config.ModelRuntimeHints;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableScheduling
+@ImportRuntimeHints(ModelRuntimeHints.class)
 public class DashboardApplication {
 
 	public static void main(String[] args) {
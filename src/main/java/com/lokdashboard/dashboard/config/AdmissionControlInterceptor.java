@@ -0,0 +1,216 @@
+package com.lokdashboard.dashboard.config;
+
+import com.lokdashboard.dashboard.controller.AnalyticsController;
+import com.lokdashboard.dashboard.controller.BatchJobController;
+import com.lokdashboard.dashboard.controller.LandPointsController;
+import com.lokdashboard.dashboard.models.BulkheadStats;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.ConsumptionProbe;
+import io.github.bucket4j.Refill;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Admission control for inbound requests. Each client gets a request rate, rejected with 429,
+ * and the heavy controllers each get a bulkhead of concurrent requests, rejected with 503 once
+ * full, so a burst on one of them cannot take every request thread and database connection.
+ * Both answers carry Retry-After.
+ * <p>
+ * Clients are told apart by the connection's remote address. Behind a reverse proxy that address
+ * is taken from X-Forwarded-For by the server only when the proxy is trusted, see
+ * server.forward-headers-strategy, so a client cannot pick a fresh bucket by sending the header.
+ */
+@Component
+@Slf4j
+public class AdmissionControlInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String PERMIT_ATTRIBUTE = AdmissionControlInterceptor.class.getName() + ".permit";
+
+    @Value("${admission.enabled:true}")
+    private boolean enabled;
+
+    @Value("${admission.client.requests-per-minute:120}")
+    private int clientRequestsPerMinute;
+
+    @Value("${admission.client.max-tracked:10000}")
+    private int maxTrackedClients;
+
+    @Value("${admission.bulkhead.land:16}")
+    private int landConcurrency;
+
+    @Value("${admission.bulkhead.analytics:4}")
+    private int analyticsConcurrency;
+
+    @Value("${admission.bulkhead.batch:2}")
+    private int batchConcurrency;
+
+    @Value("${admission.bulkhead.wait-millis:100}")
+    private long bulkheadWaitMillis;
+
+    @Value("${admission.retry-after-seconds:2}")
+    private int retryAfterSeconds;
+
+    private final Map<Class<?>, Bulkhead> bulkheads = new LinkedHashMap<>();
+    private final AtomicLong rateLimited = new AtomicLong();
+    private Map<String, Bucket> clientBuckets;
+
+    @PostConstruct
+    public void init() {
+        bulkheads.put(LandPointsController.class, new Bulkhead("land", landConcurrency));
+        bulkheads.put(AnalyticsController.class, new Bulkhead("analytics", analyticsConcurrency));
+        bulkheads.put(BatchJobController.class, new Bulkhead("batch", batchConcurrency));
+        // Least recently seen clients are forgotten, they start again with a full bucket
+        clientBuckets = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+                return size() > maxTrackedClients;
+            }
+        };
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        // Requests are admitted once, not again when a DeferredResult is dispatched back
+        if (!enabled || !(handler instanceof HandlerMethod method) || request.getDispatcherType() != DispatcherType.REQUEST) {
+            return true;
+        }
+
+        ConsumptionProbe probe = clientBucket(request.getRemoteAddr()).tryConsumeAndReturnRemaining(1);
+        if (!probe.isConsumed()) {
+            rateLimited.incrementAndGet();
+            long waitSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(probe.getNanosToWaitForRefill()) + 1);
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, waitSeconds);
+            return false;
+        }
+
+        Bulkhead bulkhead = bulkheads.get(method.getBeanType());
+        if (bulkhead == null) {
+            return true;
+        }
+        if (!bulkhead.semaphore.tryAcquire(bulkheadWaitMillis, TimeUnit.MILLISECONDS)) {
+            bulkhead.rejected.incrementAndGet();
+            log.debug("Bulkhead {} full, rejected {}", bulkhead.name, request.getRequestURI());
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, retryAfterSeconds);
+            return false;
+        }
+        bulkhead.admitted.incrementAndGet();
+        request.setAttribute(PERMIT_ATTRIBUTE, new Permit(bulkhead));
+        return true;
+    }
+
+    /**
+     * The request thread is released but the request is still being served, the permit is
+     * returned when the async request completes, times out or fails
+     */
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getAttribute(PERMIT_ATTRIBUTE) instanceof Permit permit) {
+            request.getAsyncContext().addListener(new AsyncListener() {
+                @Override
+                public void onComplete(AsyncEvent event) {
+                    permit.release();
+                }
+
+                @Override
+                public void onTimeout(AsyncEvent event) {
+                }
+
+                @Override
+                public void onError(AsyncEvent event) {
+                }
+
+                @Override
+                public void onStartAsync(AsyncEvent event) {
+                }
+            });
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (!request.isAsyncStarted() && request.getAttribute(PERMIT_ATTRIBUTE) instanceof Permit permit) {
+            permit.release();
+        }
+    }
+
+    public List<BulkheadStats> getBulkheadStats() {
+        List<BulkheadStats> stats = new ArrayList<>();
+        for (Bulkhead bulkhead : bulkheads.values()) {
+            stats.add(new BulkheadStats(bulkhead.name, bulkhead.maxConcurrent,
+                    bulkhead.maxConcurrent - bulkhead.semaphore.availablePermits(),
+                    bulkhead.admitted.get(), bulkhead.rejected.get()));
+        }
+        return stats;
+    }
+
+    public long getRateLimitedCount() {
+        return rateLimited.get();
+    }
+
+    private Bucket clientBucket(String client) {
+        synchronized (clientBuckets) {
+            return clientBuckets.computeIfAbsent(client, c -> Bucket.builder()
+                    .addLimit(Bandwidth.classic(clientRequestsPerMinute, Refill.greedy(clientRequestsPerMinute, Duration.ofMinutes(1))))
+                    .build());
+        }
+    }
+
+    private static void reject(HttpServletResponse response, HttpStatus status, long retryAfterSeconds) {
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+    }
+
+    private static class Bulkhead {
+        private final String name;
+        private final int maxConcurrent;
+        private final Semaphore semaphore;
+        private final AtomicLong admitted = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+
+        private Bulkhead(String name, int maxConcurrent) {
+            this.name = name;
+            this.maxConcurrent = maxConcurrent;
+            this.semaphore = new Semaphore(maxConcurrent);
+        }
+    }
+
+    /**
+     * A bulkhead slot, released at most once whichever completion path gets there first
+     */
+    private static class Permit {
+        private final Bulkhead bulkhead;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(Bulkhead bulkhead) {
+            this.bulkhead = bulkhead;
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                bulkhead.semaphore.release();
+            }
+        }
+    }
+}
@@ -4,6 +4,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.client.RestTemplate;
 
 import java.time.Duration;
@@ -17,6 +18,18 @@ public class ApiClientConfig {
     @Value("${api.client.timeout:30000}")
     private int timeout;
 
+    @Value("${land.fetch.threads:4}")
+    private int landFetchThreads;
+
+    @Value("${land.fetch.queue-capacity:50}")
+    private int landFetchQueueCapacity;
+
+    @Value("${land.batch.threads:2}")
+    private int landBatchThreads;
+
+    @Value("${land.batch.queue-capacity:20}")
+    private int landBatchQueueCapacity;
+
     /**
      * Creates a RestTemplate with configured timeouts
      */
@@ -27,4 +40,32 @@ public class ApiClientConfig {
                 .setReadTimeout(Duration.ofMillis(timeout))
                 .build();
     }
-} 
\ No newline at end of file
+
+    /**
+     * Executor for upstream fetches triggered by dashboard requests, so cache misses do not hold
+     * servlet threads. Fetches beyond the queue capacity are rejected instead of piling up.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor landFetchExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(landFetchThreads);
+        executor.setMaxPoolSize(landFetchThreads);
+        executor.setQueueCapacity(landFetchQueueCapacity);
+        executor.setThreadNamePrefix("land-fetch-");
+        return executor;
+    }
+
+    /**
+     * Executor resolving multi-land lookups, reading what is stored for them and queueing the
+     * fetches of what is missing, so neither happens on a servlet thread
+     */
+    @Bean
+    public ThreadPoolTaskExecutor landBatchExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(landBatchThreads);
+        executor.setMaxPoolSize(landBatchThreads);
+        executor.setQueueCapacity(landBatchQueueCapacity);
+        executor.setThreadNamePrefix("land-batch-");
+        return executor;
+    }
+}
@@ -0,0 +1,65 @@
+package com.lokdashboard.dashboard.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Configuration for the executors that run batch crawls and other background work
+ */
+@Configuration
+public class BatchExecutorConfig {
+
+    @Value("${batch.shutdown.await-seconds:120}")
+    private int shutdownAwaitSeconds;
+
+    @Value("${snapshot.max-days:7}")
+    private int snapshotMaxDays;
+
+    /**
+     * Single managed thread for batch crawls. On shutdown it waits for the in-flight land to
+     * finish instead of killing the thread mid-write.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor batchJobExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(10);
+        executor.setThreadNamePrefix("batch-job-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(shutdownAwaitSeconds);
+        return executor;
+    }
+
+    /**
+     * Single thread building day snapshots, so a request that misses one is answered from H2
+     * instead of waiting for a whole day to be read. Builds beyond the queue are rejected and
+     * tried again on a later miss.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor snapshotExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(snapshotMaxDays);
+        executor.setThreadNamePrefix("snapshot-");
+        return executor;
+    }
+
+    /**
+     * Single thread evaluating alert rules, so rules see saved lands one at a time and in commit
+     * order without holding up the threads that save them
+     */
+    @Bean
+    public ThreadPoolTaskExecutor alertExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setThreadNamePrefix("alerts-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+}
@@ -0,0 +1,37 @@
+package com.lokdashboard.dashboard.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+
+/**
+ * Configuration for the JdbcTemplates: one without a timeout for ingestion, migrations and
+ * maintenance, and one for the reads that serve requests
+ */
+@Configuration
+public class JdbcConfig {
+
+    @Value("${jdbc.request.query-timeout-seconds:60}")
+    private int requestQueryTimeoutSeconds;
+
+    @Bean
+    @Primary
+    public JdbcTemplate jdbcTemplate(DataSource dataSource) {
+        return new JdbcTemplate(dataSource);
+    }
+
+    /**
+     * Request reads running longer are cancelled instead of holding a request thread and a
+     * database connection
+     */
+    @Bean
+    public JdbcTemplate requestJdbcTemplate(DataSource dataSource) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.setQueryTimeout(requestQueryTimeoutSeconds);
+        return jdbcTemplate;
+    }
+}
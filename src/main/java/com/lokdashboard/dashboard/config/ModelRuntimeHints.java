@@ -0,0 +1,33 @@
+package com.lokdashboard.dashboard.config;
+
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Hints for an ahead-of-time processed build about what it cannot find from bean definitions and
+ * controller signatures: the Lombok models that Jackson binds by reflection, some of them only
+ * behind ResponseEntity&lt;?&gt; or written by ObjectMapper for live updates, and resources loaded by name.
+ */
+public class ModelRuntimeHints implements RuntimeHintsRegistrar {
+
+    private static final String MODELS_PACKAGE = "com.lokdashboard.dashboard.models";
+
+    private final BindingReflectionHintsRegistrar bindingHints = new BindingReflectionHintsRegistrar();
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        // Scanned at build time, so a new model class needs no change here
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+        scanner.setResourceLoader(new DefaultResourceLoader(classLoader));
+        scanner.addIncludeFilter((reader, factory) -> true);
+        for (BeanDefinition model : scanner.findCandidateComponents(MODELS_PACKAGE)) {
+            bindingHints.registerReflectionHints(hints.reflection(), ClassUtils.resolveClassName(model.getBeanClassName(), classLoader));
+        }
+        hints.resources().registerPattern("schema.sql").registerPattern("templates/*.html");
+    }
+}
@@ -9,10 +9,13 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 @AllArgsConstructor
 public class WebMvcConfig implements WebMvcConfigurer {
 
+    private final AdmissionControlInterceptor admissionControlInterceptor;
     private final VisitorTrackingInterceptor visitorTrackingInterceptor;
 
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
+        // First, so rejected requests skip the interceptors after it, including visitor tracking writes
+        registry.addInterceptor(admissionControlInterceptor);
         registry.addInterceptor(visitorTrackingInterceptor);
     }
 } 
\ No newline at end of file
@@ -0,0 +1,60 @@
+package com.lokdashboard.dashboard.controller;
+
+import com.lokdashboard.dashboard.models.Alert;
+import com.lokdashboard.dashboard.models.AlertRule;
+import com.lokdashboard.dashboard.service.AlertService;
+import lombok.AllArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/alerts")
+@AllArgsConstructor
+public class AlertController {
+
+    private final AlertService alertService;
+
+    @GetMapping("/rules")
+    public List<AlertRule> getRules() {
+        return alertService.getRules();
+    }
+
+    /**
+     * Register a rule, e.g. {"type": "CONTRIBUTION_THRESHOLD", "landId": "140001", "kingdomId": "k17", "threshold": 5000}
+     */
+    @PostMapping("/rules")
+    public ResponseEntity<?> addRule(@RequestBody AlertRule rule) {
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED).body(alertService.addRule(rule));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/rules/{id}")
+    public ResponseEntity<Void> deleteRule(@PathVariable long id) {
+        return alertService.deleteRule(id) ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Alerts fired after the given alert id, oldest first
+     */
+    @GetMapping
+    public List<Alert> getAlerts(@RequestParam(defaultValue = "0") long afterId, @RequestParam(defaultValue = "100") int limit) {
+        return alertService.getAlertsAfter(afterId, limit);
+    }
+
+    /**
+     * Server-Sent Events stream of "alert" events as rules fire. A reconnecting client sending
+     * Last-Event-ID first receives the alerts it missed.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return alertService.subscribe(lastEventId);
+    }
+}
@@ -1,5 +1,8 @@
 package com.lokdashboard.dashboard.controller;
 
+import com.lokdashboard.dashboard.config.AdmissionControlInterceptor;
+import com.lokdashboard.dashboard.models.UpstreamLaneStats;
+import com.lokdashboard.dashboard.service.ApiService;
 import com.lokdashboard.dashboard.service.VisitorTrackingService;
 import lombok.AllArgsConstructor;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -16,6 +19,8 @@ import java.util.Map;
 public class AnalyticsController {
 
     private final VisitorTrackingService visitorTrackingService;
+    private final ApiService apiService;
+    private final AdmissionControlInterceptor admissionControlInterceptor;
 
     @GetMapping("/visitors")
     public Map<String, Object> getVisitorStats() {
@@ -27,4 +32,17 @@ public class AnalyticsController {
         stats.put("activityByEndpoint", visitorTrackingService.getActivityCountByEndpoint());
         return stats;
     }
-} 
\ No newline at end of file
+
+    @GetMapping("/upstream")
+    public List<UpstreamLaneStats> getUpstreamStats() {
+        return apiService.getLaneStats();
+    }
+
+    @GetMapping("/admission")
+    public Map<String, Object> getAdmissionStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("rateLimited", admissionControlInterceptor.getRateLimitedCount());
+        stats.put("bulkheads", admissionControlInterceptor.getBulkheadStats());
+        return stats;
+    }
+}
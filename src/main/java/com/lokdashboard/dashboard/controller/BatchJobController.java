@@ -1,18 +1,40 @@
 package com.lokdashboard.dashboard.controller;
 
-import com.lokdashboard.dashboard.models.BadLand;
+import com.lokdashboard.dashboard.models.BatchJob;
 import com.lokdashboard.dashboard.models.BatchJobStatus;
+import com.lokdashboard.dashboard.models.CompactionReport;
+import com.lokdashboard.dashboard.models.CrawlShard;
+import com.lokdashboard.dashboard.models.DayVersion;
+import com.lokdashboard.dashboard.models.FailedLand;
+import com.lokdashboard.dashboard.models.StoreStats;
 import com.lokdashboard.dashboard.repository.BatchJobRepository;
+import com.lokdashboard.dashboard.repository.CrawlLeaseRepository;
+import com.lokdashboard.dashboard.repository.FailedLandRepository;
+import com.lokdashboard.dashboard.repository.LandRepository;
+import com.lokdashboard.dashboard.service.ContributionCompactionService;
+import com.lokdashboard.dashboard.service.DatabaseMaintenanceService;
+import com.lokdashboard.dashboard.service.DayArchiveService;
+import com.lokdashboard.dashboard.service.FailedLandReplayService;
 import com.lokdashboard.dashboard.service.LandBatchJobService;
+import com.lokdashboard.dashboard.service.RawReplayService;
+import com.lokdashboard.dashboard.service.RollingAggregateService;
+import com.lokdashboard.dashboard.storage.RawResponseArchive;
+import com.lokdashboard.dashboard.storage.SegmentStore;
 import lombok.AllArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/batch")
@@ -21,11 +43,67 @@ public class BatchJobController {
 
     private final LandBatchJobService batchJobService;
     private final BatchJobRepository batchJobRepository;
+    private final CrawlLeaseRepository crawlLeaseRepository;
+    private final LandRepository landRepository;
+    private final DayArchiveService dayArchiveService;
+    private final SegmentStore segmentStore;
+    private final ContributionCompactionService compactionService;
+    private final RollingAggregateService rollingAggregateService;
+    private final FailedLandRepository failedLandRepository;
+    private final FailedLandReplayService failedLandReplayService;
+    private final RawResponseArchive rawResponseArchive;
+    private final RawReplayService rawReplayService;
+    private final DatabaseMaintenanceService databaseMaintenanceService;
 
+    /**
+     * Submit yesterday's crawl, returning once it is queued
+     */
     @PostMapping("/trigger")
     public String triggerBatchJob() {
-        batchJobService.runDailyBatchJob();
-        return "Batch job triggered successfully";
+        BatchJob job = batchJobService.runDailyBatchJob("TRIGGER");
+        if (job == null) {
+            return "Batch job is already running";
+        }
+        return "Batch job triggered successfully, job id " + job.getId();
+    }
+
+    /**
+     * Submit a crawl of a day, or of each day of a range, returning once it is queued. Days already
+     * crawled are only fetched again with recrawl=true.
+     */
+    @PostMapping("/jobs")
+    public ResponseEntity<?> submitJob(@RequestParam LocalDate startDate, @RequestParam(required = false) LocalDate endDate,
+                                       @RequestParam(defaultValue = "false") boolean recrawl) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(batchJobService.submitJob(startDate, endDate == null ? startDate : endDate, "API", recrawl));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Too many batch jobs are queued");
+        }
+    }
+
+    @GetMapping("/jobs")
+    public List<BatchJob> getJobs() {
+        return batchJobService.getRecentJobs();
+    }
+
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<BatchJob> getJob(@PathVariable String id) {
+        BatchJob job = batchJobService.getJob(id);
+        return job == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(job);
+    }
+
+    /**
+     * Cancel a job; a running crawl stops after the land it is working on
+     */
+    @PostMapping("/jobs/{id}/cancel")
+    public ResponseEntity<BatchJob> cancelJob(@PathVariable String id) {
+        BatchJob job = batchJobService.cancelJob(id);
+        return job == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(job);
     }
 
     @GetMapping("/status/{date}")
@@ -38,6 +116,179 @@ public class BatchJobController {
         return batchJobRepository.getLatestBatchJobStatusForDate(LocalDate.now());
     }
     
+    @GetMapping("/shards/{date}")
+    public List<CrawlShard> getShards(@PathVariable LocalDate date) {
+        return crawlLeaseRepository.getShards(date);
+    }
+
+    @GetMapping("/version/{date}")
+    public DayVersion getDayVersion(@PathVariable LocalDate date) {
+        return landRepository.getDayVersion(date);
+    }
+
+    @GetMapping("/archived")
+    public List<LocalDate> getArchivedDays() {
+        return segmentStore.getArchivedDays();
+    }
+
+    /**
+     * Days archived in the database whose segment file this instance cannot find
+     */
+    @GetMapping("/archived/missing")
+    public List<LocalDate> getMissingArchivedDays() {
+        return segmentStore.getMissingDays();
+    }
+
+    /**
+     * Queue an archive of every closed day still in the database
+     */
+    @PostMapping("/archive")
+    public ResponseEntity<String> archiveClosedDays() {
+        return submit(dayArchiveService::submitArchive, "Archive of closed days queued");
+    }
+
+    /**
+     * The days moved by the last queued archive, 202 while it is still queued or running
+     */
+    @GetMapping("/archive")
+    public ResponseEntity<?> getArchive() {
+        return taskStatus(dayArchiveService.getSubmittedArchive(), "Archive");
+    }
+
+    /**
+     * Report of the duplicate removal, when this instance ran it at startup
+     */
+    @GetMapping("/compaction")
+    public CompactionReport getLastCompaction() {
+        return compactionService.getLastReport();
+    }
+
+    /**
+     * Report of the last maintenance run, 202 while a requested run is still queued or running
+     */
+    @GetMapping("/maintenance")
+    public ResponseEntity<?> getLastMaintenance() {
+        if (databaseMaintenanceService.isSubmittedRunPending()) {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body("Maintenance is still queued or running");
+        }
+        return ResponseEntity.ok(databaseMaintenanceService.getLastReport());
+    }
+
+    /**
+     * Queue a run that analyzes, compacts and backs up the database
+     */
+    @PostMapping("/maintenance")
+    public ResponseEntity<String> runMaintenance() {
+        return submit(databaseMaintenanceService::submit, "Maintenance queued");
+    }
+
+    /**
+     * Current size and fill rate of the database file
+     */
+    @GetMapping("/maintenance/store")
+    public StoreStats getStoreStats() {
+        return databaseMaintenanceService.getStoreStats();
+    }
+
+    /**
+     * Queue a recomputation of the daily and rolling totals of a range
+     */
+    @PostMapping("/aggregates/repair/{startDate}/{endDate}")
+    public ResponseEntity<String> repairAggregates(@PathVariable LocalDate startDate, @PathVariable LocalDate endDate) {
+        return submit(() -> rollingAggregateService.submitRepair(startDate, endDate),
+                "Repair of aggregates from " + startDate + " to " + endDate + " queued");
+    }
+
+    @GetMapping("/aggregates/repair/{startDate}/{endDate}")
+    public ResponseEntity<?> getAggregateRepair(@PathVariable LocalDate startDate, @PathVariable LocalDate endDate) {
+        return taskStatus(rollingAggregateService.getRepair(startDate, endDate), "Repair");
+    }
+
+    @GetMapping("/failed")
+    public List<FailedLand> getFailedLands(@RequestParam(defaultValue = "500") int limit) {
+        return failedLandRepository.getFailedLands(limit);
+    }
+
+    @GetMapping("/failed/{date}")
+    public List<FailedLand> getFailedLandsForADay(@PathVariable LocalDate date) {
+        return failedLandRepository.getFailedLandsForADay(date);
+    }
+
+    /**
+     * Queue a replay of the failed lands whose backoff has elapsed
+     */
+    @PostMapping("/failed/replay")
+    public ResponseEntity<String> replayDueFailedLands() {
+        return submit(failedLandReplayService::submitReplayDue, "Replay of due failed lands queued");
+    }
+
+    @GetMapping("/failed/replay")
+    public ResponseEntity<?> getDueReplay() {
+        return taskStatus(failedLandReplayService.getReplayDue(), "Replay");
+    }
+
+    /**
+     * Queue a replay of every failed land of a day, whatever its backoff or attempts
+     */
+    @PostMapping("/failed/{date}/replay")
+    public ResponseEntity<String> replayFailedLands(@PathVariable LocalDate date) {
+        return submit(() -> failedLandReplayService.submitReplayDay(date), "Replay of failed lands of " + date + " queued");
+    }
+
+    @GetMapping("/failed/{date}/replay")
+    public ResponseEntity<?> getDayReplay(@PathVariable LocalDate date) {
+        return taskStatus(failedLandReplayService.getReplayDay(date), "Replay");
+    }
+
+    private static ResponseEntity<String> submit(Runnable submit, String message) {
+        try {
+            submit.run();
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(message);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Too many batch jobs are queued");
+        }
+    }
+
+    /**
+     * The result of a finished batch task, 202 while it is still queued or running
+     */
+    private static ResponseEntity<?> taskStatus(CompletableFuture<?> task, String name) {
+        if (task == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!task.isDone()) {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(name + " is still queued or running");
+        }
+        try {
+            return ResponseEntity.ok(task.join());
+        } catch (CompletionException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(name + " failed: " + e.getCause().getMessage());
+        }
+    }
+
+    @GetMapping("/raw")
+    public List<LocalDate> getRawArchiveDays() {
+        return rawResponseArchive.getDays();
+    }
+
+    /**
+     * Queue a re-derivation of days from their archived upstream responses, without calling the upstream API
+     */
+    @PostMapping("/raw/reprocess/{startDate}/{endDate}")
+    public ResponseEntity<String> reprocessRawResponses(@PathVariable LocalDate startDate, @PathVariable LocalDate endDate) {
+        return submit(() -> rawReplayService.submitReprocess(startDate, endDate),
+                "Reprocess of " + startDate + " to " + endDate + " queued");
+    }
+
+    @GetMapping("/raw/reprocess/{startDate}/{endDate}")
+    public ResponseEntity<?> getReprocess(@PathVariable LocalDate startDate, @PathVariable LocalDate endDate) {
+        return taskStatus(rawReplayService.getReprocess(startDate, endDate), "Reprocess");
+    }
+
     @GetMapping("/badlands")
     public List<String> getBadLands() {
         return batchJobRepository.getAllBadLandIds();
@@ -0,0 +1,27 @@
+package com.lokdashboard.dashboard.controller;
+
+import com.lokdashboard.dashboard.models.KingdomSearchResult;
+import com.lokdashboard.dashboard.service.KingdomSearchService;
+import lombok.AllArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/kingdoms")
+@AllArgsConstructor
+public class KingdomController {
+
+    private final KingdomSearchService kingdomSearchService;
+
+    /**
+     * Kingdoms whose name contains q, best matches first, with their latest daily total
+     */
+    @GetMapping("/search")
+    public List<KingdomSearchResult> search(@RequestParam String q, @RequestParam(defaultValue = "10") int limit) {
+        return kingdomSearchService.search(q, limit);
+    }
+}
@@ -0,0 +1,154 @@
+package com.lokdashboard.dashboard.controller;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.lokdashboard.dashboard.models.CompactLand;
+import com.lokdashboard.dashboard.models.Contribution;
+import com.lokdashboard.dashboard.models.Land;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Shapes a land for the response: the default array of contributions, optionally projected to
+ * some fields, or the compact column format
+ */
+final class LandPayloads {
+
+    static final String FORMAT_COMPACT = "compact";
+
+    static final Set<String> CONTRIBUTION_FIELDS = Set.of("date", "landId", "kingdomId", "kingdomName", "totalPoints", "continent");
+
+    private LandPayloads() {
+    }
+
+    /**
+     * Parse a comma separated fields parameter
+     *
+     * @return the fields, null for all fields
+     * @throws IllegalArgumentException if a field is not a contribution field
+     */
+    static Set<String> parseFields(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return null;
+        }
+        Set<String> result = new HashSet<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (!CONTRIBUTION_FIELDS.contains(name)) {
+                throw new IllegalArgumentException("Unknown field " + name + ", expected one of " + CONTRIBUTION_FIELDS);
+            }
+            result.add(name);
+        }
+        return result;
+    }
+
+    static Object format(Land land, String format, Set<String> fields) {
+        if (FORMAT_COMPACT.equals(format)) {
+            return compact(land, fields);
+        }
+        return fields == null ? land : project(land, fields);
+    }
+
+    /**
+     * Copy of the land whose contributions only carry the given fields, the others left out of the
+     * JSON rather than written as null
+     */
+    static Land project(Land land, Set<String> fields) {
+        Land result = new ProjectedLand();
+        result.setId(land.getId());
+        result.setOwner(land.getOwner());
+        result.setLastUpdated(land.getLastUpdated());
+        List<Contribution> contributions = new ArrayList<>(land.getContributions().size());
+        for (Contribution each : land.getContributions()) {
+            Contribution contribution = new ProjectedContribution();
+            if (fields.contains("date")) contribution.setDate(each.getDate());
+            if (fields.contains("landId")) contribution.setLandId(each.getLandId());
+            if (fields.contains("kingdomId")) contribution.setKingdomId(each.getKingdomId());
+            if (fields.contains("kingdomName")) contribution.setKingdomName(each.getKingdomName());
+            if (fields.contains("totalPoints")) contribution.setTotalPoints(each.getTotalPoints());
+            if (fields.contains("continent")) contribution.setContinent(each.getContinent());
+            contributions.add(contribution);
+        }
+        result.setContributions(contributions);
+        return result;
+    }
+
+    /**
+     * Columns of the land's contributions. Without a projection every column holding a value is included.
+     */
+    static CompactLand compact(Land land, Set<String> fields) {
+        List<Contribution> contributions = land.getContributions();
+        int count = contributions.size();
+        CompactLand result = new CompactLand();
+        result.setId(land.getId());
+        result.setOwner(land.getOwner());
+        result.setLastUpdated(land.getLastUpdated());
+        result.setCount(count);
+
+        if (include("date", fields, contributions, Contribution::getDate)) {
+            List<LocalDate> dates = column(contributions, Contribution::getDate);
+            if (new HashSet<>(dates).size() == 1) {
+                // Single day, write the date once
+                result.setDate(dates.get(0));
+            } else {
+                result.setDates(dates);
+            }
+        }
+        if (include("landId", fields, contributions, Contribution::getLandId)) {
+            result.setLandIds(column(contributions, Contribution::getLandId));
+        }
+        if (include("kingdomId", fields, contributions, Contribution::getKingdomId)) {
+            result.setKingdomIds(column(contributions, Contribution::getKingdomId));
+        }
+        if (include("kingdomName", fields, contributions, Contribution::getKingdomName)) {
+            result.setKingdomNames(column(contributions, Contribution::getKingdomName));
+        }
+        if (include("totalPoints", fields, contributions, Contribution::getTotalPoints)) {
+            double[] points = new double[count];
+            for (int i = 0; i < count; i++) {
+                Double value = contributions.get(i).getTotalPoints();
+                points[i] = value == null ? 0 : value;
+            }
+            result.setPoints(points);
+        }
+        if (include("continent", fields, contributions, Contribution::getContinent)) {
+            int[] continents = new int[count];
+            for (int i = 0; i < count; i++) {
+                Integer value = contributions.get(i).getContinent();
+                continents[i] = value == null ? 0 : value;
+            }
+            result.setContinents(continents);
+        }
+        return result;
+    }
+
+    private static boolean include(String field, Set<String> fields, List<Contribution> contributions, Function<Contribution, ?> getter) {
+        if (fields != null) {
+            return fields.contains(field);
+        }
+        for (Contribution contribution : contributions) {
+            if (getter.apply(contribution) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static <T> List<T> column(List<Contribution> contributions, Function<Contribution, T> getter) {
+        List<T> column = new ArrayList<>(contributions.size());
+        for (Contribution contribution : contributions) {
+            column.add(getter.apply(contribution));
+        }
+        return column;
+    }
+
+    // Only projected lands drop null fields, the default response keeps every field
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private static class ProjectedLand extends Land {
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private static class ProjectedContribution extends Contribution {
+    }
+}
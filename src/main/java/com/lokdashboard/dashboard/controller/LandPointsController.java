@@ -1,34 +1,222 @@
 package com.lokdashboard.dashboard.controller;
 
+import com.lokdashboard.dashboard.models.ContinentTotal;
 import com.lokdashboard.dashboard.models.ContributionLeaderboard;
+import com.lokdashboard.dashboard.models.KingdomContributions;
 import com.lokdashboard.dashboard.models.Land;
+import com.lokdashboard.dashboard.models.LandBatchRequest;
+import com.lokdashboard.dashboard.models.LandBatchResponse;
 import com.lokdashboard.dashboard.models.LandLeaderboard;
 import com.lokdashboard.dashboard.repository.LandRepository;
-import lombok.AllArgsConstructor;
+import com.lokdashboard.dashboard.service.DaySnapshot;
+import com.lokdashboard.dashboard.service.DaySnapshotService;
+import com.lokdashboard.dashboard.service.LandFetchService;
+import com.lokdashboard.dashboard.service.RollingAggregateService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.time.LocalDate;
-import java.util.Date;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/land")
-@AllArgsConstructor
+@RequiredArgsConstructor
 public class LandPointsController {
 
     public final LandRepository landRepository;
+    private final LandFetchService landFetchService;
+    private final DaySnapshotService daySnapshotService;
+    private final RollingAggregateService rollingAggregateService;
+
+    @Value("${land.fetch.wait-millis:5000}")
+    private long fetchWaitMillis;
+
+    @Value("${land.fetch.retry-after-seconds:5}")
+    private int retryAfterSeconds;
+
+    @Value("${land.batch.max-lands:100}")
+    private int maxBatchLands;
+
+    @Value("${land.batch.max-days:31}")
+    private int maxBatchDays;
+
+    /**
+     * Stored data is returned straight away. On a cache miss the upstream fetch runs on the fetch
+     * executor; if it takes longer than the wait budget the client gets 202 with a Location to poll.
+     * With format=compact the contributions are returned as column arrays, and fields= limits the
+     * contribution fields in either format.
+     */
     @GetMapping("/{landId}/{date}")
-    public Land getLandDetails(@PathVariable String landId, @PathVariable LocalDate date) {
-        return landRepository.getAllContributionForADay(date, landId);
+    public DeferredResult<ResponseEntity<?>> getLandDetails(@PathVariable String landId, @PathVariable LocalDate date,
+                                                            @RequestParam(required = false) String format,
+                                                            @RequestParam(required = false) String fields) {
+        DeferredResult<ResponseEntity<?>> result = new DeferredResult<>(fetchWaitMillis);
+        Set<String> projection;
+        try {
+            projection = LandPayloads.parseFields(fields);
+        } catch (IllegalArgumentException e) {
+            result.setResult(ResponseEntity.badRequest().body(e.getMessage()));
+            return result;
+        }
+
+        String location = ServletUriComponentsBuilder.fromCurrentRequest().toUriString();
+        result.onTimeout(() -> result.setResult(ResponseEntity.status(HttpStatus.ACCEPTED)
+                .header(HttpHeaders.LOCATION, location)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .build()));
+
+        CompletableFuture<Land> land;
+        try {
+            land = landFetchService.getLand(landId, date);
+        } catch (TaskRejectedException e) {
+            result.setResult(unavailable());
+            return result;
+        }
+        land.whenComplete((value, e) -> result.setResult(e == null
+                ? ResponseEntity.ok(LandPayloads.format(value, format, projection))
+                : unavailable()));
+        return result;
+    }
+
+    /**
+     * Look up several lands in one round trip, for a date or a range. Stored contributions are read
+     * in one query and missing lands are fetched concurrently, up to a limit per lookup. Lands still
+     * being fetched when the wait budget runs out, or not fetched yet for lack of room, are listed
+     * as pending in a 202 with the lands found so far.
+     */
+    @PostMapping("/batch")
+    public DeferredResult<ResponseEntity<?>> getLands(@RequestBody LandBatchRequest request) {
+        DeferredResult<ResponseEntity<?>> result = new DeferredResult<>(fetchWaitMillis);
+        LocalDate startDate = request.getDate() != null ? request.getDate() : request.getStartDate();
+        LocalDate endDate = request.getDate() != null ? request.getDate() : request.getEndDate();
+        String error = null;
+        if (request.getLandIds() == null || request.getLandIds().isEmpty()) {
+            error = "landIds is required";
+        } else if (request.getLandIds().size() > maxBatchLands) {
+            error = "At most " + maxBatchLands + " lands can be looked up at once";
+        } else if (startDate == null || endDate == null || endDate.isBefore(startDate)) {
+            error = "Give a date, or a startDate and an endDate that is not before it";
+        } else if (startDate.plusDays(maxBatchDays).isBefore(endDate.plusDays(1))) {
+            error = "A range can be at most " + maxBatchDays + " days";
+        }
+        if (error != null) {
+            result.setResult(ResponseEntity.badRequest().body(error));
+            return result;
+        }
+
+        Set<String> landIds = new LinkedHashSet<>(request.getLandIds());
+        landIds.removeIf(Objects::isNull);
+        Map<String, CompletableFuture<Land>> lands;
+        try {
+            lands = landFetchService.getLands(landIds, startDate, endDate);
+        } catch (TaskRejectedException e) {
+            result.setResult(unavailable());
+            return result;
+        }
+        result.onTimeout(() -> result.setResult(batchResponse(startDate, endDate, lands)));
+        CompletableFuture.allOf(lands.values().toArray(CompletableFuture[]::new))
+                .whenComplete((done, e) -> result.setResult(batchResponse(startDate, endDate, lands)));
+        return result;
     }
 
     @GetMapping("/contributionLeaderboard/{date}")
     public ContributionLeaderboard getContributionLeaderboard(@PathVariable LocalDate date) {
-        return landRepository.getLeaderboardForADay(date);
+        return daySnapshotService.getSnapshot(date)
+                .map(DaySnapshot::getContributionLeaderboard)
+                .orElseGet(() -> landRepository.getLeaderboardForADay(date));
     }
 
     @GetMapping("/landLeaderboard/{date}")
     public LandLeaderboard getLandLeaderboard(@PathVariable LocalDate date) {
-        return landRepository.getLandLeaderboardForADay(date);
+        return daySnapshotService.getSnapshot(date)
+                .map(DaySnapshot::getLandLeaderboard)
+                .orElseGet(() -> landRepository.getLandLeaderboardForADay(date));
     }
 
+    @GetMapping("/continentTotals/{date}")
+    public List<ContinentTotal> getContinentTotals(@PathVariable LocalDate date) {
+        return daySnapshotService.getSnapshot(date)
+                .map(DaySnapshot::getContinentTotals)
+                .orElseGet(() -> landRepository.getContinentTotalsForADay(date));
+    }
+
+    @GetMapping("/kingdom/{kingdomId}/{date}")
+    public ResponseEntity<KingdomContributions> getKingdomContributions(@PathVariable String kingdomId, @PathVariable LocalDate date) {
+        KingdomContributions result = daySnapshotService.getSnapshot(date)
+                .map(snapshot -> snapshot.getKingdom(kingdomId))
+                .orElseGet(() -> landRepository.getKingdomContributionsForADay(date, kingdomId));
+        return result == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(result);
+    }
+
+    /**
+     * Kingdom leaderboard over the window of days ending on the given date, e.g. 7 for this week
+     */
+    @GetMapping("/rolling/{windowDays}/contributionLeaderboard/{date}")
+    public ResponseEntity<ContributionLeaderboard> getRollingContributionLeaderboard(@PathVariable int windowDays, @PathVariable LocalDate date) {
+        if (!rollingAggregateService.isWindow(windowDays)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(rollingAggregateService.getRollingContributionLeaderboard(windowDays, date));
+    }
+
+    @GetMapping("/rolling/{windowDays}/landLeaderboard/{date}")
+    public ResponseEntity<LandLeaderboard> getRollingLandLeaderboard(@PathVariable int windowDays, @PathVariable LocalDate date) {
+        if (!rollingAggregateService.isWindow(windowDays)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(rollingAggregateService.getRollingLandLeaderboard(windowDays, date));
+    }
+
+    @GetMapping("/range/contributionLeaderboard/{startDate}/{endDate}")
+    public ContributionLeaderboard getContributionLeaderboardForRange(@PathVariable LocalDate startDate, @PathVariable LocalDate endDate) {
+        return rollingAggregateService.getContributionLeaderboardForRange(startDate, endDate);
+    }
+
+    @GetMapping("/range/landLeaderboard/{startDate}/{endDate}")
+    public LandLeaderboard getLandLeaderboardForRange(@PathVariable LocalDate startDate, @PathVariable LocalDate endDate) {
+        return rollingAggregateService.getLandLeaderboardForRange(startDate, endDate);
+    }
+
+    private ResponseEntity<?> batchResponse(LocalDate startDate, LocalDate endDate, Map<String, CompletableFuture<Land>> lands) {
+        List<Land> found = new ArrayList<>();
+        List<String> pending = new ArrayList<>();
+        List<String> failed = new ArrayList<>();
+        lands.forEach((landId, land) -> {
+            if (!land.isDone()) {
+                pending.add(landId);
+            } else if (land.isCompletedExceptionally()) {
+                // Not fetched for lack of room in the fetch queue: worth asking again later
+                boolean rejected = land.handle((value, e) -> e instanceof TaskRejectedException).join();
+                (rejected ? pending : failed).add(landId);
+            } else {
+                found.add(land.join());
+            }
+        });
+        LandBatchResponse body = new LandBatchResponse(startDate, endDate, found, pending, failed);
+        if (pending.isEmpty()) {
+            return ResponseEntity.ok(body);
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(body);
+    }
+
+    private ResponseEntity<?> unavailable() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .build();
+    }
 }
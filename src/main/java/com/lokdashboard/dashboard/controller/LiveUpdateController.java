@@ -0,0 +1,25 @@
+package com.lokdashboard.dashboard.controller;
+
+import com.lokdashboard.dashboard.service.LiveUpdateService;
+import lombok.AllArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/live")
+@AllArgsConstructor
+public class LiveUpdateController {
+
+    private final LiveUpdateService liveUpdateService;
+
+    /**
+     * Server-Sent Events stream of "progress" and "leaderboard" events for the date being ingested
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream() {
+        return liveUpdateService.subscribe();
+    }
+}
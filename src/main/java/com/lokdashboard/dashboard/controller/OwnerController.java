@@ -0,0 +1,46 @@
+package com.lokdashboard.dashboard.controller;
+
+import com.lokdashboard.dashboard.models.LandOwnership;
+import com.lokdashboard.dashboard.models.OwnerPortfolio;
+import com.lokdashboard.dashboard.service.OwnerPortfolioService;
+import lombok.AllArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/owners")
+@AllArgsConstructor
+public class OwnerController {
+
+    private final OwnerPortfolioService ownerPortfolioService;
+
+    /**
+     * Lands the owner held on a day and their combined points
+     */
+    @GetMapping("/{owner}/portfolio/{date}")
+    public OwnerPortfolio getPortfolio(@PathVariable String owner, @PathVariable LocalDate date) {
+        return ownerPortfolioService.getPortfolio(owner, date, date);
+    }
+
+    /**
+     * Lands the owner held during a range, with the points each made while held and the owner's daily totals
+     */
+    @GetMapping("/{owner}/portfolio/{startDate}/{endDate}")
+    public ResponseEntity<OwnerPortfolio> getPortfolio(@PathVariable String owner, @PathVariable LocalDate startDate, @PathVariable LocalDate endDate) {
+        if (endDate.isBefore(startDate)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(ownerPortfolioService.getPortfolio(owner, startDate, endDate));
+    }
+
+    @GetMapping("/history/{landId}")
+    public List<LandOwnership> getOwnershipHistory(@PathVariable String landId) {
+        return ownerPortfolioService.getOwnershipHistory(landId);
+    }
+}
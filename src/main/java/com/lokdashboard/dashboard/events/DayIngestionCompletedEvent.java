@@ -0,0 +1,17 @@
+package com.lokdashboard.dashboard.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * Published by LandBatchJobService when the crawl for a day has completed successfully and its
+ * staged data has been published as the given version
+ */
+@Data
+@AllArgsConstructor
+public class DayIngestionCompletedEvent {
+    private LocalDate date;
+    private int version;
+}
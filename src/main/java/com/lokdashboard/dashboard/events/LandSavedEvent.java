@@ -0,0 +1,19 @@
+package com.lokdashboard.dashboard.events;
+
+import com.lokdashboard.dashboard.models.Land;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * Published by LandRepository after a land's contributions for a day have been written, either
+ * straight to the published data or to the day's staging area
+ */
+@Data
+@AllArgsConstructor
+public class LandSavedEvent {
+    private Land land;
+    private LocalDate date;
+    private boolean staged;
+}
@@ -0,0 +1,23 @@
+package com.lokdashboard.dashboard.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Alert {
+    private Long id;
+    private Long ruleId;
+    private String type;
+    private LocalDate date;
+    private String landId;
+    private String kingdomId;
+    private Double value;
+    private String message;
+    private LocalDateTime firedAt;
+}
@@ -0,0 +1,32 @@
+package com.lokdashboard.dashboard.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A condition checked as lands are ingested. landId and kingdomId narrow the rule down, and are
+ * left empty to match any land or kingdom where the type allows it.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AlertRule {
+    /** One kingdom's points on one land for a day reach the threshold */
+    public static final String CONTRIBUTION_THRESHOLD = "CONTRIBUTION_THRESHOLD";
+    /** A land's points for a day reach the threshold */
+    public static final String LAND_THRESHOLD = "LAND_THRESHOLD";
+    /** A kingdom's points across all lands for a day reach the threshold; kingdomId is required */
+    public static final String KINGDOM_THRESHOLD = "KINGDOM_THRESHOLD";
+    /** A land is stored with a different owner than before */
+    public static final String OWNER_CHANGE = "OWNER_CHANGE";
+
+    private Long id;
+    private String type;
+    private String landId;
+    private String kingdomId;
+    private Double threshold;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,31 @@
+package com.lokdashboard.dashboard.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchJob {
+    private String id;
+    private String trigger;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private boolean recrawl;
+    private String state;
+    private LocalDate currentDate;
+    private int daysDone;
+    private int daysTotal;
+    private int processed;
+    private int failed;
+    private int expected;
+    private boolean cancelRequested;
+    private LocalDateTime submittedAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String message;
+}
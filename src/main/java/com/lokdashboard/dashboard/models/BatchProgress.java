@@ -0,0 +1,21 @@
+package com.lokdashboard.dashboard.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchProgress {
+    private LocalDate date;
+    private String state;
+    private int processed;
+    private int failed;
+    private int total;
+    private String lastLandId;
+    private LocalDateTime updatedAt;
+}
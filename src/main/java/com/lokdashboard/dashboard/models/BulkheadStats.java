@@ -0,0 +1,16 @@
+package com.lokdashboard.dashboard.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkheadStats {
+    private String name;
+    private int maxConcurrent;
+    private int inFlight;
+    private long admitted;
+    private long rejected;
+}
@@ -0,0 +1,29 @@
+package com.lokdashboard.dashboard.models;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * A land with its contributions as parallel column arrays instead of an array of objects, so
+ * property names are written once per column rather than once per contribution. Only the
+ * requested columns are present.
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CompactLand {
+    String id;
+    String owner;
+    LocalDate lastUpdated;
+    int count;
+    // Set instead of dates when every contribution is of the same day
+    LocalDate date;
+    List<LocalDate> dates;
+    List<String> landIds;
+    List<String> kingdomIds;
+    List<String> kingdomNames;
+    double[] points;
+    int[] continents;
+}
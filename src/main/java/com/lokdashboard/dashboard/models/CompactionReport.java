@@ -0,0 +1,19 @@
+package com.lokdashboard.dashboard.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompactionReport {
+    private LocalDateTime executionTime;
+    private int rowsBefore;
+    private int duplicatesRemoved;
+    private long bytesBefore;
+    private long bytesAfter;
+    private long durationMillis;
+}
@@ -0,0 +1,22 @@
+package com.lokdashboard.dashboard.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CrawlShard {
+    private LocalDate jobDate;
+    private int shardStart;
+    private int shardEnd;
+    private String status;
+    private String ownerId;
+    private LocalDateTime leaseUntil;
+    private Integer lastLandId;
+    private boolean refetch;
+}
@@ -0,0 +1,18 @@
+package com.lokdashboard.dashboard.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DayVersion {
+    private LocalDate date;
+    private int version;
+    private int rowCount;
+    private LocalDateTime publishedAt;
+}
@@ -0,0 +1,23 @@
+package com.lokdashboard.dashboard.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FailedLand {
+    private LocalDate date;
+    private String landId;
+    private String status;
+    private int attempts;
+    private String errorClass;
+    private String errorMessage;
+    private LocalDateTime firstFailedAt;
+    private LocalDateTime lastFailedAt;
+    private LocalDateTime nextAttemptAt;
+}
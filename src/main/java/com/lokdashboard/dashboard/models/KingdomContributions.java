@@ -0,0 +1,20 @@
+package com.lokdashboard.dashboard.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class KingdomContributions {
+    private String kingdomId;
+    private String kingdomName;
+    private LocalDate date;
+    private BigDecimal totalPoints;
+    private List<Contribution> contributions;
+}
@@ -0,0 +1,18 @@
+package com.lokdashboard.dashboard.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class KingdomSearchResult {
+    private String kingdomId;
+    private String kingdomName;
+    private LocalDate latestDate;
+    private BigDecimal latestTotalPoints;
+}
@@ -0,0 +1,21 @@
+package com.lokdashboard.dashboard.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Lands to look up for either one date or a range from startDate to endDate
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LandBatchRequest {
+    private List<String> landIds;
+    private LocalDate date;
+    private LocalDate startDate;
+    private LocalDate endDate;
+}
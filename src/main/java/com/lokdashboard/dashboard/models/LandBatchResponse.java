@@ -0,0 +1,23 @@
+package com.lokdashboard.dashboard.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Lands found for a batch lookup. Lands still being fetched from upstream are listed in pending,
+ * lands whose fetch failed or was rejected in failed; both can be requested again.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LandBatchResponse {
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private List<Land> lands;
+    private List<String> pending;
+    private List<String> failed;
+}
@@ -0,0 +1,17 @@
+package com.lokdashboard.dashboard.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LandOwnership {
+    private String landId;
+    private String owner;
+    private LocalDate validFrom;
+    private LocalDate validTo;
+}
@@ -0,0 +1,16 @@
+package com.lokdashboard.dashboard.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LiveLeaderboardUpdate {
+    private LocalDate date;
+    private ContributionLeaderboard contributionLeaderboard;
+    private LandLeaderboard landLeaderboard;
+}
@@ -0,0 +1,22 @@
+package com.lokdashboard.dashboard.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MaintenanceReport {
+    private LocalDateTime executionTime;
+    private long analyzeMillis;
+    private long compactMillis;
+    private StoreStats storeBefore;
+    private StoreStats storeAfter;
+    private String backupFile;
+    private long backupBytes;
+    private String error;
+    private long durationMillis;
+}
@@ -0,0 +1,17 @@
+package com.lokdashboard.dashboard.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OwnerDailyTotal {
+    private LocalDate date;
+    private int landCount;
+    private BigDecimal totalPoints;
+}
@@ -0,0 +1,22 @@
+package com.lokdashboard.dashboard.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OwnerPortfolio {
+    private String owner;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private int landCount;
+    private BigDecimal totalPoints;
+    private List<LandTotalPoints> lands;
+    private List<OwnerDailyTotal> days;
+}
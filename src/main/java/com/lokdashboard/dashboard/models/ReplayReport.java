@@ -0,0 +1,17 @@
+package com.lokdashboard.dashboard.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReplayReport {
+    private int attempted;
+    private int recovered;
+    private int failed;
+    private int exhausted;
+    private int unrecoverable;
+    private long durationMillis;
+}
@@ -0,0 +1,20 @@
+package com.lokdashboard.dashboard.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReprocessReport {
+    private LocalDate date;
+    private String status;
+    private int responses;
+    private int lands;
+    private int failedLands;
+    private Integer version;
+    private long durationMillis;
+}
@@ -0,0 +1,14 @@
+package com.lokdashboard.dashboard.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StoreStats {
+    private long fileBytes;
+    private int fillRate;
+    private int chunksFillRate;
+}
@@ -0,0 +1,17 @@
+package com.lokdashboard.dashboard.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UpstreamLaneStats {
+    private String priority;
+    private int queueDepth;
+    private int maxQueueDepth;
+    private long requests;
+    private double averageWaitMillis;
+    private long maxWaitMillis;
+}
@@ -0,0 +1,236 @@
+package com.lokdashboard.dashboard.repository;
+
+import com.lokdashboard.dashboard.models.LandTotalPoints;
+import com.lokdashboard.dashboard.models.TotalContribution;
+import lombok.AllArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Per-day and rolling window totals of kingdoms and lands. A rolling total for a day is derived
+ * from the previous day's rolling total by adding the new day and subtracting the day that left
+ * the window, so keeping them up to date never reads the contribution table.
+ */
+@Repository
+@AllArgsConstructor
+public class AggregateRepository {
+
+    // Drops entities whose window total went back to zero because their only days left the window
+    private static final double ZERO = 1e-6;
+
+    private static final RowMapper<TotalContribution> KINGDOM_MAPPER = (rs, rowNum) -> {
+        TotalContribution contribution = new TotalContribution();
+        contribution.setKingdomId(rs.getString("kingdom_id"));
+        contribution.setKingdomName(rs.getString("kingdom_name"));
+        contribution.setTotalPoints(rs.getBigDecimal("total_points"));
+        return contribution;
+    };
+
+    private static final RowMapper<LandTotalPoints> LAND_MAPPER = (rs, rowNum) -> {
+        LandTotalPoints landTotalPoints = new LandTotalPoints();
+        landTotalPoints.setLandId(rs.getString("land_id"));
+        landTotalPoints.setOwner(rs.getString("owner"));
+        landTotalPoints.setTotalPoints(rs.getBigDecimal("total_points"));
+        return landTotalPoints;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate requestJdbcTemplate;
+
+    /**
+     * Replace the totals of a day and mark it as aggregated
+     */
+    @Transactional
+    public void replaceDailyTotals(LocalDate date, List<TotalContribution> kingdoms, List<LandTotalPoints> lands) {
+        jdbcTemplate.update("DELETE FROM kingdom_daily_total WHERE total_date = ?", date);
+        jdbcTemplate.update("DELETE FROM land_daily_total WHERE total_date = ?", date);
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO kingdom_daily_total (total_date, kingdom_id, kingdom_name, total_points) VALUES (?, ?, ?, ?)",
+                kingdoms, 1000,
+                (ps, kingdom) -> {
+                    ps.setObject(1, date);
+                    ps.setString(2, kingdom.getKingdomId());
+                    ps.setString(3, kingdom.getKingdomName());
+                    ps.setBigDecimal(4, kingdom.getTotalPoints());
+                });
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO land_daily_total (total_date, land_id, total_points) VALUES (?, ?, ?)",
+                lands, 1000,
+                (ps, land) -> {
+                    ps.setObject(1, date);
+                    ps.setString(2, land.getLandId());
+                    ps.setBigDecimal(3, land.getTotalPoints());
+                });
+        // Owner totals follow the land totals, each land counted for whoever owned it that day
+        jdbcTemplate.update("DELETE FROM owner_daily_total WHERE total_date = ?", date);
+        jdbcTemplate.update("""
+                INSERT INTO owner_daily_total (owner, total_date, land_count, total_points)
+                SELECT o.owner, t.total_date, COUNT(*), SUM(t.total_points)
+                FROM land_daily_total t
+                JOIN land_ownership o ON o.land_id = t.land_id
+                    AND o.valid_from <= t.total_date AND (o.valid_to IS NULL OR o.valid_to > t.total_date)
+                WHERE t.total_date = ?
+                GROUP BY o.owner, t.total_date
+                """, date);
+        jdbcTemplate.update("MERGE INTO aggregate_day (total_date, updated_at) KEY (total_date) VALUES (?, ?)", date, LocalDateTime.now());
+    }
+
+    public boolean isAggregated(LocalDate date) {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM aggregate_day WHERE total_date = ?", Integer.class, date);
+        return count > 0;
+    }
+
+    public List<LocalDate> getAggregatedDays(LocalDate startDate, LocalDate endDate) {
+        return jdbcTemplate.query(
+                "SELECT total_date FROM aggregate_day WHERE total_date >= ? AND total_date <= ? ORDER BY total_date",
+                (rs, rowNum) -> rs.getDate("total_date").toLocalDate(),
+                startDate, endDate);
+    }
+
+    /**
+     * Rolling totals ending on a day from those ending the day before
+     */
+    @Transactional
+    public void rollForward(int windowDays, LocalDate endDate) {
+        LocalDate previous = endDate.minusDays(1);
+        LocalDate leaving = endDate.minusDays(windowDays);
+        jdbcTemplate.update("DELETE FROM kingdom_rolling_total WHERE window_days = ? AND end_date = ?", windowDays, endDate);
+        jdbcTemplate.update("""
+                INSERT INTO kingdom_rolling_total (window_days, end_date, kingdom_id, kingdom_name, total_points)
+                SELECT ?, ?, kingdom_id, MAX(kingdom_name), SUM(points) FROM (
+                    SELECT kingdom_id, kingdom_name, total_points AS points FROM kingdom_rolling_total WHERE window_days = ? AND end_date = ?
+                    UNION ALL
+                    SELECT kingdom_id, kingdom_name, total_points FROM kingdom_daily_total WHERE total_date = ?
+                    UNION ALL
+                    SELECT kingdom_id, kingdom_name, -total_points FROM kingdom_daily_total WHERE total_date = ?
+                ) GROUP BY kingdom_id HAVING ABS(SUM(points)) > ?
+                """,
+                windowDays, endDate, windowDays, previous, endDate, leaving, ZERO);
+        jdbcTemplate.update("DELETE FROM land_rolling_total WHERE window_days = ? AND end_date = ?", windowDays, endDate);
+        jdbcTemplate.update("""
+                INSERT INTO land_rolling_total (window_days, end_date, land_id, total_points)
+                SELECT ?, ?, land_id, SUM(points) FROM (
+                    SELECT land_id, total_points AS points FROM land_rolling_total WHERE window_days = ? AND end_date = ?
+                    UNION ALL
+                    SELECT land_id, total_points FROM land_daily_total WHERE total_date = ?
+                    UNION ALL
+                    SELECT land_id, -total_points FROM land_daily_total WHERE total_date = ?
+                ) GROUP BY land_id HAVING ABS(SUM(points)) > ?
+                """,
+                windowDays, endDate, windowDays, previous, endDate, leaving, ZERO);
+    }
+
+    /**
+     * Rolling totals ending on a day summed from the daily totals of the whole window
+     */
+    @Transactional
+    public void rebuildRolling(int windowDays, LocalDate endDate) {
+        LocalDate startDate = endDate.minusDays(windowDays - 1);
+        jdbcTemplate.update("DELETE FROM kingdom_rolling_total WHERE window_days = ? AND end_date = ?", windowDays, endDate);
+        jdbcTemplate.update("""
+                INSERT INTO kingdom_rolling_total (window_days, end_date, kingdom_id, kingdom_name, total_points)
+                SELECT ?, ?, kingdom_id, MAX(kingdom_name), SUM(total_points)
+                FROM kingdom_daily_total WHERE total_date >= ? AND total_date <= ?
+                GROUP BY kingdom_id
+                """,
+                windowDays, endDate, startDate, endDate);
+        jdbcTemplate.update("DELETE FROM land_rolling_total WHERE window_days = ? AND end_date = ?", windowDays, endDate);
+        jdbcTemplate.update("""
+                INSERT INTO land_rolling_total (window_days, end_date, land_id, total_points)
+                SELECT ?, ?, land_id, SUM(total_points)
+                FROM land_daily_total WHERE total_date >= ? AND total_date <= ?
+                GROUP BY land_id
+                """,
+                windowDays, endDate, startDate, endDate);
+    }
+
+    /**
+     * Delete the totals of a window ending before a day
+     *
+     * @return the number of rows deleted
+     */
+    public int deleteRollingBefore(int windowDays, LocalDate endDate) {
+        return jdbcTemplate.update("DELETE FROM kingdom_rolling_total WHERE window_days = ? AND end_date < ?", windowDays, endDate)
+                + jdbcTemplate.update("DELETE FROM land_rolling_total WHERE window_days = ? AND end_date < ?", windowDays, endDate);
+    }
+
+    public List<TotalContribution> getRollingKingdomLeaderboard(int windowDays, LocalDate endDate, int limit) {
+        return requestJdbcTemplate.query("""
+                SELECT kingdom_id, kingdom_name, total_points
+                FROM kingdom_rolling_total
+                WHERE window_days = ? AND end_date = ?
+                ORDER BY total_points DESC
+                LIMIT ?
+                """,
+                KINGDOM_MAPPER, windowDays, endDate, limit);
+    }
+
+    public List<LandTotalPoints> getRollingLandLeaderboard(int windowDays, LocalDate endDate, int limit) {
+        return requestJdbcTemplate.query("""
+                SELECT r.land_id, l.owner, r.total_points
+                FROM (
+                    SELECT land_id, total_points FROM land_rolling_total
+                    WHERE window_days = ? AND end_date = ?
+                    ORDER BY total_points DESC
+                    LIMIT ?
+                ) r
+                LEFT JOIN land l ON l.land_id = r.land_id
+                ORDER BY r.total_points DESC
+                """,
+                LAND_MAPPER, windowDays, endDate, limit);
+    }
+
+    /**
+     * Every kingdom's total on the last day it was aggregated
+     */
+    public void forEachLatestKingdomTotal(RowCallbackHandler handler) {
+        jdbcTemplate.query("""
+                SELECT k.kingdom_id, k.kingdom_name, k.total_date, k.total_points
+                FROM kingdom_daily_total k
+                JOIN (SELECT kingdom_id, MAX(total_date) AS total_date FROM kingdom_daily_total GROUP BY kingdom_id) latest
+                  ON latest.kingdom_id = k.kingdom_id AND latest.total_date = k.total_date
+                """,
+                handler);
+    }
+
+    /**
+     * Kingdom totals over any range of days, summed from the daily totals
+     */
+    public List<TotalContribution> getKingdomLeaderboardForRange(LocalDate startDate, LocalDate endDate, int limit) {
+        return requestJdbcTemplate.query("""
+                SELECT kingdom_id, MAX(kingdom_name) AS kingdom_name, SUM(total_points) AS total_points
+                FROM kingdom_daily_total
+                WHERE total_date >= ? AND total_date <= ?
+                GROUP BY kingdom_id
+                ORDER BY total_points DESC
+                LIMIT ?
+                """,
+                KINGDOM_MAPPER, startDate, endDate, limit);
+    }
+
+    /**
+     * Land totals over any range of days, summed from the daily totals
+     */
+    public List<LandTotalPoints> getLandLeaderboardForRange(LocalDate startDate, LocalDate endDate, int limit) {
+        return requestJdbcTemplate.query("""
+                SELECT r.land_id, l.owner, r.total_points
+                FROM (
+                    SELECT land_id, SUM(total_points) AS total_points FROM land_daily_total
+                    WHERE total_date >= ? AND total_date <= ?
+                    GROUP BY land_id
+                    ORDER BY total_points DESC
+                    LIMIT ?
+                ) r
+                LEFT JOIN land l ON l.land_id = r.land_id
+                ORDER BY r.total_points DESC
+                """,
+                LAND_MAPPER, startDate, endDate, limit);
+    }
+}
@@ -0,0 +1,131 @@
+package com.lokdashboard.dashboard.repository;
+
+import com.lokdashboard.dashboard.models.Alert;
+import com.lokdashboard.dashboard.models.AlertRule;
+import lombok.AllArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+@Repository
+@AllArgsConstructor
+public class AlertRepository {
+
+    private static final RowMapper<AlertRule> RULE_MAPPER = (rs, rowNum) -> new AlertRule(
+            rs.getLong("rule_id"),
+            rs.getString("rule_type"),
+            rs.getString("land_id"),
+            rs.getString("kingdom_id"),
+            rs.getObject("threshold", Double.class),
+            rs.getTimestamp("created_at").toLocalDateTime());
+
+    private static final RowMapper<Alert> ALERT_MAPPER = (rs, rowNum) -> new Alert(
+            rs.getLong("alert_id"),
+            rs.getLong("rule_id"),
+            rs.getString("rule_type"),
+            rs.getDate("alert_date").toLocalDate(),
+            rs.getString("land_id"),
+            rs.getString("kingdom_id"),
+            rs.getObject("alert_value", Double.class),
+            rs.getString("message"),
+            rs.getTimestamp("fired_at").toLocalDateTime());
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate requestJdbcTemplate;
+
+    public List<AlertRule> getRules() {
+        return jdbcTemplate.query("SELECT rule_id, rule_type, land_id, kingdom_id, threshold, created_at FROM alert_rule ORDER BY rule_id", RULE_MAPPER);
+    }
+
+    public AlertRule saveRule(AlertRule rule) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(
+                    "INSERT INTO alert_rule (rule_type, land_id, kingdom_id, threshold, created_at) VALUES (?, ?, ?, ?, ?)",
+                    new String[] {"rule_id"});
+            ps.setString(1, rule.getType());
+            ps.setString(2, rule.getLandId());
+            ps.setString(3, rule.getKingdomId());
+            ps.setObject(4, rule.getThreshold(), Types.DOUBLE);
+            ps.setTimestamp(5, Timestamp.valueOf(rule.getCreatedAt()));
+            return ps;
+        }, keyHolder);
+        rule.setId(Objects.requireNonNull(keyHolder.getKey()).longValue());
+        return rule;
+    }
+
+    public boolean deleteRule(long ruleId) {
+        return jdbcTemplate.update("DELETE FROM alert_rule WHERE rule_id = ?", ruleId) > 0;
+    }
+
+    public Alert saveAlert(Alert alert) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement("""
+                            INSERT INTO alert (rule_id, rule_type, alert_date, land_id, kingdom_id, alert_value, message, fired_at)
+                            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+                            """,
+                    new String[] {"alert_id"});
+            ps.setLong(1, alert.getRuleId());
+            ps.setString(2, alert.getType());
+            ps.setObject(3, alert.getDate());
+            ps.setString(4, alert.getLandId());
+            ps.setString(5, alert.getKingdomId());
+            ps.setObject(6, alert.getValue(), Types.DOUBLE);
+            ps.setString(7, alert.getMessage());
+            ps.setTimestamp(8, Timestamp.valueOf(alert.getFiredAt()));
+            return ps;
+        }, keyHolder);
+        alert.setId(Objects.requireNonNull(keyHolder.getKey()).longValue());
+        return alert;
+    }
+
+    /**
+     * Alerts fired after the given one, oldest first
+     */
+    public List<Alert> getAlertsAfter(long alertId, int limit) {
+        return requestJdbcTemplate.query("""
+                        SELECT alert_id, rule_id, rule_type, alert_date, land_id, kingdom_id, alert_value, message, fired_at
+                        FROM alert WHERE alert_id > ? ORDER BY alert_id LIMIT ?
+                        """,
+                ALERT_MAPPER, alertId, limit);
+    }
+
+    public List<Alert> getAlertsForADay(LocalDate date) {
+        return jdbcTemplate.query("""
+                        SELECT alert_id, rule_id, rule_type, alert_date, land_id, kingdom_id, alert_value, message, fired_at
+                        FROM alert WHERE alert_date = ?
+                        """,
+                ALERT_MAPPER, date);
+    }
+
+    /**
+     * Points of a kingdom on each land for a day, staged lands taking the place of what is published for them
+     */
+    public Map<String, Double> getKingdomPointsByLand(LocalDate date, String kingdomId) {
+        Map<String, Double> points = new HashMap<>();
+        jdbcTemplate.query("""
+                        SELECT land_id, total_points FROM contribution_staging WHERE staging_date = ? AND kingdom_id = ?
+                        UNION ALL
+                        SELECT c.land_id, c.total_points FROM contribution c
+                        WHERE c.contribution_date = ? AND c.kingdom_id = ?
+                            AND NOT EXISTS (SELECT 1 FROM land_staging s WHERE s.staging_date = ? AND s.land_id = c.land_id)
+                        """,
+                rs -> {
+                    points.put(rs.getString("land_id"), rs.getDouble("total_points"));
+                },
+                date, kingdomId, date, kingdomId, date);
+        return points;
+    }
+}
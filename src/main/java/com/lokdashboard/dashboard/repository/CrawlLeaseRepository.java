@@ -0,0 +1,142 @@
+package com.lokdashboard.dashboard.repository;
+
+import com.lokdashboard.dashboard.models.CrawlShard;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Shards of a day's crawl and the leases instances hold on them. Every state change is a
+ * conditional UPDATE, so two instances can never both own a shard.
+ */
+@Repository
+@AllArgsConstructor
+@Slf4j
+public class CrawlLeaseRepository {
+
+    private static final RowMapper<CrawlShard> SHARD_MAPPER = (rs, rowNum) -> {
+        Timestamp leaseUntil = rs.getTimestamp("lease_until");
+        Integer lastLandId = rs.getObject("last_land_id", Integer.class);
+        return new CrawlShard(
+                rs.getDate("job_date").toLocalDate(),
+                rs.getInt("shard_start"),
+                rs.getInt("shard_end"),
+                rs.getString("status"),
+                rs.getString("owner_id"),
+                leaseUntil == null ? null : leaseUntil.toLocalDateTime(),
+                lastLandId,
+                rs.getBoolean("refetch"));
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Create the shards covering [startLandId, endLandId] for a day, unless another instance already did
+     */
+    public void createShards(LocalDate date, int startLandId, int endLandId, int shardSize) {
+        for (int shardStart = startLandId; shardStart <= endLandId; shardStart += shardSize) {
+            int shardEnd = Math.min(shardStart + shardSize - 1, endLandId);
+            try {
+                jdbcTemplate.update(
+                        "INSERT INTO crawl_lease (job_date, shard_start, shard_end, status, updated_at) " +
+                        "SELECT ?, ?, ?, 'PENDING', ? FROM DUAL " +
+                        "WHERE NOT EXISTS (SELECT 1 FROM crawl_lease WHERE job_date = ? AND shard_start = ?)",
+                        date, shardStart, shardEnd, LocalDateTime.now(), date, shardStart);
+            } catch (DuplicateKeyException e) {
+                // Another instance created it at the same time
+            }
+        }
+    }
+
+    /**
+     * Make a crawled day's shards pending again, marked so whoever claims them fetches every land
+     * again instead of skipping the ones already stored. Shards still pending are marked too, so
+     * an interrupted crawl of the day is finished as a re-crawl.
+     *
+     * @return the number of shards reset
+     */
+    public int resetShards(LocalDate date) {
+        return jdbcTemplate.update(
+                "UPDATE crawl_lease SET last_land_id = CASE WHEN status = 'DONE' THEN NULL ELSE last_land_id END, " +
+                "owner_id = CASE WHEN status = 'DONE' THEN NULL ELSE owner_id END, " +
+                "status = 'PENDING', refetch = TRUE, updated_at = ? WHERE job_date = ?",
+                LocalDateTime.now(), date);
+    }
+
+    /**
+     * Claim the first pending shard of a day that is not leased or whose lease has lapsed
+     *
+     * @return the claimed shard, or null if none is available
+     */
+    public CrawlShard claimShard(LocalDate date, String ownerId, LocalDateTime leaseUntil) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Integer> candidates = jdbcTemplate.queryForList(
+                "SELECT shard_start FROM crawl_lease WHERE job_date = ? AND status = 'PENDING' " +
+                "AND (lease_until IS NULL OR lease_until < ?) ORDER BY shard_start",
+                Integer.class, date, now);
+
+        for (Integer shardStart : candidates) {
+            int claimed = jdbcTemplate.update(
+                    "UPDATE crawl_lease SET owner_id = ?, lease_until = ?, updated_at = ? " +
+                    "WHERE job_date = ? AND shard_start = ? AND status = 'PENDING' " +
+                    "AND (lease_until IS NULL OR lease_until < ?)",
+                    ownerId, leaseUntil, now, date, shardStart, now);
+            if (claimed == 1) {
+                return getShard(date, shardStart);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Extend a lease and record the last land processed
+     *
+     * @return false if the lease was lost to another instance
+     */
+    public boolean renewLease(LocalDate date, int shardStart, String ownerId, LocalDateTime leaseUntil, int lastLandId) {
+        return jdbcTemplate.update(
+                "UPDATE crawl_lease SET lease_until = ?, last_land_id = ?, updated_at = ? " +
+                "WHERE job_date = ? AND shard_start = ? AND owner_id = ? AND status = 'PENDING'",
+                leaseUntil, lastLandId, LocalDateTime.now(), date, shardStart, ownerId) == 1;
+    }
+
+    public boolean completeShard(LocalDate date, int shardStart, String ownerId) {
+        return jdbcTemplate.update(
+                "UPDATE crawl_lease SET status = 'DONE', lease_until = NULL, updated_at = ? " +
+                "WHERE job_date = ? AND shard_start = ? AND owner_id = ? AND status = 'PENDING'",
+                LocalDateTime.now(), date, shardStart, ownerId) == 1;
+    }
+
+    /**
+     * Give a shard back so another instance can pick it up right away, keeping its checkpoint
+     */
+    public void releaseShard(LocalDate date, int shardStart, String ownerId, Integer lastLandId) {
+        jdbcTemplate.update(
+                "UPDATE crawl_lease SET owner_id = NULL, lease_until = NULL, last_land_id = ?, updated_at = ? " +
+                "WHERE job_date = ? AND shard_start = ? AND owner_id = ? AND status = 'PENDING'",
+                lastLandId, LocalDateTime.now(), date, shardStart, ownerId);
+    }
+
+    public int countUnfinishedShards(LocalDate date) {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM crawl_lease WHERE job_date = ? AND status <> 'DONE'", Integer.class, date);
+    }
+
+    public CrawlShard getShard(LocalDate date, int shardStart) {
+        List<CrawlShard> results = jdbcTemplate.query(
+                "SELECT * FROM crawl_lease WHERE job_date = ? AND shard_start = ?", SHARD_MAPPER, date, shardStart);
+        return results.isEmpty() ? null : results.get(0);
+    }
+
+    public List<CrawlShard> getShards(LocalDate date) {
+        return jdbcTemplate.query("SELECT * FROM crawl_lease WHERE job_date = ? ORDER BY shard_start", SHARD_MAPPER, date);
+    }
+}
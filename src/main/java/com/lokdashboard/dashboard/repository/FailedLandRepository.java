@@ -0,0 +1,100 @@
+package com.lokdashboard.dashboard.repository;
+
+import com.lokdashboard.dashboard.models.FailedLand;
+import lombok.AllArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Dead letters of the crawl: lands of a day whose fetch failed, with the last error and how many
+ * times they were tried
+ */
+@Repository
+@AllArgsConstructor
+public class FailedLandRepository {
+
+    public static final String PENDING = "PENDING";
+    public static final String EXHAUSTED = "EXHAUSTED";
+    // The land's day was archived without it, a replay can no longer add it
+    public static final String UNRECOVERABLE = "UNRECOVERABLE";
+
+    private static final String COLUMNS = "failed_date, land_id, status, attempts, error_class, error_message, " +
+            "first_failed_at, last_failed_at, next_attempt_at";
+
+    private static final RowMapper<FailedLand> FAILED_LAND_MAPPER = (rs, rowNum) -> {
+        Timestamp nextAttemptAt = rs.getTimestamp("next_attempt_at");
+        return new FailedLand(
+                rs.getDate("failed_date").toLocalDate(),
+                rs.getString("land_id"),
+                rs.getString("status"),
+                rs.getInt("attempts"),
+                rs.getString("error_class"),
+                rs.getString("error_message"),
+                rs.getTimestamp("first_failed_at").toLocalDateTime(),
+                rs.getTimestamp("last_failed_at").toLocalDateTime(),
+                nextAttemptAt == null ? null : nextAttemptAt.toLocalDateTime());
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void saveFailedLand(FailedLand failedLand) {
+        jdbcTemplate.update(
+                "MERGE INTO failed_land (" + COLUMNS + ") KEY (failed_date, land_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                failedLand.getDate(), failedLand.getLandId(), failedLand.getStatus(), failedLand.getAttempts(),
+                failedLand.getErrorClass(), failedLand.getErrorMessage(), failedLand.getFirstFailedAt(),
+                failedLand.getLastFailedAt(), failedLand.getNextAttemptAt());
+    }
+
+    public FailedLand getFailedLand(LocalDate date, String landId) {
+        List<FailedLand> results = jdbcTemplate.query(
+                "SELECT " + COLUMNS + " FROM failed_land WHERE failed_date = ? AND land_id = ?",
+                FAILED_LAND_MAPPER, date, landId);
+        return results.isEmpty() ? null : results.get(0);
+    }
+
+    /**
+     * Pending lands whose next attempt is due, the longest waiting first
+     */
+    public List<FailedLand> getDueFailedLands(LocalDateTime now, int limit) {
+        return jdbcTemplate.query(
+                "SELECT " + COLUMNS + " FROM failed_land WHERE status = ? AND next_attempt_at <= ? " +
+                "ORDER BY next_attempt_at LIMIT ?",
+                FAILED_LAND_MAPPER, PENDING, now, limit);
+    }
+
+    public List<FailedLand> getFailedLandsForADay(LocalDate date) {
+        return jdbcTemplate.query(
+                "SELECT " + COLUMNS + " FROM failed_land WHERE failed_date = ? ORDER BY land_id",
+                FAILED_LAND_MAPPER, date);
+    }
+
+    public List<FailedLand> getFailedLands(int limit) {
+        return jdbcTemplate.query(
+                "SELECT " + COLUMNS + " FROM failed_land ORDER BY failed_date DESC, land_id LIMIT ?",
+                FAILED_LAND_MAPPER, limit);
+    }
+
+    public int countFailedLandsForADay(LocalDate date) {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM failed_land WHERE failed_date = ?", Integer.class, date);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Lands of a day still waiting for an automatic retry
+     */
+    public int countPendingFailedLandsForADay(LocalDate date) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM failed_land WHERE failed_date = ? AND status = ?", Integer.class, date, PENDING);
+        return count == null ? 0 : count;
+    }
+
+    public void deleteFailedLand(LocalDate date, String landId) {
+        jdbcTemplate.update("DELETE FROM failed_land WHERE failed_date = ? AND land_id = ?", date, landId);
+    }
+}
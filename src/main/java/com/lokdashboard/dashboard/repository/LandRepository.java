@@ -1,145 +1,592 @@
 package com.lokdashboard.dashboard.repository;
 
+import com.lokdashboard.dashboard.events.LandSavedEvent;
 import com.lokdashboard.dashboard.service.Utils;
 import com.lokdashboard.dashboard.models.*;
+import com.lokdashboard.dashboard.storage.ContributionRowHandler;
+import com.lokdashboard.dashboard.storage.DaySegment;
+import com.lokdashboard.dashboard.storage.SegmentStore;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @Repository
 @AllArgsConstructor
 @Slf4j
 public class LandRepository {
 
+    private static final RowMapper<Contribution> CONTRIBUTION_MAPPER = (rs, rowNum) -> {
+        Contribution contribution = new Contribution();
+        contribution.setKingdomId(rs.getString("kingdom_id"));
+        contribution.setKingdomName(rs.getString("kingdom_name"));
+        contribution.setTotalPoints(rs.getDouble("total_points"));
+        contribution.setContinent(rs.getInt("continent"));
+        return contribution;
+    };
+
+    private static final RowMapper<TotalContribution> KINGDOM_TOTAL_MAPPER = (rs, rowNum) -> {
+        TotalContribution contribution = new TotalContribution();
+        contribution.setKingdomId(rs.getString("kingdom_id"));
+        contribution.setKingdomName(rs.getString("kingdom_name"));
+        contribution.setTotalPoints(rs.getBigDecimal("total_cumulative_points"));
+        return contribution;
+    };
+
+    private static final RowMapper<LandTotalPoints> LAND_TOTAL_MAPPER = (rs, rowNum) -> {
+        LandTotalPoints landTotalPoints = new LandTotalPoints();
+        landTotalPoints.setLandId(rs.getString("land_id"));
+        landTotalPoints.setOwner(rs.getString("owner"));
+        landTotalPoints.setTotalPoints(rs.getBigDecimal("total_cumulative_points"));
+        return landTotalPoints;
+    };
+
     private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate requestJdbcTemplate;
     private final Utils utils;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SegmentStore segmentStore;
+
+    /**
+     * Save a land and its contributions for a day in one transaction, so a land is never half-written
+     */
+    @Transactional
     public void saveLandData(Land land, LocalDate date) {
         log.info("Saving land data for land ID: {}", land.getId());
-        Integer checkCount = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM LAND WHERE LAND_ID = '" + land.getId() + "'", Integer.class);
-        if(checkCount == 0) {
-            jdbcTemplate.update("INSERT INTO land (land_id, owner, last_updated) VALUES (?, ?, ?)", land.getId(), land.getOwner(), land.getLastUpdated());
-        } else {
-            jdbcTemplate.update("UPDATE land SET owner = ?, last_updated = ? WHERE land_id = ?", land.getOwner(), land.getLastUpdated(), land.getId());
+        jdbcTemplate.update("MERGE INTO land (land_id, owner, last_updated) KEY (land_id) VALUES (?, ?, ?)", land.getId(), land.getOwner(), land.getLastUpdated());
+        recordOwnership("SELECT CAST(? AS VARCHAR(255)) AS land_id, CAST(? AS VARCHAR(255)) AS owner", date, land.getId(), land.getOwner());
+
+        // Upsert on the natural key, so saving a land twice for a day never duplicates its rows
+        jdbcTemplate.batchUpdate("""
+                        MERGE INTO contribution (contribution_date, kingdom_id, total_points, kingdom_name, continent, land_id)
+                        KEY (contribution_date, land_id, kingdom_id)
+                        VALUES (?, ?, ?, ?, ?, ?)
+                        """,
+                land.getContributions(),
+                land.getContributions().size(),
+                (ps, contribution) -> {
+                    ps.setObject(1, date);
+                    ps.setString(2, contribution.getKingdomId());
+                    ps.setObject(3, contribution.getTotalPoints());
+                    ps.setString(4, contribution.getKingdomName());
+                    ps.setObject(5, contribution.getContinent());
+                    ps.setString(6, contribution.getLandId());
+                });
+        if (land.getContributions().isEmpty()) {
+            jdbcTemplate.update("MERGE INTO empty_land_day (empty_date, land_id) KEY (empty_date, land_id) VALUES (?, ?)", date, land.getId());
         }
+        eventPublisher.publishEvent(new LandSavedEvent(land, date, false));
+    }
 
-        for(Contribution contribution : land.getContributions()) {
-            jdbcTemplate.update("""
-                            INSERT INTO contribution (contribution_date, kingdom_id, total_points, kingdom_name, continent, land_id)
-                                            VALUES (?, ?, ?, ?, ?, ?)
-                                        """,
-                    date,
-                    contribution.getKingdomId(),
-                    contribution.getTotalPoints(),
-                    contribution.getKingdomName(),
-                    contribution.getContinent(),
-                    contribution.getLandId()
-            );
+    /**
+     * Write a crawled land to the day's staging area, replacing anything staged for it before.
+     * Readers do not see it until the day is published.
+     */
+    @Transactional
+    public void stageLandData(Land land, LocalDate date) {
+        jdbcTemplate.update("DELETE FROM land_staging WHERE staging_date = ? AND land_id = ?", date, land.getId());
+        jdbcTemplate.update("DELETE FROM contribution_staging WHERE staging_date = ? AND land_id = ?", date, land.getId());
+        jdbcTemplate.update("INSERT INTO land_staging (staging_date, land_id, owner, last_updated) VALUES (?, ?, ?, ?)",
+                date, land.getId(), land.getOwner(), land.getLastUpdated());
+        jdbcTemplate.batchUpdate("""
+                        INSERT INTO contribution_staging (staging_date, kingdom_id, total_points, kingdom_name, continent, land_id)
+                        VALUES (?, ?, ?, ?, ?, ?)
+                        """,
+                land.getContributions(),
+                land.getContributions().size(),
+                (ps, contribution) -> {
+                    ps.setObject(1, date);
+                    ps.setString(2, contribution.getKingdomId());
+                    ps.setObject(3, contribution.getTotalPoints());
+                    ps.setString(4, contribution.getKingdomName());
+                    ps.setObject(5, contribution.getContinent());
+                    ps.setString(6, land.getId());
+                });
+        eventPublisher.publishEvent(new LandSavedEvent(land, date, true));
+    }
+
+    /**
+     * Bulk write lands to a day's staging area, for reprocessing. The caller clears what was staged
+     * for these lands before; no LandSavedEvent is published.
+     */
+    @Transactional
+    public void stageLands(List<Land> lands, LocalDate date) {
+        jdbcTemplate.batchUpdate("INSERT INTO land_staging (staging_date, land_id, owner, last_updated) VALUES (?, ?, ?, ?)",
+                lands, lands.size(),
+                (ps, land) -> {
+                    ps.setObject(1, date);
+                    ps.setString(2, land.getId());
+                    ps.setString(3, land.getOwner());
+                    ps.setObject(4, land.getLastUpdated());
+                });
+        List<Contribution> contributions = new ArrayList<>();
+        for (Land land : lands) {
+            contributions.addAll(land.getContributions());
         }
+        jdbcTemplate.batchUpdate("""
+                        INSERT INTO contribution_staging (staging_date, kingdom_id, total_points, kingdom_name, continent, land_id)
+                        VALUES (?, ?, ?, ?, ?, ?)
+                        """,
+                contributions,
+                1000,
+                (ps, contribution) -> {
+                    ps.setObject(1, date);
+                    ps.setString(2, contribution.getKingdomId());
+                    ps.setObject(3, contribution.getTotalPoints());
+                    ps.setString(4, contribution.getKingdomName());
+                    ps.setObject(5, contribution.getContinent());
+                    ps.setString(6, contribution.getLandId());
+                });
+    }
+
+    public void clearStagedDay(LocalDate date) {
+        jdbcTemplate.update("DELETE FROM contribution_staging WHERE staging_date = ?", date);
+        jdbcTemplate.update("DELETE FROM land_staging WHERE staging_date = ?", date);
+    }
+
+    public boolean isLandStaged(String landId, LocalDate date) {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM land_staging WHERE staging_date = ? AND land_id = ?", Integer.class, date, landId);
+        return count > 0;
     }
 
-    public Land getAllContributionForADay(LocalDate date, String landId) {
-        if(!checkIfDataExistsForDate(landId, date)) {
-            Land land = utils.getContributions(landId, date, date);
-            saveLandData(land, date);
+    /**
+     * Publish a day's staged lands in one transaction: their published rows are replaced by the
+     * staged ones, the day's version is bumped and the staging area is cleared. Concurrent
+     * publishers of the same day queue on the day_version row, so only the first one finds
+     * anything staged.
+     *
+     * @return the new version, or null if nothing was staged
+     */
+    @Transactional
+    public Integer publishDay(LocalDate date) {
+        jdbcTemplate.update(
+                "INSERT INTO day_version (version_date, version, row_count) SELECT ?, 0, 0 FROM DUAL " +
+                "WHERE NOT EXISTS (SELECT 1 FROM day_version WHERE version_date = ?)",
+                date, date);
+        jdbcTemplate.update("UPDATE day_version SET version = version + 1, published_at = ? WHERE version_date = ?", LocalDateTime.now(), date);
+
+        Integer stagedLands = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM land_staging WHERE staging_date = ?", Integer.class, date);
+        if (stagedLands == 0) {
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            return null;
         }
 
-        List<Map<String, Object>> list = jdbcTemplate.queryForList("SELECT kingdom_id, kingdom_name, total_points, continent from CONTRIBUTION where land_id = ? and contribution_date = ?", landId, date);
+        jdbcTemplate.update("""
+                MERGE INTO land (land_id, owner, last_updated) KEY (land_id)
+                SELECT land_id, owner, last_updated FROM land_staging WHERE staging_date = ?
+                """, date);
+        recordOwnership("SELECT land_id, owner FROM land_staging WHERE staging_date = ?", date, date);
+        int replaced = jdbcTemplate.update("""
+                DELETE FROM contribution
+                WHERE contribution_date = ? AND land_id IN (SELECT land_id FROM land_staging WHERE staging_date = ?)
+                """, date, date);
+        int inserted = jdbcTemplate.update("""
+                MERGE INTO contribution (contribution_date, kingdom_id, total_points, kingdom_name, continent, land_id)
+                KEY (contribution_date, land_id, kingdom_id)
+                SELECT staging_date, kingdom_id, total_points, kingdom_name, continent, land_id
+                FROM contribution_staging WHERE staging_date = ?
+                """, date);
+        jdbcTemplate.update("""
+                MERGE INTO empty_land_day (empty_date, land_id) KEY (empty_date, land_id)
+                SELECT s.staging_date, s.land_id FROM land_staging s
+                WHERE s.staging_date = ?
+                    AND NOT EXISTS (SELECT 1 FROM contribution_staging c WHERE c.staging_date = s.staging_date AND c.land_id = s.land_id)
+                """, date);
+        jdbcTemplate.update("DELETE FROM contribution_staging WHERE staging_date = ?", date);
+        jdbcTemplate.update("DELETE FROM land_staging WHERE staging_date = ?", date);
+
+        jdbcTemplate.update("UPDATE day_version SET row_count = ? WHERE version_date = ?", countContributionsForADay(date), date);
+        Integer version = jdbcTemplate.queryForObject("SELECT version FROM day_version WHERE version_date = ?", Integer.class, date);
+        log.info("Published {} lands of {} as version {}: replaced {} rows with {}", stagedLands, date, version, replaced, inserted);
+        return version;
+    }
+
+    /**
+     * Bring land_ownership up to date with the owners of some lands on a day. A different owner
+     * closes the current row and opens one from that day, or replaces the owner if the current row
+     * starts that day. A land stored for a day before its only row extends that row back. Days
+     * before the current row otherwise leave the history as it is.
+     *
+     * @param lands a query returning land_id and owner
+     */
+    private void recordOwnership(String lands, LocalDate date, Object... landArgs) {
+        String source = "(SELECT land_id, owner FROM (" + lands + ") t WHERE owner IS NOT NULL)";
+        List<Object> mergeArgs = new ArrayList<>(List.of(landArgs));
+        mergeArgs.addAll(List.of(date, date, date, date, date));
+        jdbcTemplate.update("""
+                MERGE INTO land_ownership o
+                USING %s s ON o.land_id = s.land_id AND o.valid_to IS NULL
+                WHEN MATCHED AND s.owner <> o.owner AND o.valid_from = ? THEN UPDATE SET owner = s.owner
+                WHEN MATCHED AND s.owner <> o.owner AND o.valid_from < ? THEN UPDATE SET valid_to = ?
+                WHEN MATCHED AND s.owner = o.owner AND o.valid_from > ?
+                    AND NOT EXISTS (SELECT 1 FROM land_ownership h WHERE h.land_id = o.land_id AND h.valid_to IS NOT NULL)
+                    THEN UPDATE SET valid_from = ?
+                """.formatted(source), mergeArgs.toArray());
+
+        List<Object> insertArgs = new ArrayList<>(List.of(date));
+        insertArgs.addAll(List.of(landArgs));
+        jdbcTemplate.update("""
+                INSERT INTO land_ownership (land_id, owner, valid_from)
+                SELECT s.land_id, s.owner, ? FROM %s s
+                WHERE NOT EXISTS (SELECT 1 FROM land_ownership o WHERE o.land_id = s.land_id AND o.valid_to IS NULL)
+                """.formatted(source), insertArgs.toArray());
+    }
+
+    public DayVersion getDayVersion(LocalDate date) {
+        List<DayVersion> results = jdbcTemplate.query(
+                "SELECT version_date, version, row_count, published_at FROM day_version WHERE version_date = ?",
+                (rs, rowNum) -> new DayVersion(
+                        rs.getDate("version_date").toLocalDate(),
+                        rs.getInt("version"),
+                        rs.getInt("row_count"),
+                        rs.getTimestamp("published_at") == null ? null : rs.getTimestamp("published_at").toLocalDateTime()),
+                date);
+        return results.isEmpty() ? null : results.get(0);
+    }
+
+    /**
+     * Get the stored contributions of a land for a day, without fetching missing data from upstream
+     */
+    public Land getStoredContributionForADay(LocalDate date, String landId) {
+        if (segmentStore.isArchived(date)) {
+            return segmentStore.getSegment(date).getLand(landId);
+        }
         Land result = new Land();
         result.setId(landId);
-        result.setContributions(
-                list.stream().map(each -> {
-                    Contribution contribution = new Contribution();
-                    contribution.setContinent(((Integer) each.get("continent")));
-                    contribution.setTotalPoints(((Double) each.get("total_points")));
-                    contribution.setKingdomName(each.get("kingdom_name").toString());
-                    contribution.setKingdomId(each.get("kingdom_id").toString());
+        List<Contribution> contributions = new ArrayList<>();
+        // The owner comes with every row, so it is only looked up on its own when the land has none
+        requestJdbcTemplate.query("""
+                SELECT c.kingdom_id, c.kingdom_name, c.total_points, c.continent, l.owner
+                FROM contribution c
+                LEFT JOIN land l ON l.land_id = c.land_id
+                WHERE c.land_id = ? AND c.contribution_date = ?
+                """,
+                rs -> {
+                    Contribution contribution = CONTRIBUTION_MAPPER.mapRow(rs, contributions.size());
                     contribution.setDate(date);
-                    return contribution;
-
-                }).toList());
-        result.setId(landId);
-        String owner = jdbcTemplate.queryForObject("SELECT owner FROM LAND where land_id = ?", String.class, landId);
-        result.setOwner(owner);
+                    contributions.add(contribution);
+                    result.setOwner(rs.getString("owner"));
+                },
+                landId, date);
+        if (contributions.isEmpty()) {
+            List<String> owners = requestJdbcTemplate.query("SELECT owner FROM land WHERE land_id = ?", (rs, rowNum) -> rs.getString("owner"), landId);
+            result.setOwner(owners.isEmpty() ? null : owners.get(0));
+        }
+        result.setContributions(contributions);
         return result;
     }
 
     public Land getAllContributionForDateRange(LocalDate startDate, LocalDate endDate, String landId) {
-        Integer contributionCount = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM CONTRIBUTION where land_id = '" + landId + "' and contribution_date >= '" + startDate + "' and contribution_date <= '" + endDate + "'", Integer.class);
-
-        if(contributionCount == 0) {
-            Land land = utils.getContributions(landId, startDate, endDate);
-            saveLandData(land, startDate);
+        // Fetch missing days one at a time, a range total stored under its first day would count twice
+        for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
+            if (!checkIfDataExistsForDate(landId, date)) {
+                saveLandData(utils.getContributions(landId, date, date), date);
+            }
         }
 
-        List<Map<String, Object>> list = jdbcTemplate.queryForList("SELECT kingdom_id, kingdom_name, total_points, continent from CONTRIBUTION where land_id = ? and contribution_date >= ? and contribution_date <= ?", landId, startDate, endDate);
         Land result = new Land();
         result.setId(landId);
-        result.setContributions(
-                list.stream().map(each -> {
-                    Contribution contribution = new Contribution();
-                    contribution.setContinent(((Integer) each.get("continent")));
-                    contribution.setTotalPoints(((Double) each.get("total_points")));
-                    contribution.setKingdomName(each.get("kingdom_name").toString());
-                    contribution.setKingdomId(each.get("kingdom_id").toString());
-                    return contribution;
-
-                }).toList());
-        result.setId(landId);
+        List<Contribution> contributions = requestJdbcTemplate.query(
+                "SELECT kingdom_id, kingdom_name, total_points, continent FROM contribution WHERE land_id = ? AND contribution_date >= ? AND contribution_date <= ?",
+                CONTRIBUTION_MAPPER, landId, startDate, endDate);
+        for (LocalDate archivedDay : segmentStore.getArchivedDays(startDate, endDate)) {
+            contributions.addAll(segmentStore.getSegment(archivedDay).getLand(landId).getContributions());
+        }
+        result.setContributions(contributions);
         return result;
     }
 
+    /**
+     * Get the stored contributions of several lands over a range of days in one query, with their
+     * owners, without fetching missing data from upstream. Archived days are read from their
+     * segments. Lands without any stored contribution are left out.
+     */
+    public Map<String, Land> getStoredContributions(Collection<String> landIds, LocalDate startDate, LocalDate endDate) {
+        Map<String, Land> lands = new LinkedHashMap<>();
+        if (landIds.isEmpty()) {
+            return lands;
+        }
+        List<Object> args = new ArrayList<>(landIds);
+        args.add(startDate);
+        args.add(endDate);
+        requestJdbcTemplate.query("""
+                SELECT c.land_id, c.contribution_date, c.kingdom_id, c.kingdom_name, c.total_points, c.continent, l.owner
+                FROM contribution c
+                LEFT JOIN land l ON l.land_id = c.land_id
+                WHERE c.land_id IN (%s) AND c.contribution_date >= ? AND c.contribution_date <= ?
+                ORDER BY c.land_id, c.contribution_date
+                """.formatted(String.join(", ", Collections.nCopies(landIds.size(), "?"))),
+                rs -> {
+                    String landId = rs.getString("land_id");
+                    Contribution contribution = CONTRIBUTION_MAPPER.mapRow(rs, 0);
+                    contribution.setDate(rs.getDate("contribution_date").toLocalDate());
+                    landWithContributions(lands, landId, rs.getString("owner")).getContributions().add(contribution);
+                },
+                args.toArray());
+
+        for (LocalDate archivedDay : segmentStore.getArchivedDays(startDate, endDate)) {
+            DaySegment segment = segmentStore.getSegment(archivedDay);
+            for (String landId : landIds) {
+                Land archived = segment.getLand(landId);
+                if (!archived.getContributions().isEmpty()) {
+                    landWithContributions(lands, landId, archived.getOwner()).getContributions().addAll(archived.getContributions());
+                }
+            }
+        }
+        return lands;
+    }
+
+    /**
+     * The days of a range each land is stored for: those it has contributions on, those it was
+     * fetched for without any, and archived days, which are closed for every land
+     */
+    public Map<String, Set<LocalDate>> getStoredDays(Collection<String> landIds, LocalDate startDate, LocalDate endDate) {
+        Map<String, Set<LocalDate>> days = new HashMap<>();
+        if (landIds.isEmpty()) {
+            return days;
+        }
+        String placeholders = String.join(", ", Collections.nCopies(landIds.size(), "?"));
+        List<Object> args = new ArrayList<>(landIds);
+        args.add(startDate);
+        args.add(endDate);
+        args.addAll(landIds);
+        args.add(startDate);
+        args.add(endDate);
+        requestJdbcTemplate.query("""
+                SELECT DISTINCT land_id, contribution_date AS stored_date FROM contribution
+                WHERE land_id IN (%s) AND contribution_date >= ? AND contribution_date <= ?
+                UNION
+                SELECT land_id, empty_date FROM empty_land_day
+                WHERE land_id IN (%s) AND empty_date >= ? AND empty_date <= ?
+                """.formatted(placeholders, placeholders),
+                rs -> {
+                    days.computeIfAbsent(rs.getString(1), id -> new HashSet<>()).add(rs.getDate(2).toLocalDate());
+                },
+                args.toArray());
+
+        List<LocalDate> archivedDays = segmentStore.getArchivedDays(startDate, endDate);
+        if (!archivedDays.isEmpty()) {
+            for (String landId : landIds) {
+                days.computeIfAbsent(landId, id -> new HashSet<>()).addAll(archivedDays);
+            }
+        }
+        return days;
+    }
+
+    private static Land landWithContributions(Map<String, Land> lands, String landId, String owner) {
+        return lands.computeIfAbsent(landId, id -> {
+            Land land = new Land();
+            land.setId(id);
+            land.setOwner(owner);
+            land.setContributions(new ArrayList<>());
+            return land;
+        });
+    }
+
     public ContributionLeaderboard getLeaderboardForADay(LocalDate date) {
-        List<Map<String, Object>> list = jdbcTemplate.queryForList("""
-                SELECT kingdom_id, kingdom_name, SUM(total_points) as total_cumulative_points 
-                FROM contribution 
-                WHERE contribution_date = ? 
-                GROUP BY kingdom_id, kingdom_name 
-                ORDER BY total_cumulative_points DESC 
-                LIMIT 10
-                """, date);
+        if (segmentStore.isArchived(date)) {
+            return segmentStore.getSegment(date).getContributionLeaderboard();
+        }
         ContributionLeaderboard result = new ContributionLeaderboard();
-        result.setContributions(
-                list.stream().map(each -> {
-                    TotalContribution contribution = new TotalContribution();
-                    contribution.setTotalPoints((BigDecimal) each.get("total_cumulative_points"));
-                    contribution.setKingdomName(each.get("kingdom_name").toString());
-                    contribution.setKingdomId(each.get("kingdom_id").toString());
-                    return contribution;
-
-                }).toList());
+        result.setContributions(requestJdbcTemplate.query("""
+                SELECT kingdom_id, kingdom_name, SUM(total_points) as total_cumulative_points
+                FROM contribution
+                WHERE contribution_date = ?
+                GROUP BY kingdom_id, kingdom_name
+                ORDER BY total_cumulative_points DESC
+                LIMIT 10
+                """,
+                KINGDOM_TOTAL_MAPPER, date));
         return result;
     }
 
     public LandLeaderboard getLandLeaderboardForADay(LocalDate date) {
-        List<Map<String, Object>> list = jdbcTemplate.queryForList("""
-                SELECT land_id, SUM(total_points) as total_cumulative_points 
-                FROM contribution 
-                WHERE contribution_date = ? 
-                GROUP BY land_id 
-                ORDER BY total_cumulative_points DESC 
-                LIMIT 10
-                """, date);
+        if (segmentStore.isArchived(date)) {
+            return segmentStore.getSegment(date).getLandLeaderboard();
+        }
+        // Owners are joined to the ten leaders only, not to every contribution of the day
         LandLeaderboard result = new LandLeaderboard();
-        result.setPoints(
-                list.stream().map(each -> {
-                    LandTotalPoints landTotalPoints = new LandTotalPoints();
-                    landTotalPoints.setTotalPoints((BigDecimal) each.get("total_cumulative_points"));
-                    landTotalPoints.setLandId(each.get("land_id").toString());
-                    String owner = jdbcTemplate.queryForObject("SELECT owner FROM LAND where land_id = ?", String.class, each.get("land_id").toString());
-                    landTotalPoints.setOwner(owner);
-                    return landTotalPoints;
-                }).toList());
+        result.setPoints(requestJdbcTemplate.query("""
+                SELECT t.land_id, l.owner, t.total_cumulative_points
+                FROM (
+                    SELECT land_id, SUM(total_points) as total_cumulative_points
+                    FROM contribution
+                    WHERE contribution_date = ?
+                    GROUP BY land_id
+                    ORDER BY total_cumulative_points DESC
+                    LIMIT 10
+                ) t
+                LEFT JOIN land l ON l.land_id = t.land_id
+                ORDER BY t.total_cumulative_points DESC
+                """,
+                LAND_TOTAL_MAPPER, date));
         return result;
     }
 
+    /**
+     * Get the total points of every kingdom for a day, without the leaderboard limit
+     */
+    public List<TotalContribution> getKingdomTotalsForADay(LocalDate date) {
+        if (segmentStore.isArchived(date)) {
+            return segmentStore.getSegment(date).getKingdomTotals();
+        }
+        return jdbcTemplate.query("""
+                SELECT kingdom_id, MAX(kingdom_name) AS kingdom_name, SUM(total_points) as total_cumulative_points
+                FROM contribution
+                WHERE contribution_date = ?
+                GROUP BY kingdom_id
+                """,
+                KINGDOM_TOTAL_MAPPER, date);
+    }
+
+    /**
+     * Get the total points and owner of every land for a day, without the leaderboard limit
+     */
+    public List<LandTotalPoints> getLandTotalsForADay(LocalDate date) {
+        if (segmentStore.isArchived(date)) {
+            return segmentStore.getSegment(date).getLandTotals();
+        }
+        return jdbcTemplate.query("""
+                SELECT c.land_id, l.owner, SUM(c.total_points) as total_cumulative_points
+                FROM contribution c
+                LEFT JOIN land l ON l.land_id = c.land_id
+                WHERE c.contribution_date = ?
+                GROUP BY c.land_id, l.owner
+                """,
+                LAND_TOTAL_MAPPER, date);
+    }
+
+    /**
+     * Get the total points per continent for a day
+     */
+    public List<ContinentTotal> getContinentTotalsForADay(LocalDate date) {
+        if (segmentStore.isArchived(date)) {
+            return segmentStore.getSegment(date).getContinentTotals();
+        }
+        return requestJdbcTemplate.query("""
+                SELECT continent, SUM(total_points) as total_cumulative_points
+                FROM contribution
+                WHERE contribution_date = ?
+                GROUP BY continent
+                ORDER BY continent
+                """,
+                (rs, rowNum) -> new ContinentTotal(rs.getInt("continent"), rs.getBigDecimal("total_cumulative_points")),
+                date);
+    }
+
+    /**
+     * Get the contributions of a kingdom across all lands for a day, or null if it has none
+     */
+    public KingdomContributions getKingdomContributionsForADay(LocalDate date, String kingdomId) {
+        if (segmentStore.isArchived(date)) {
+            return segmentStore.getSegment(date).getKingdom(kingdomId);
+        }
+        List<Contribution> contributions = requestJdbcTemplate.query(
+                "SELECT land_id, kingdom_name, total_points, continent FROM contribution WHERE contribution_date = ? AND kingdom_id = ?",
+                (rs, rowNum) -> {
+                    Contribution contribution = new Contribution();
+                    contribution.setKingdomId(kingdomId);
+                    contribution.setKingdomName(rs.getString("kingdom_name"));
+                    contribution.setTotalPoints(rs.getDouble("total_points"));
+                    contribution.setContinent(rs.getInt("continent"));
+                    contribution.setLandId(rs.getString("land_id"));
+                    contribution.setDate(date);
+                    return contribution;
+                },
+                date, kingdomId);
+        if (contributions.isEmpty()) {
+            return null;
+        }
+        BigDecimal total = BigDecimal.valueOf(contributions.stream().mapToDouble(Contribution::getTotalPoints).sum());
+        return new KingdomContributions(kingdomId, contributions.get(0).getKingdomName(), date, total, contributions);
+    }
+
+    /**
+     * Stream every contribution of a day, with its land's owner, ordered by land
+     */
+    public void forEachContributionOfADay(LocalDate date, ContributionRowHandler handler) {
+        if (segmentStore.isArchived(date)) {
+            segmentStore.getSegment(date).forEachRow(handler);
+            return;
+        }
+        jdbcTemplate.query("""
+                SELECT c.land_id, l.owner, c.kingdom_id, c.kingdom_name, c.continent, c.total_points
+                FROM contribution c
+                LEFT JOIN land l ON l.land_id = c.land_id
+                WHERE c.contribution_date = ?
+                ORDER BY c.land_id
+                """,
+                rs -> {
+                    handler.handle(
+                            rs.getString("land_id"),
+                            rs.getString("owner"),
+                            rs.getString("kingdom_id"),
+                            rs.getString("kingdom_name"),
+                            rs.getInt("continent"),
+                            rs.getDouble("total_points"));
+                },
+                date);
+    }
+
+    /**
+     * Days with contributions still in the database that are older than the given date
+     */
+    public List<LocalDate> getStoredDaysBefore(LocalDate date) {
+        return jdbcTemplate.query(
+                "SELECT DISTINCT contribution_date FROM contribution WHERE contribution_date < ? ORDER BY contribution_date",
+                (rs, rowNum) -> rs.getDate("contribution_date").toLocalDate(),
+                date);
+    }
+
+    /**
+     * Every kingdom id in the database with one of its names
+     */
+    public void forEachKingdomName(RowCallbackHandler handler) {
+        jdbcTemplate.query("SELECT kingdom_id, MAX(kingdom_name) AS kingdom_name FROM contribution GROUP BY kingdom_id", handler);
+    }
+
+    public int countContributionsForADay(LocalDate date) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM contribution WHERE contribution_date = ?", Integer.class, date);
+    }
+
+    public int deleteContributionsForADay(LocalDate date) {
+        return jdbcTemplate.update("DELETE FROM contribution WHERE contribution_date = ?", date);
+    }
+
+    /**
+     * Whether an archived day holds the land, in its segment or as a land fetched without contributions
+     */
+    public boolean isLandInArchivedDay(String landId, LocalDate date) {
+        return segmentStore.getSegment(date).hasLand(landId) || Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM empty_land_day WHERE empty_date = ? AND land_id = ?)", Boolean.class, date, landId));
+    }
+
     public boolean checkIfDataExistsForDate(String landId, LocalDate date) {
-        Integer contributionCount = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM CONTRIBUTION where land_id = '" + landId + "' and contribution_date = '" + date + "'", Integer.class);
-        return contributionCount > 0;
+        if (segmentStore.isArchived(date)) {
+            // Archived days are closed, a land missing from the segment had no contributions
+            return true;
+        }
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("""
+                SELECT EXISTS (SELECT 1 FROM contribution WHERE land_id = ? AND contribution_date = ?)
+                    OR EXISTS (SELECT 1 FROM empty_land_day WHERE empty_date = ? AND land_id = ?)
+                """, Boolean.class, landId, date, date, landId));
     }
 }
@@ -0,0 +1,106 @@
+package com.lokdashboard.dashboard.repository;
+
+import com.lokdashboard.dashboard.models.StoreStats;
+import lombok.AllArgsConstructor;
+import org.h2.engine.SessionLocal;
+import org.h2.jdbc.JdbcConnection;
+import org.h2.mvstore.MVStore;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Statement;
+import java.util.function.Function;
+
+/**
+ * Housekeeping statements on the contribution table and the database file
+ */
+@Repository
+@AllArgsConstructor
+public class MaintenanceRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public int countContributions() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM contribution", Integer.class);
+    }
+
+    /**
+     * Bytes used by a table and its indexes in the database file
+     */
+    public long getTableBytes(String tableName) {
+        return jdbcTemplate.queryForObject("SELECT DISK_SPACE_USED(?)", Long.class, tableName);
+    }
+
+    /**
+     * Delete all but the most recently inserted row of every (contribution_date, land_id, kingdom_id).
+     * Scans the whole table, so it runs without the query timeout.
+     */
+    public int deleteDuplicateContributions() {
+        return jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.setQueryTimeout(0);
+                return statement.executeUpdate("""
+                        DELETE FROM contribution
+                        WHERE _ROWID_ NOT IN (
+                            SELECT MAX(_ROWID_) FROM contribution GROUP BY contribution_date, land_id, kingdom_id
+                        )
+                        """);
+            }
+        });
+    }
+
+    public boolean hasContributionNaturalKey() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM INFORMATION_SCHEMA.INDEXES WHERE TABLE_NAME = 'CONTRIBUTION' AND INDEX_NAME = 'UQ_CONTRIBUTION_NATURAL_KEY')",
+                Boolean.class));
+    }
+
+    public void createContributionNaturalKey() {
+        jdbcTemplate.execute("CREATE UNIQUE INDEX IF NOT EXISTS uq_contribution_natural_key ON contribution (contribution_date, land_id, kingdom_id)");
+        // Covered by the natural key
+        jdbcTemplate.execute("DROP INDEX IF EXISTS idx_contribution_date_land");
+    }
+
+    /**
+     * Refresh the optimizer's selectivity statistics of every table
+     */
+    public void analyze() {
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    /**
+     * Write a consistent zip of the database while it stays online
+     */
+    public void backupTo(String fileName) {
+        jdbcTemplate.update("BACKUP TO ?", fileName);
+    }
+
+    /**
+     * Size and fill rate of the database file, or null for an in-memory or remote database
+     */
+    public StoreStats getStoreStats() {
+        return withFileStore(store -> new StoreStats(store.getFileStore().size(), store.getFillRate(), store.getFileStore().getChunksFillRate()));
+    }
+
+    /**
+     * Rewrite up to writeBytes of the least filled chunks, the same step the store's background
+     * writer takes when it compacts on its own
+     *
+     * @return false once the file is filled to targetFillRate and there is nothing left to do
+     */
+    public boolean compactStep(int targetFillRate, int writeBytes) {
+        return Boolean.TRUE.equals(withFileStore(store -> store.compact(targetFillRate, writeBytes)));
+    }
+
+    private <T> T withFileStore(Function<MVStore, T> action) {
+        return jdbcTemplate.execute((ConnectionCallback<T>) connection -> {
+            // Only an embedded database exposes its store, a TCP server compacts its own file
+            if (!(connection.unwrap(JdbcConnection.class).getSession() instanceof SessionLocal session)) {
+                return null;
+            }
+            MVStore store = session.getDatabase().getStore().getMvStore();
+            return store.getFileStore() == null ? null : action.apply(store);
+        });
+    }
+}
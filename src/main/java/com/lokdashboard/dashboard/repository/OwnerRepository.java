@@ -0,0 +1,92 @@
+package com.lokdashboard.dashboard.repository;
+
+import com.lokdashboard.dashboard.models.LandOwnership;
+import com.lokdashboard.dashboard.models.LandTotalPoints;
+import com.lokdashboard.dashboard.models.OwnerDailyTotal;
+import lombok.AllArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Lands by owner over time, kept by {@link LandRepository} as lands are stored, and the per-day
+ * owner totals written with the other daily totals. Portfolios are read from these and
+ * land_daily_total, never from the contribution table.
+ */
+@Repository
+@AllArgsConstructor
+public class OwnerRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate requestJdbcTemplate;
+
+    /**
+     * Open an ownership row for every land with an owner but no history yet, from its first
+     * aggregated day or else the day it was last updated
+     *
+     * @return the number of lands added
+     */
+    public int backfillOwnership() {
+        return jdbcTemplate.update("""
+                INSERT INTO land_ownership (land_id, owner, valid_from)
+                SELECT l.land_id, l.owner, COALESCE(
+                    (SELECT MIN(t.total_date) FROM land_daily_total t WHERE t.land_id = l.land_id), l.last_updated, CURRENT_DATE)
+                FROM (SELECT CAST(land_id AS VARCHAR(255)) AS land_id, owner, last_updated FROM land WHERE owner IS NOT NULL) l
+                WHERE NOT EXISTS (SELECT 1 FROM land_ownership o WHERE o.land_id = l.land_id)
+                """);
+    }
+
+    /**
+     * Lands the owner held at some point of a range, each with the points it made while held
+     */
+    public List<LandTotalPoints> getOwnedLands(String owner, LocalDate startDate, LocalDate endDate) {
+        return requestJdbcTemplate.query("""
+                SELECT o.land_id, COALESCE(SUM(t.total_points), 0) AS total_points
+                FROM land_ownership o
+                LEFT JOIN land_daily_total t ON t.land_id = o.land_id
+                    AND t.total_date >= ? AND t.total_date <= ?
+                    AND t.total_date >= o.valid_from AND (o.valid_to IS NULL OR t.total_date < o.valid_to)
+                WHERE o.owner = ? AND o.valid_from <= ? AND (o.valid_to IS NULL OR o.valid_to > ?)
+                GROUP BY o.land_id
+                ORDER BY total_points DESC, o.land_id
+                """,
+                (rs, rowNum) -> {
+                    LandTotalPoints land = new LandTotalPoints();
+                    land.setLandId(rs.getString("land_id"));
+                    land.setOwner(owner);
+                    land.setTotalPoints(rs.getBigDecimal("total_points"));
+                    return land;
+                },
+                startDate, endDate, owner, endDate, startDate);
+    }
+
+    public List<OwnerDailyTotal> getDailyTotals(String owner, LocalDate startDate, LocalDate endDate) {
+        return requestJdbcTemplate.query(
+                "SELECT total_date, land_count, total_points FROM owner_daily_total WHERE owner = ? AND total_date >= ? AND total_date <= ? ORDER BY total_date",
+                (rs, rowNum) -> new OwnerDailyTotal(rs.getDate("total_date").toLocalDate(), rs.getInt("land_count"), rs.getBigDecimal("total_points")),
+                owner, startDate, endDate);
+    }
+
+    /**
+     * The open ownership row of every land
+     */
+    public List<LandOwnership> getCurrentOwnerships() {
+        return jdbcTemplate.query(
+                "SELECT land_id, owner, valid_from FROM land_ownership WHERE valid_to IS NULL",
+                (rs, rowNum) -> new LandOwnership(rs.getString("land_id"), rs.getString("owner"), rs.getDate("valid_from").toLocalDate(), null));
+    }
+
+    public List<LandOwnership> getOwnershipHistory(String landId) {
+        return requestJdbcTemplate.query(
+                "SELECT land_id, owner, valid_from, valid_to FROM land_ownership WHERE land_id = ? ORDER BY valid_from",
+                (rs, rowNum) -> {
+                    Date validTo = rs.getDate("valid_to");
+                    return new LandOwnership(rs.getString("land_id"), rs.getString("owner"), rs.getDate("valid_from").toLocalDate(),
+                            validTo == null ? null : validTo.toLocalDate());
+                },
+                landId);
+    }
+}
@@ -22,12 +22,13 @@ import java.util.Objects;
 public class VisitorRepository {
 
     private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate requestJdbcTemplate;
 
     /**
      * Get visitor by IP address
      */
     public VisitorLog findByIpAddress(String ipAddress) {
-        List<VisitorLog> results = jdbcTemplate.query(
+        List<VisitorLog> results = requestJdbcTemplate.query(
             "SELECT id, ip_address, user_agent, first_visit_time, last_visit_time, visit_count " +
             "FROM visitor_log WHERE ip_address = ?",
             (rs, rowNum) -> VisitorLog.builder()
@@ -98,7 +99,7 @@ public class VisitorRepository {
      * Get total visitor count
      */
     public int getTotalVisitorCount() {
-        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM visitor_log", Integer.class);
+        return requestJdbcTemplate.queryForObject("SELECT COUNT(*) FROM visitor_log", Integer.class);
     }
 
     /**
@@ -106,7 +107,7 @@ public class VisitorRepository {
      */
     public int getTodayVisitorCount() {
         LocalDateTime startOfDay = LocalDateTime.now().toLocalDate().atStartOfDay();
-        return jdbcTemplate.queryForObject(
+        return requestJdbcTemplate.queryForObject(
             "SELECT COUNT(*) FROM visitor_log WHERE last_visit_time >= ?", 
             Integer.class,
             Timestamp.valueOf(startOfDay)
@@ -117,7 +118,7 @@ public class VisitorRepository {
      * Get total activity count
      */
     public int getTotalActivityCount() {
-        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM activity_log", Integer.class);
+        return requestJdbcTemplate.queryForObject("SELECT COUNT(*) FROM activity_log", Integer.class);
     }
 
     /**
@@ -125,7 +126,7 @@ public class VisitorRepository {
      */
     public int getTodayActivityCount() {
         LocalDateTime startOfDay = LocalDateTime.now().toLocalDate().atStartOfDay();
-        return jdbcTemplate.queryForObject(
+        return requestJdbcTemplate.queryForObject(
             "SELECT COUNT(*) FROM activity_log WHERE timestamp >= ?", 
             Integer.class,
             Timestamp.valueOf(startOfDay)
@@ -136,7 +137,7 @@ public class VisitorRepository {
      * Get activity count by endpoint
      */
     public List<Map<String, Object>> getActivityCountByEndpoint() {
-        return jdbcTemplate.queryForList(
+        return requestJdbcTemplate.queryForList(
             "SELECT endpoint, COUNT(*) as count FROM activity_log GROUP BY endpoint ORDER BY count DESC"
         );
     }
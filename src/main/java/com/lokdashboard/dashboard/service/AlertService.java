@@ -0,0 +1,321 @@
+package com.lokdashboard.dashboard.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lokdashboard.dashboard.events.LandSavedEvent;
+import com.lokdashboard.dashboard.models.Alert;
+import com.lokdashboard.dashboard.models.AlertRule;
+import com.lokdashboard.dashboard.models.Contribution;
+import com.lokdashboard.dashboard.models.Land;
+import com.lokdashboard.dashboard.models.LandOwnership;
+import com.lokdashboard.dashboard.repository.AlertRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Evaluates alert rules against each land once its save is committed, so detecting an event costs
+ * the rows ingested rather than a leaderboard query per poll. Evaluation runs on a single worker
+ * thread, keeping saves from waiting on each other and rolled back saves from firing anything.
+ * Only the state the rules need is kept: the alerts already fired and, for kingdom thresholds, the
+ * kingdom's points per land for the last few days, and the current owner of each land. Fired
+ * alerts are stored and pushed to SSE subscribers.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class AlertService {
+
+    private static final Set<String> TYPES = Set.of(AlertRule.CONTRIBUTION_THRESHOLD, AlertRule.LAND_THRESHOLD,
+            AlertRule.KINGDOM_THRESHOLD, AlertRule.OWNER_CHANGE);
+    private static final int REPLAY_LIMIT = 1000;
+
+    private final AlertRepository alertRepository;
+    private final OwnerPortfolioService ownerPortfolioService;
+    private final ObjectMapper objectMapper;
+    private final ThreadPoolTaskExecutor alertExecutor;
+
+    @Value("${alerts.tracked-days:3}")
+    private int trackedDays;
+
+    @Value("${live.emitter-timeout-millis:1800000}")
+    private long emitterTimeoutMillis;
+
+    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+    private final Queue<Alert> pending = new ConcurrentLinkedQueue<>();
+
+    private volatile List<AlertRule> rules = List.of();
+
+    // Rule state, only used on the alert executor's thread
+    private final Map<LocalDate, DayState> days = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<LocalDate, DayState> eldest) {
+            return size() > trackedDays;
+        }
+    };
+    // Current owner of each land, kept whether or not an owner change rule exists so that a rule
+    // added later compares against the owner from before its first save
+    private final Map<String, LandOwnership> owners = new HashMap<>();
+
+    @PostConstruct
+    public void init() {
+        rules = alertRepository.getRules();
+        for (LandOwnership ownership : ownerPortfolioService.getCurrentOwnerships()) {
+            owners.put(ownership.getLandId(), ownership);
+        }
+        log.info("Loaded {} alert rules, tracking the owners of {} lands", rules.size(), owners.size());
+    }
+
+    public List<AlertRule> getRules() {
+        return rules;
+    }
+
+    /**
+     * Register a rule; it applies to lands saved from now on
+     *
+     * @throws IllegalArgumentException if the rule is incomplete
+     */
+    public synchronized AlertRule addRule(AlertRule rule) {
+        if (rule.getType() == null || !TYPES.contains(rule.getType())) {
+            throw new IllegalArgumentException("type must be one of " + new TreeSet<>(TYPES));
+        }
+        if (AlertRule.OWNER_CHANGE.equals(rule.getType())) {
+            rule.setThreshold(null);
+            rule.setKingdomId(null);
+        } else if (rule.getThreshold() == null) {
+            throw new IllegalArgumentException("threshold is required");
+        }
+        if (AlertRule.LAND_THRESHOLD.equals(rule.getType())) {
+            rule.setKingdomId(null);
+        }
+        if (AlertRule.KINGDOM_THRESHOLD.equals(rule.getType())) {
+            if (rule.getKingdomId() == null) {
+                throw new IllegalArgumentException("kingdomId is required");
+            }
+            rule.setLandId(null);
+        }
+        rule.setId(null);
+        rule.setCreatedAt(LocalDateTime.now());
+        AlertRule saved = alertRepository.saveRule(rule);
+        rules = alertRepository.getRules();
+        log.info("Added alert rule {}", saved);
+        return saved;
+    }
+
+    public synchronized boolean deleteRule(long ruleId) {
+        if (!alertRepository.deleteRule(ruleId)) {
+            return false;
+        }
+        rules = alertRepository.getRules();
+        alertExecutor.execute(() -> {
+            for (DayState day : days.values()) {
+                day.kingdoms.remove(ruleId);
+            }
+        });
+        return true;
+    }
+
+    public List<Alert> getAlertsAfter(long alertId, int limit) {
+        return alertRepository.getAlertsAfter(alertId, Math.min(limit, REPLAY_LIMIT));
+    }
+
+    /**
+     * Register a new subscriber, first sending it the alerts fired after the last one it received
+     */
+    public SseEmitter subscribe(Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMillis);
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(() -> emitters.remove(emitter));
+        emitter.onError(e -> emitters.remove(emitter));
+        emitters.add(emitter);
+
+        if (lastEventId != null) {
+            try {
+                for (Alert alert : alertRepository.getAlertsAfter(lastEventId, REPLAY_LIMIT)) {
+                    emitter.send(event(alert));
+                }
+            } catch (IOException e) {
+                emitters.remove(emitter);
+            }
+        }
+        return emitter;
+    }
+
+    /**
+     * Queue a saved land for evaluation once its transaction has committed
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onLandSaved(LandSavedEvent event) {
+        alertExecutor.execute(() -> {
+            try {
+                evaluate(event.getLand(), event.getDate());
+            } catch (RuntimeException e) {
+                log.error("Could not evaluate alert rules for land {} on {}: {}", event.getLand().getId(), event.getDate(), e.getMessage(), e);
+            }
+        });
+    }
+
+    private void evaluate(Land land, LocalDate date) {
+        List<AlertRule> rules = this.rules;
+        if (rules.isEmpty()) {
+            checkOwner(rules, land, date);
+            return;
+        }
+        DayState day = day(date);
+
+        double landPoints = 0;
+        for (Contribution contribution : land.getContributions()) {
+            double points = contribution.getTotalPoints() == null ? 0 : contribution.getTotalPoints();
+            landPoints += points;
+            for (AlertRule rule : rules) {
+                if (AlertRule.CONTRIBUTION_THRESHOLD.equals(rule.getType())
+                        && matches(rule.getLandId(), land.getId()) && matches(rule.getKingdomId(), contribution.getKingdomId())
+                        && points >= rule.getThreshold()) {
+                    fireOnce(day, rule, date, land.getId(), contribution.getKingdomId(), points, String.format(
+                            "Kingdom %s (%s) reached %.2f points on land %s", contribution.getKingdomName(), contribution.getKingdomId(), points, land.getId()));
+                } else if (AlertRule.KINGDOM_THRESHOLD.equals(rule.getType()) && rule.getKingdomId().equals(contribution.getKingdomId())) {
+                    KingdomTotal total = day.kingdoms.computeIfAbsent(rule.getId(),
+                            k -> new KingdomTotal(alertRepository.getKingdomPointsByLand(date, rule.getKingdomId())));
+                    total.put(land.getId(), points);
+                    if (total.points >= rule.getThreshold()) {
+                        fireOnce(day, rule, date, land.getId(), contribution.getKingdomId(), total.points, String.format(
+                                "Kingdom %s (%s) reached %.2f points across all lands", contribution.getKingdomName(), contribution.getKingdomId(), total.points));
+                    }
+                }
+            }
+        }
+
+        for (AlertRule rule : rules) {
+            if (AlertRule.LAND_THRESHOLD.equals(rule.getType()) && matches(rule.getLandId(), land.getId()) && landPoints >= rule.getThreshold()) {
+                fireOnce(day, rule, date, land.getId(), null, landPoints, String.format("Land %s reached %.2f points", land.getId(), landPoints));
+            }
+        }
+        checkOwner(rules, land, date);
+    }
+
+    /**
+     * Send the alerts fired since the last push to all subscribers
+     */
+    @Scheduled(fixedDelayString = "${alerts.push-interval-millis:1000}")
+    public void flush() {
+        Alert alert;
+        while ((alert = pending.poll()) != null) {
+            for (SseEmitter emitter : emitters) {
+                try {
+                    emitter.send(event(alert));
+                } catch (IOException | IllegalStateException e) {
+                    // Client went away, it will be cleaned up by the completion callbacks
+                    emitters.remove(emitter);
+                }
+            }
+        }
+    }
+
+    private void checkOwner(List<AlertRule> rules, Land land, LocalDate date) {
+        if (land.getOwner() == null) {
+            return;
+        }
+        LandOwnership current = owners.get(land.getId());
+        if (current == null) {
+            owners.put(land.getId(), new LandOwnership(land.getId(), land.getOwner(), date, null));
+            return;
+        }
+        // Older days do not change who owns the land now
+        if (date.isBefore(current.getValidFrom()) || current.getOwner().equals(land.getOwner())) {
+            return;
+        }
+        String previousOwner = current.getOwner();
+        current.setOwner(land.getOwner());
+        current.setValidFrom(date);
+        for (AlertRule rule : rules) {
+            if (AlertRule.OWNER_CHANGE.equals(rule.getType()) && matches(rule.getLandId(), land.getId())) {
+                fire(rule, date, land.getId(), null, null,
+                        String.format("Land %s changed owner from %s to %s", land.getId(), previousOwner, land.getOwner()));
+            }
+        }
+    }
+
+    private DayState day(LocalDate date) {
+        DayState day = days.get(date);
+        if (day == null) {
+            day = new DayState();
+            for (Alert alert : alertRepository.getAlertsForADay(date)) {
+                day.fired.add(firedKey(alert.getRuleId(), alert.getType(), alert.getLandId(), alert.getKingdomId()));
+            }
+            days.put(date, day);
+        }
+        return day;
+    }
+
+    /**
+     * Fire a threshold alert, at most once a day for the same rule and subject
+     */
+    private void fireOnce(DayState day, AlertRule rule, LocalDate date, String landId, String kingdomId, Double value, String message) {
+        if (day.fired.add(firedKey(rule.getId(), rule.getType(), landId, kingdomId))) {
+            fire(rule, date, landId, kingdomId, value, message);
+        }
+    }
+
+    private void fire(AlertRule rule, LocalDate date, String landId, String kingdomId, Double value, String message) {
+        Alert alert = alertRepository.saveAlert(
+                new Alert(null, rule.getId(), rule.getType(), date, landId, kingdomId, value, message, LocalDateTime.now()));
+        pending.add(alert);
+        log.info("Alert {} of rule {} for {}: {}", alert.getId(), rule.getId(), date, message);
+    }
+
+    private static String firedKey(Long ruleId, String type, String landId, String kingdomId) {
+        // A kingdom total fires once whichever land takes it over the threshold
+        return AlertRule.KINGDOM_THRESHOLD.equals(type) ? ruleId + "|" + kingdomId : ruleId + "|" + landId + "|" + kingdomId;
+    }
+
+    private static boolean matches(String wanted, String actual) {
+        return wanted == null || wanted.equals(actual);
+    }
+
+    private SseEmitter.SseEventBuilder event(Alert alert) {
+        try {
+            return SseEmitter.event().id(String.valueOf(alert.getId())).name("alert")
+                    .data(objectMapper.writeValueAsString(alert), MediaType.APPLICATION_JSON);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize alert", e);
+        }
+    }
+
+    private static class DayState {
+        private final Set<String> fired = new HashSet<>();
+        private final Map<Long, KingdomTotal> kingdoms = new HashMap<>();
+    }
+
+    /**
+     * A kingdom's points on each land for a day, so a land saved again replaces its share of the total
+     */
+    private static class KingdomTotal {
+        private final Map<String, Double> lands;
+        private double points;
+
+        private KingdomTotal(Map<String, Double> lands) {
+            this.lands = lands;
+            this.points = lands.values().stream().mapToDouble(Double::doubleValue).sum();
+        }
+
+        private void put(String landId, double landPoints) {
+            Double previous = lands.put(landId, landPoints);
+            points += landPoints - (previous == null ? 0 : previous);
+        }
+    }
+}
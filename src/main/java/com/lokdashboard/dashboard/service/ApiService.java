@@ -1,5 +1,6 @@
 package com.lokdashboard.dashboard.service;
 
+import com.lokdashboard.dashboard.models.UpstreamLaneStats;
 import io.github.bucket4j.Bandwidth;
 import io.github.bucket4j.Bucket;
 import io.github.bucket4j.ConsumptionProbe;
@@ -15,11 +16,21 @@ import org.springframework.web.client.RestTemplate;
 import jakarta.annotation.PostConstruct;
 import java.net.URI;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
- * Service for making API calls with rate limiting
+ * Service for making API calls with rate limiting.
+ * <p>
+ * Every call takes a token from the global bucket. Batch calls must also take one from the batch
+ * bucket, which holds the global rate minus the tokens reserved for interactive calls, and they
+ * step aside while an interactive call is waiting for a token.
  */
 @Service
 @Slf4j
@@ -32,101 +43,186 @@ public class ApiService {
 
     @Value("${api.rate-limit.period-in-seconds:60}")
     private int periodInSeconds;
+
+    @Value("${api.rate-limit.interactive-reserved-tokens:10}")
+    private int interactiveReservedTokens;
+
+    @Value("${api.rate-limit.batch-yield-millis:50}")
+    private long batchYieldMillis;
+
     @Value("${api.retry.max-attempts:5}")
     private int maxRetryAttempts;
-    
+
     @Value("${api.retry.forbidden-wait-seconds:60}")
     private int forbiddenWaitSeconds;
-    
-    // Single global rate limiter for all API calls
+
+    // Global rate limiter shared by all API calls
     private final AtomicReference<Bucket> rateLimiter = new AtomicReference<>();
-    
+
+    // Share of the global rate batch calls may use
+    private final AtomicReference<Bucket> batchRateLimiter = new AtomicReference<>();
+
+    private final Map<UpstreamPriority, Lane> lanes = new EnumMap<>(UpstreamPriority.class);
+
     public ApiService(RestTemplate restTemplate) {
         this.restTemplate = restTemplate;
+        for (UpstreamPriority priority : UpstreamPriority.values()) {
+            lanes.put(priority, new Lane());
+        }
     }
-    
+
     @PostConstruct
     public void init() {
         // Create the rate limiter with specified tokens per period
         Bandwidth limit = Bandwidth.classic(tokensPerPeriod, Refill.intervally(tokensPerPeriod, Duration.ofSeconds(periodInSeconds)));
-        Bucket bucket = Bucket.builder().addLimit(limit).build();
-        rateLimiter.set(bucket);
-        log.info("Rate limiter initialized: {} requests per {} seconds", tokensPerPeriod, periodInSeconds);
+        rateLimiter.set(Bucket.builder().addLimit(limit).build());
+
+        int batchTokens = Math.max(1, tokensPerPeriod - interactiveReservedTokens);
+        Bandwidth batchLimit = Bandwidth.classic(batchTokens, Refill.intervally(batchTokens, Duration.ofSeconds(periodInSeconds)));
+        batchRateLimiter.set(Bucket.builder().addLimit(batchLimit).build());
+        log.info("Rate limiter initialized: {} requests per {} seconds, {} of them reserved for interactive calls",
+                tokensPerPeriod, periodInSeconds, tokensPerPeriod - batchTokens);
     }
 
     /**
-     * Make an API request with rate limiting
-     * 
+     * Make an interactive API request with rate limiting
+     *
      * @param uri The URI to request
      * @param responseType The expected response type
      * @return The response entity
      */
     public <T> ResponseEntity<T> get(URI uri, Class<T> responseType) {
-        return get(uri, responseType, 0);
+        return get(uri, responseType, UpstreamPriority.INTERACTIVE);
     }
-    
+
     /**
      * Make an API request with rate limiting and retry logic
-     * 
+     *
      * @param uri The URI to request
      * @param responseType The expected response type
-     * @param retryCount Current retry count
+     * @param priority The priority class the call is rate limited under
      * @return The response entity
      */
-    private <T> ResponseEntity<T> get(URI uri, Class<T> responseType, int retryCount) {
-        // Get the current bucket from atomic reference
-        Bucket bucket = rateLimiter.get();
-        
-        // Try to consume a token
-        ConsumptionProbe probe = bucket.tryConsumeAndReturnRemaining(1);
-        
-        if (!probe.isConsumed()) {
-            // Calculate wait time in milliseconds (from nanoseconds)
-            long waitTimeMillis = TimeUnit.NANOSECONDS.toMillis(probe.getNanosToWaitForRefill());
-            log.warn("Rate limit exceeded for {}. Waiting for {} ms before retry", uri.getHost(), waitTimeMillis);
-            
+    public <T> ResponseEntity<T> get(URI uri, Class<T> responseType, UpstreamPriority priority) {
+        int retryCount = 0;
+        while (true) {
+            long remainingTokens = acquire(uri, priority);
+
+            // We have a token, make the request
+            log.info("Making {} API request to {} (remaining tokens: {})", priority, uri, remainingTokens);
+
             try {
-                // Add a small buffer to ensure tokens are available when we retry
-                long bufferTime = Math.max(100, waitTimeMillis / 10);
-                TimeUnit.MILLISECONDS.sleep(waitTimeMillis + bufferTime);
-                
-                // Try again after waiting
-                return get(uri, responseType, retryCount);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                throw new RuntimeException("Thread interrupted while waiting for rate limit", e);
-            }
-        }
-        
-        // We have a token, make the request
-        log.info("Making API request to {} (remaining tokens: {})", uri, probe.getRemainingTokens());
-        
-        try {
-            return restTemplate.getForEntity(uri, responseType);
-        } catch (HttpClientErrorException e) {
-            // Handle 403 Forbidden specifically
-            if (e.getStatusCode() == HttpStatus.FORBIDDEN) {
+                return restTemplate.getForEntity(uri, responseType);
+            } catch (HttpClientErrorException e) {
+                // Retry 403 Forbidden, rethrow other HTTP errors
+                if (e.getStatusCode() != HttpStatus.FORBIDDEN) {
+                    throw e;
+                }
                 if (retryCount >= maxRetryAttempts) {
                     log.error("Giving up after {} retries for API call to {}", maxRetryAttempts, uri);
                     throw e;
                 }
-                
-                int waitTime = forbiddenWaitSeconds;
-                log.warn("Received 403 Forbidden from {}. Retry {}/{}. Waiting for {} seconds before retry", 
-                        uri, (retryCount + 1), maxRetryAttempts, waitTime);
-                
-                try {
-                    TimeUnit.SECONDS.sleep(waitTime);
-                    // Try again with incremented retry count
-                    return get(uri, responseType, retryCount + 1);
-                } catch (InterruptedException ie) {
-                    Thread.currentThread().interrupt();
-                    throw new RuntimeException("Thread interrupted while waiting to retry after 403", ie);
+
+                retryCount++;
+                log.warn("Received 403 Forbidden from {}. Retry {}/{}. Waiting for {} seconds before retry",
+                        uri, retryCount, maxRetryAttempts, forbiddenWaitSeconds);
+                sleep(TimeUnit.SECONDS.toMillis(forbiddenWaitSeconds), "Thread interrupted while waiting to retry after 403");
+            }
+        }
+    }
+
+    /**
+     * Queue depth and wait time of each priority class since startup
+     */
+    public List<UpstreamLaneStats> getLaneStats() {
+        List<UpstreamLaneStats> stats = new ArrayList<>();
+        lanes.forEach((priority, lane) -> {
+            long requests = lane.requests.get();
+            stats.add(new UpstreamLaneStats(
+                    priority.name(),
+                    lane.waiting.get(),
+                    lane.maxWaiting.get(),
+                    requests,
+                    requests == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(lane.totalWaitNanos.get()) / 1000.0 / requests,
+                    TimeUnit.NANOSECONDS.toMillis(lane.maxWaitNanos.get())));
+        });
+        return stats;
+    }
+
+    /**
+     * Block until the call may be made under its priority class
+     *
+     * @return the tokens left in the global bucket
+     */
+    private long acquire(URI uri, UpstreamPriority priority) {
+        Lane lane = lanes.get(priority);
+        long start = System.nanoTime();
+        lane.enter();
+        try {
+            while (true) {
+                if (priority == UpstreamPriority.BATCH) {
+                    // Let waiting interactive calls take the next tokens
+                    if (lanes.get(UpstreamPriority.INTERACTIVE).waiting.get() > 0) {
+                        sleep(batchYieldMillis, "Thread interrupted while yielding to interactive calls");
+                        continue;
+                    }
+                    ConsumptionProbe batchProbe = batchRateLimiter.get().tryConsumeAndReturnRemaining(1);
+                    if (!batchProbe.isConsumed()) {
+                        waitForRefill(uri, priority, batchProbe);
+                        continue;
+                    }
+                }
+
+                ConsumptionProbe probe = rateLimiter.get().tryConsumeAndReturnRemaining(1);
+                if (probe.isConsumed()) {
+                    return probe.getRemainingTokens();
                 }
+                if (priority == UpstreamPriority.BATCH) {
+                    // Give back the batch token, it was not used
+                    batchRateLimiter.get().addTokens(1);
+                }
+                waitForRefill(uri, priority, probe);
             }
-            
-            // For other HTTP errors, just rethrow
-            throw e;
+        } finally {
+            lane.exit(System.nanoTime() - start);
+        }
+    }
+
+    private void waitForRefill(URI uri, UpstreamPriority priority, ConsumptionProbe probe) {
+        // Calculate wait time in milliseconds (from nanoseconds)
+        long waitTimeMillis = TimeUnit.NANOSECONDS.toMillis(probe.getNanosToWaitForRefill());
+        log.warn("Rate limit exceeded for {} call to {}. Waiting for {} ms before retry", priority, uri.getHost(), waitTimeMillis);
+
+        // Add a small buffer to ensure tokens are available when we retry
+        long bufferTime = Math.max(100, waitTimeMillis / 10);
+        sleep(waitTimeMillis + bufferTime, "Thread interrupted while waiting for rate limit");
+    }
+
+    private static void sleep(long millis, String interruptedMessage) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(interruptedMessage, e);
+        }
+    }
+
+    private static class Lane {
+        private final AtomicInteger waiting = new AtomicInteger();
+        private final AtomicInteger maxWaiting = new AtomicInteger();
+        private final AtomicLong requests = new AtomicLong();
+        private final AtomicLong totalWaitNanos = new AtomicLong();
+        private final AtomicLong maxWaitNanos = new AtomicLong();
+
+        private void enter() {
+            maxWaiting.accumulateAndGet(waiting.incrementAndGet(), Math::max);
+        }
+
+        private void exit(long waitNanos) {
+            waiting.decrementAndGet();
+            requests.incrementAndGet();
+            totalWaitNanos.addAndGet(waitNanos);
+            maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
         }
     }
-} 
\ No newline at end of file
+}
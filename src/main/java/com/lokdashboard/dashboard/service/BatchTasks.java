@@ -0,0 +1,58 @@
+package com.lokdashboard.dashboard.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Batch work requested through the API, queued on the batch executor instead of running on the
+ * request thread. A key has at most one task queued or running, and the last task of each key
+ * stays around so its result can be polled.
+ */
+@Component
+@RequiredArgsConstructor
+public class BatchTasks {
+
+    private static final int HISTORY = 50;
+
+    private final ThreadPoolTaskExecutor batchJobExecutor;
+
+    // The last task of each key, the oldest finished ones dropped first
+    private final Map<String, CompletableFuture<?>> tasks = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CompletableFuture<?>> eldest) {
+            return size() > HISTORY && eldest.getValue().isDone();
+        }
+    };
+
+    /**
+     * Queue a task on the batch executor
+     *
+     * @throws IllegalStateException if a task of the key is already queued or running
+     * @throws RejectedExecutionException if the executor's queue is full
+     */
+    public synchronized <T> CompletableFuture<T> submit(String key, Supplier<T> task) {
+        CompletableFuture<?> current = tasks.get(key);
+        if (current != null && !current.isDone()) {
+            throw new IllegalStateException("A " + key + " task is already queued or running");
+        }
+        CompletableFuture<T> future = CompletableFuture.supplyAsync(task, batchJobExecutor);
+        tasks.remove(key);
+        tasks.put(key, future);
+        return future;
+    }
+
+    /**
+     * @return the last submitted task of a key, or null if there was none
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <T> CompletableFuture<T> get(String key) {
+        return (CompletableFuture<T>) tasks.get(key);
+    }
+}
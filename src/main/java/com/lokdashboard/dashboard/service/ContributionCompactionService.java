@@ -0,0 +1,57 @@
+package com.lokdashboard.dashboard.service;
+
+import com.lokdashboard.dashboard.models.CompactionReport;
+import com.lokdashboard.dashboard.repository.MaintenanceRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+
+/**
+ * One-time migration of the contribution table: removes the duplicate rows written before the
+ * table had a natural key, then creates the key so they cannot come back. Runs at startup, before
+ * requests are served, only while the key does not exist yet.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ContributionCompactionService {
+
+    private final MaintenanceRepository maintenanceRepository;
+
+    private volatile CompactionReport lastReport;
+
+    @PostConstruct
+    public void init() {
+        if (maintenanceRepository.hasContributionNaturalKey()) {
+            log.debug("Contribution natural key already in place, nothing to migrate");
+            return;
+        }
+        CompactionReport report = compact();
+        maintenanceRepository.createContributionNaturalKey();
+        log.info("Contribution natural key in place after removing {} duplicates", report.getDuplicatesRemoved());
+    }
+
+    private CompactionReport compact() {
+        long start = System.currentTimeMillis();
+        int rowsBefore = maintenanceRepository.countContributions();
+        long bytesBefore = maintenanceRepository.getTableBytes("CONTRIBUTION");
+        int removed = maintenanceRepository.deleteDuplicateContributions();
+        long bytesAfter = maintenanceRepository.getTableBytes("CONTRIBUTION");
+
+        CompactionReport report = new CompactionReport(LocalDateTime.now(), rowsBefore, removed, bytesBefore, bytesAfter, System.currentTimeMillis() - start);
+        lastReport = report;
+        log.info("Compacted contribution: removed {} of {} rows, {} -> {} bytes ({} reclaimed) in {} ms",
+                removed, rowsBefore, bytesBefore, bytesAfter, bytesBefore - bytesAfter, report.getDurationMillis());
+        return report;
+    }
+
+    /**
+     * @return the report of the migration, or null if it did not run since this instance started
+     */
+    public CompactionReport getLastReport() {
+        return lastReport;
+    }
+}
@@ -0,0 +1,173 @@
+package com.lokdashboard.dashboard.service;
+
+import com.lokdashboard.dashboard.models.MaintenanceReport;
+import com.lokdashboard.dashboard.models.StoreStats;
+import com.lokdashboard.dashboard.repository.MaintenanceRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the database file healthy: refreshes optimizer statistics, compacts the store within a
+ * time budget and writes an online backup, keeping the most recent ones. The file otherwise only
+ * grows, as visitor updates and deleted rows leave partly filled chunks behind.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DatabaseMaintenanceService {
+
+    private static final String BACKUP_PREFIX = "backup-";
+    private static final String BACKUP_SUFFIX = ".zip";
+    private static final DateTimeFormatter BACKUP_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final String TASK = "maintenance";
+
+    private final MaintenanceRepository maintenanceRepository;
+    private final BatchTasks batchTasks;
+
+    @Value("${storage.maintenance.enabled:true}")
+    private boolean enabled;
+
+    @Value("${storage.maintenance.compact-millis:30000}")
+    private long compactMillis;
+
+    @Value("${storage.maintenance.target-fill-rate:90}")
+    private int targetFillRate;
+
+    @Value("${storage.maintenance.compact-write-bytes:16777216}")
+    private int compactWriteBytes;
+
+    @Value("${storage.maintenance.backup.enabled:true}")
+    private boolean backupEnabled;
+
+    @Value("${storage.maintenance.backup.directory:./data/backup}")
+    private String backupDirectory;
+
+    @Value("${storage.maintenance.backup.keep:7}")
+    private int backupsKept;
+
+    private volatile MaintenanceReport lastReport;
+
+    @Scheduled(cron = "${storage.maintenance.cron:0 0 5 * * ?}", zone = "UTC")
+    public void scheduleMaintenance() {
+        if (enabled) {
+            run();
+        }
+    }
+
+    public synchronized MaintenanceReport run() {
+        long start = System.currentTimeMillis();
+        StoreStats before = maintenanceRepository.getStoreStats();
+        long analyzeMillis = 0;
+        long compactionMillis = 0;
+        Path backup = null;
+        long backupBytes = 0;
+        String error = null;
+        try {
+            long step = System.currentTimeMillis();
+            maintenanceRepository.analyze();
+            analyzeMillis = System.currentTimeMillis() - step;
+
+            step = System.currentTimeMillis();
+            if (before != null) {
+                compact();
+            }
+            compactionMillis = System.currentTimeMillis() - step;
+
+            if (backupEnabled) {
+                backup = backup();
+                backupBytes = Files.size(backup);
+                pruneBackups();
+            }
+        } catch (IOException | RuntimeException e) {
+            error = e.getMessage();
+            log.error("Database maintenance failed: {}", e.getMessage(), e);
+        }
+        StoreStats after = maintenanceRepository.getStoreStats();
+
+        MaintenanceReport report = new MaintenanceReport(LocalDateTime.now(), analyzeMillis, compactionMillis, before, after,
+                backup == null ? null : backup.toString(), backupBytes, error, System.currentTimeMillis() - start);
+        lastReport = report;
+        log.info("Database maintenance in {} ms: analyze {} ms, compaction {} ms, store {} -> {}, backup {} ({} bytes)",
+                report.getDurationMillis(), analyzeMillis, compactionMillis, before, after, report.getBackupFile(), backupBytes);
+        return report;
+    }
+
+    /**
+     * Queue a run on the batch executor, its report then available from {@link #getLastReport()}
+     *
+     * @throws IllegalStateException if a run is already queued or running
+     * @throws RejectedExecutionException if the executor's queue is full
+     */
+    public void submit() {
+        batchTasks.submit(TASK, this::run);
+    }
+
+    /**
+     * @return whether a run submitted through {@link #submit()} is still queued or running
+     */
+    public boolean isSubmittedRunPending() {
+        CompletableFuture<MaintenanceReport> submitted = batchTasks.get(TASK);
+        return submitted != null && !submitted.isDone();
+    }
+
+    public MaintenanceReport getLastReport() {
+        return lastReport;
+    }
+
+    public StoreStats getStoreStats() {
+        return maintenanceRepository.getStoreStats();
+    }
+
+    /**
+     * Rewrite the least filled chunks step by step until the target fill rate or the time budget is reached
+     */
+    private void compact() {
+        long deadline = System.currentTimeMillis() + compactMillis;
+        int steps = 0;
+        while (System.currentTimeMillis() < deadline && maintenanceRepository.compactStep(targetFillRate, compactWriteBytes)) {
+            steps++;
+        }
+        log.info("Compacted the database store in {} steps", steps);
+    }
+
+    private Path backup() throws IOException {
+        Path directory = Paths.get(backupDirectory).toAbsolutePath();
+        Files.createDirectories(directory);
+        Path file = directory.resolve(BACKUP_PREFIX + LocalDateTime.now().format(BACKUP_TIME) + BACKUP_SUFFIX);
+        maintenanceRepository.backupTo(file.toString());
+        return file;
+    }
+
+    /**
+     * Delete all but the newest backups; their names sort by the time they were taken
+     */
+    private void pruneBackups() throws IOException {
+        List<Path> backups;
+        try (Stream<Path> files = Files.list(Paths.get(backupDirectory))) {
+            backups = files.filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(BACKUP_PREFIX) && name.endsWith(BACKUP_SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+        for (int i = 0; i < backups.size() - backupsKept; i++) {
+            Files.delete(backups.get(i));
+            log.info("Deleted old backup {}", backups.get(i));
+        }
+    }
+}
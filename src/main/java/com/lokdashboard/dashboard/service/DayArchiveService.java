@@ -0,0 +1,119 @@
+package com.lokdashboard.dashboard.service;
+
+import com.lokdashboard.dashboard.repository.CrawlLeaseRepository;
+import com.lokdashboard.dashboard.repository.FailedLandRepository;
+import com.lokdashboard.dashboard.repository.LandRepository;
+import com.lokdashboard.dashboard.storage.DaySegment;
+import com.lokdashboard.dashboard.storage.DaySegmentWriter;
+import com.lokdashboard.dashboard.storage.SegmentStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Moves days older than the archive horizon out of H2 into segment files. A day's rows are only
+ * deleted once its segment has been written, reopened and found to hold the same number of rows.
+ * Days whose failed lands are still being retried wait, since a segment cannot take lands later.
+ * Archiving runs on the batch executor, after the crawls and replays queued before it.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DayArchiveService {
+
+    private static final String TASK = "archive";
+
+    private final LandRepository landRepository;
+    private final CrawlLeaseRepository crawlLeaseRepository;
+    private final FailedLandRepository failedLandRepository;
+    private final SegmentStore segmentStore;
+    private final BatchTasks batchTasks;
+
+    @Value("${storage.archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${storage.archive.horizon-days:30}")
+    private int horizonDays;
+
+    @Scheduled(cron = "${storage.archive.cron:0 0 3 * * ?}", zone = "UTC")
+    public void scheduleArchive() {
+        if (enabled) {
+            try {
+                submitArchive();
+            } catch (IllegalStateException | RejectedExecutionException e) {
+                log.info("Not archiving closed days now: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Queue an archive of the closed days on the batch executor
+     *
+     * @throws IllegalStateException if one is already queued or running
+     * @throws RejectedExecutionException if the executor's queue is full
+     */
+    public void submitArchive() {
+        batchTasks.submit(TASK, this::archiveClosedDays);
+    }
+
+    /**
+     * @return the last submitted archive, or null if there was none
+     */
+    public CompletableFuture<List<LocalDate>> getSubmittedArchive() {
+        return batchTasks.get(TASK);
+    }
+
+    /**
+     * Archive every day before the horizon that is still in the database
+     *
+     * @return the days archived by this run
+     */
+    public synchronized List<LocalDate> archiveClosedDays() {
+        LocalDate horizon = LocalDate.now(ZoneOffset.UTC).minusDays(horizonDays);
+        List<LocalDate> days = landRepository.getStoredDaysBefore(horizon).stream()
+                .filter(day -> !segmentStore.isArchived(day))
+                .filter(day -> crawlLeaseRepository.countUnfinishedShards(day) == 0)
+                .filter(day -> failedLandRepository.countPendingFailedLandsForADay(day) == 0)
+                .toList();
+        for (LocalDate day : days) {
+            try {
+                archiveDay(day);
+            } catch (IOException | RuntimeException e) {
+                log.error("Failed to archive {}, its rows stay in the database", day, e);
+            }
+        }
+        return days;
+    }
+
+    private void archiveDay(LocalDate date) throws IOException {
+        long start = System.currentTimeMillis();
+        int expectedRows = landRepository.countContributionsForADay(date);
+        DaySegmentWriter writer = new DaySegmentWriter(date);
+        landRepository.forEachContributionOfADay(date, writer);
+        if (writer.getRowCount() != expectedRows) {
+            throw new IllegalStateException("Read " + writer.getRowCount() + " rows for " + date + " but expected " + expectedRows);
+        }
+        writer.write(segmentStore.pathFor(date));
+
+        DaySegment written = DaySegment.open(segmentStore.pathFor(date));
+        if (written.getRowCount() != expectedRows || !date.equals(written.getDate())) {
+            throw new IllegalStateException("Segment for " + date + " does not match the database");
+        }
+
+        segmentStore.registerArchivedDay(date, expectedRows);
+        int deleted = landRepository.deleteContributionsForADay(date);
+        log.info("Archived {} rows of {} into {} ({} bytes) in {} ms, deleted {} rows",
+                expectedRows, date, segmentStore.pathFor(date), Files.size(segmentStore.pathFor(date)),
+                System.currentTimeMillis() - start, deleted);
+    }
+}
@@ -0,0 +1,190 @@
+package com.lokdashboard.dashboard.service;
+
+import com.lokdashboard.dashboard.models.*;
+import com.lokdashboard.dashboard.storage.DayColumns;
+import com.lokdashboard.dashboard.storage.TopN;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Immutable columnar copy of one day's contributions, over the same {@link DayColumns} a segment
+ * file is written from, so the read paths are plain loops over arrays. Totals and leaderboard
+ * orders are computed once when the snapshot is built.
+ */
+public final class DaySnapshot {
+
+    private static final int LEADERBOARD_SIZE = 10;
+
+    private final LocalDate date;
+
+    // Dictionaries
+    private final String[] landIds;
+    private final String[] landOwners;
+    private final String[] kingdomIds;
+    private final String[] kingdomNames;
+    private final Map<String, Integer> landIndex;
+    private final Map<String, Integer> kingdomIndex;
+
+    // One entry per contribution row, sorted by land
+    private final int[] rowLand;
+    private final int[] rowKingdom;
+    private final int[] rowContinent;
+    private final double[] rowPoints;
+
+    // landRowStart[i]..landRowStart[i + 1] are the rows of land i
+    private final int[] landRowStart;
+    // kingdomRows[kingdomRowStart[k]..kingdomRowStart[k + 1]] are the rows of kingdom k
+    private final int[] kingdomRowStart;
+    private final int[] kingdomRows;
+
+    private final double[] landTotals;
+    private final double[] kingdomTotals;
+    private final int[] kingdomsByPoints;
+    private final int[] landsByPoints;
+
+    DaySnapshot(DayColumns columns) {
+        this.date = columns.getDate();
+        this.landIds = columns.getLandIds();
+        this.landOwners = columns.getLandOwners();
+        this.kingdomIds = columns.getKingdomIds();
+        this.kingdomNames = columns.getKingdomNames();
+        this.rowLand = columns.getRowLand();
+        this.rowKingdom = columns.getRowKingdom();
+        this.rowContinent = columns.getRowContinent();
+        this.rowPoints = columns.getRowPoints();
+        this.landRowStart = columns.getLandRowStart();
+        this.landIndex = indexOf(landIds);
+        this.kingdomIndex = indexOf(kingdomIds);
+
+        int rows = rowLand.length;
+        landTotals = new double[landIds.length];
+        kingdomTotals = new double[kingdomIds.length];
+        int[] kingdomCounts = new int[kingdomIds.length];
+        for (int i = 0; i < rows; i++) {
+            landTotals[rowLand[i]] += rowPoints[i];
+            kingdomTotals[rowKingdom[i]] += rowPoints[i];
+            kingdomCounts[rowKingdom[i]]++;
+        }
+
+        kingdomRowStart = new int[kingdomIds.length + 1];
+        for (int k = 0; k < kingdomIds.length; k++) {
+            kingdomRowStart[k + 1] = kingdomRowStart[k] + kingdomCounts[k];
+        }
+        kingdomRows = new int[rows];
+        int[] next = Arrays.copyOf(kingdomRowStart, kingdomIds.length);
+        for (int i = 0; i < rows; i++) {
+            kingdomRows[next[rowKingdom[i]]++] = i;
+        }
+
+        kingdomsByPoints = TopN.indexesOf(kingdomTotals, LEADERBOARD_SIZE);
+        landsByPoints = TopN.indexesOf(landTotals, LEADERBOARD_SIZE);
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public int getRowCount() {
+        return rowLand.length;
+    }
+
+    public boolean hasLand(String landId) {
+        return landIndex.containsKey(landId);
+    }
+
+    public ContributionLeaderboard getContributionLeaderboard() {
+        List<TotalContribution> contributions = new ArrayList<>(kingdomsByPoints.length);
+        for (int k : kingdomsByPoints) {
+            TotalContribution contribution = new TotalContribution();
+            contribution.setKingdomId(kingdomIds[k]);
+            contribution.setKingdomName(kingdomNames[k]);
+            contribution.setTotalPoints(BigDecimal.valueOf(kingdomTotals[k]));
+            contributions.add(contribution);
+        }
+        ContributionLeaderboard result = new ContributionLeaderboard();
+        result.setContributions(contributions);
+        return result;
+    }
+
+    public LandLeaderboard getLandLeaderboard() {
+        List<LandTotalPoints> points = new ArrayList<>(landsByPoints.length);
+        for (int l : landsByPoints) {
+            LandTotalPoints landTotalPoints = new LandTotalPoints();
+            landTotalPoints.setLandId(landIds[l]);
+            landTotalPoints.setOwner(landOwners[l]);
+            landTotalPoints.setTotalPoints(BigDecimal.valueOf(landTotals[l]));
+            points.add(landTotalPoints);
+        }
+        LandLeaderboard result = new LandLeaderboard();
+        result.setPoints(points);
+        return result;
+    }
+
+    public List<ContinentTotal> getContinentTotals() {
+        Map<Integer, double[]> totals = new TreeMap<>();
+        for (int i = 0; i < rowContinent.length; i++) {
+            totals.computeIfAbsent(rowContinent[i], c -> new double[1])[0] += rowPoints[i];
+        }
+        List<ContinentTotal> result = new ArrayList<>(totals.size());
+        totals.forEach((continent, total) -> result.add(new ContinentTotal(continent, BigDecimal.valueOf(total[0]))));
+        return result;
+    }
+
+    /**
+     * Contributions of one land, or null if the land is not in this snapshot
+     */
+    public Land getLand(String landId) {
+        Integer l = landIndex.get(landId);
+        if (l == null) {
+            return null;
+        }
+        List<Contribution> contributions = new ArrayList<>(landRowStart[l + 1] - landRowStart[l]);
+        for (int i = landRowStart[l]; i < landRowStart[l + 1]; i++) {
+            Contribution contribution = new Contribution();
+            contribution.setKingdomId(kingdomIds[rowKingdom[i]]);
+            contribution.setKingdomName(kingdomNames[rowKingdom[i]]);
+            contribution.setTotalPoints(rowPoints[i]);
+            contribution.setContinent(rowContinent[i]);
+            contribution.setDate(date);
+            contributions.add(contribution);
+        }
+        Land land = new Land();
+        land.setId(landId);
+        land.setOwner(landOwners[l]);
+        land.setContributions(contributions);
+        return land;
+    }
+
+    /**
+     * Contributions of one kingdom across all lands, or null if the kingdom is not in this snapshot
+     */
+    public KingdomContributions getKingdom(String kingdomId) {
+        Integer k = kingdomIndex.get(kingdomId);
+        if (k == null) {
+            return null;
+        }
+        List<Contribution> contributions = new ArrayList<>(kingdomRowStart[k + 1] - kingdomRowStart[k]);
+        for (int j = kingdomRowStart[k]; j < kingdomRowStart[k + 1]; j++) {
+            int i = kingdomRows[j];
+            Contribution contribution = new Contribution();
+            contribution.setKingdomId(kingdomId);
+            contribution.setKingdomName(kingdomNames[k]);
+            contribution.setTotalPoints(rowPoints[i]);
+            contribution.setContinent(rowContinent[i]);
+            contribution.setLandId(landIds[rowLand[i]]);
+            contribution.setDate(date);
+            contributions.add(contribution);
+        }
+        return new KingdomContributions(kingdomId, kingdomNames[k], date, BigDecimal.valueOf(kingdomTotals[k]), contributions);
+    }
+
+    private static Map<String, Integer> indexOf(String[] values) {
+        Map<String, Integer> index = new HashMap<>(values.length * 2);
+        for (int i = 0; i < values.length; i++) {
+            index.put(values[i], i);
+        }
+        return index;
+    }
+}
@@ -0,0 +1,160 @@
+package com.lokdashboard.dashboard.service;
+
+import com.lokdashboard.dashboard.events.DayIngestionCompletedEvent;
+import com.lokdashboard.dashboard.events.LandSavedEvent;
+import com.lokdashboard.dashboard.models.BatchJobStatus;
+import com.lokdashboard.dashboard.models.DayVersion;
+import com.lokdashboard.dashboard.repository.BatchJobRepository;
+import com.lokdashboard.dashboard.repository.LandRepository;
+import com.lokdashboard.dashboard.storage.DayColumns;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Keeps columnar snapshots of completed days in memory, evicting the least recently used day
+ * once more than snapshot.max-days are held. H2 stays the source of truth: snapshots are only
+ * built for days whose crawl completed and are dropped once a save of a land of that day commits.
+ * <p>
+ * Each day has at most one build at a time, run on the snapshot executor; callers missing a
+ * snapshot read H2 meanwhile. A build is not kept if its day was saved or published while it ran.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class DaySnapshotService {
+
+    private final LandRepository landRepository;
+    private final BatchJobRepository batchJobRepository;
+    private final ThreadPoolTaskExecutor snapshotExecutor;
+
+    @Value("${snapshot.enabled:true}")
+    private boolean enabled;
+
+    @Value("${snapshot.max-days:7}")
+    private int maxDays;
+
+    // Built and building snapshots, guarded by itself
+    private final Map<LocalDate, CompletableFuture<DaySnapshot>> snapshots = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<LocalDate, CompletableFuture<DaySnapshot>> eldest) {
+            return size() > maxDays;
+        }
+    };
+
+    /**
+     * Get the snapshot of a completed day. On first use its build is started in the background and
+     * empty is returned, as it is while the build runs and for days that are not complete.
+     */
+    public Optional<DaySnapshot> getSnapshot(LocalDate date) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        CompletableFuture<DaySnapshot> snapshot;
+        synchronized (snapshots) {
+            snapshot = snapshots.get(date);
+        }
+        if (snapshot == null) {
+            if (isDayComplete(date)) {
+                startBuild(date, false);
+            }
+            return Optional.empty();
+        }
+        return snapshot.isDone() && !snapshot.isCompletedExceptionally() ? Optional.ofNullable(snapshot.join()) : Optional.empty();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onDayIngestionCompleted(DayIngestionCompletedEvent event) {
+        if (enabled) {
+            startBuild(event.getDate(), true);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onLandSaved(LandSavedEvent event) {
+        if (event.isStaged()) {
+            // Not visible to readers until the day is published
+            return;
+        }
+        synchronized (snapshots) {
+            if (snapshots.remove(event.getDate()) != null) {
+                log.info("Dropped snapshot for {} after land {} was saved", event.getDate(), event.getLand().getId());
+            }
+        }
+    }
+
+    private boolean isDayComplete(LocalDate date) {
+        BatchJobStatus status = batchJobRepository.getLatestBatchJobStatusForDate(date);
+        return status != null && "SUCCESS".equals(status.getStatus());
+    }
+
+    /**
+     * Queue a build of a day unless one is already there, or replacing it
+     */
+    private void startBuild(LocalDate date, boolean replace) {
+        CompletableFuture<DaySnapshot> future = new CompletableFuture<>();
+        synchronized (snapshots) {
+            if (!replace && snapshots.containsKey(date)) {
+                return;
+            }
+            snapshots.put(date, future);
+        }
+        try {
+            snapshotExecutor.execute(() -> build(date, future));
+        } catch (TaskRejectedException e) {
+            discard(date, future);
+            log.debug("Snapshot builds are queued up, not building {} now", date);
+        }
+    }
+
+    private void build(LocalDate date, CompletableFuture<DaySnapshot> future) {
+        try {
+            long start = System.currentTimeMillis();
+            Integer version = version(date);
+            DayColumns.Builder columns = new DayColumns.Builder(date);
+            landRepository.forEachContributionOfADay(date, columns);
+            DaySnapshot snapshot = new DaySnapshot(columns.build());
+
+            // Published while it was read, possibly by another instance: the snapshot may mix versions
+            if (!Objects.equals(version, version(date))) {
+                discard(date, future);
+                future.complete(null);
+                log.info("Discarded snapshot for {}, the day was published while it was built", date);
+                return;
+            }
+            future.complete(snapshot);
+            synchronized (snapshots) {
+                if (snapshots.get(date) != future) {
+                    // Dropped or replaced by a save while it was built
+                    log.info("Built snapshot for {} is already outdated, not keeping it", date);
+                    return;
+                }
+            }
+            log.info("Built snapshot for {} with {} rows in {} ms", date, snapshot.getRowCount(), System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            discard(date, future);
+            future.completeExceptionally(e);
+            log.error("Could not build snapshot for {}: {}", date, e.getMessage(), e);
+        }
+    }
+
+    private void discard(LocalDate date, CompletableFuture<DaySnapshot> future) {
+        synchronized (snapshots) {
+            snapshots.remove(date, future);
+        }
+    }
+
+    private Integer version(LocalDate date) {
+        DayVersion version = landRepository.getDayVersion(date);
+        return version == null ? null : version.getVersion();
+    }
+}
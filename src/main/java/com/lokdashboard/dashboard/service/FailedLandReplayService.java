@@ -0,0 +1,233 @@
+package com.lokdashboard.dashboard.service;
+
+import com.lokdashboard.dashboard.events.DayIngestionCompletedEvent;
+import com.lokdashboard.dashboard.models.FailedLand;
+import com.lokdashboard.dashboard.models.Land;
+import com.lokdashboard.dashboard.models.ReplayReport;
+import com.lokdashboard.dashboard.repository.FailedLandRepository;
+import com.lokdashboard.dashboard.repository.LandRepository;
+import com.lokdashboard.dashboard.storage.SegmentStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Replays the lands a crawl failed to fetch. Failures are retried with exponential backoff until
+ * the maximum number of attempts, after which they are only replayed on request. A replayed land
+ * is staged like a crawled one; days that were already published are published again so the
+ * land shows up without waiting for another crawl. Lands of archived days cannot be added any
+ * more and are kept as UNRECOVERABLE. Replays requested through the API run on the batch executor.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FailedLandReplayService {
+
+    private static final int MAX_ERROR_MESSAGE_LENGTH = 1000;
+    private static final String DUE = "replay/due";
+
+    private final FailedLandRepository failedLandRepository;
+    private final LandRepository landRepository;
+    private final Utils utils;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SegmentStore segmentStore;
+    private final BatchTasks batchTasks;
+
+    @Value("${crawl.replay.enabled:true}")
+    private boolean enabled;
+
+    @Value("${crawl.replay.batch-size:50}")
+    private int batchSize;
+
+    @Value("${crawl.replay.max-attempts:6}")
+    private int maxAttempts;
+
+    @Value("${crawl.replay.backoff-base-seconds:300}")
+    private long backoffBaseSeconds;
+
+    @Value("${crawl.replay.backoff-max-seconds:21600}")
+    private long backoffMaxSeconds;
+
+    /**
+     * Record a failed fetch of a land and schedule its next attempt
+     *
+     * @return the failed land as saved
+     */
+    public FailedLand recordFailure(String landId, LocalDate date, Exception e) {
+        LocalDateTime now = LocalDateTime.now();
+        FailedLand failedLand = failedLandRepository.getFailedLand(date, landId);
+        if (failedLand == null) {
+            failedLand = new FailedLand();
+            failedLand.setDate(date);
+            failedLand.setLandId(landId);
+            failedLand.setFirstFailedAt(now);
+        }
+        int attempts = failedLand.getAttempts() + 1;
+        failedLand.setAttempts(attempts);
+        failedLand.setErrorClass(e.getClass().getName());
+        failedLand.setErrorMessage(truncate(e.getMessage()));
+        failedLand.setLastFailedAt(now);
+        if (attempts >= maxAttempts) {
+            failedLand.setStatus(FailedLandRepository.EXHAUSTED);
+            failedLand.setNextAttemptAt(null);
+        } else {
+            failedLand.setStatus(FailedLandRepository.PENDING);
+            failedLand.setNextAttemptAt(now.plusSeconds(backoffSeconds(attempts)));
+        }
+        failedLandRepository.saveFailedLand(failedLand);
+        return failedLand;
+    }
+
+    @Scheduled(fixedDelayString = "${crawl.replay.poll-millis:300000}", initialDelayString = "${crawl.replay.poll-millis:300000}")
+    public void scheduleReplay() {
+        if (enabled) {
+            // On the batch executor, so a long replay of a day does not hold up the scheduler
+            try {
+                submitReplayDue();
+            } catch (IllegalStateException | RejectedExecutionException e) {
+                log.info("Not replaying due failed lands now: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Replay the failed lands whose next attempt is due
+     */
+    public synchronized ReplayReport replayDue() {
+        return replay(failedLandRepository.getDueFailedLands(LocalDateTime.now(), batchSize));
+    }
+
+    /**
+     * Replay every failed land of a day now, including exhausted ones
+     */
+    public synchronized ReplayReport replayDay(LocalDate date) {
+        return replay(failedLandRepository.getFailedLandsForADay(date));
+    }
+
+    /**
+     * Queue a replay of the due failed lands on the batch executor
+     *
+     * @throws IllegalStateException if one is already queued or running
+     * @throws RejectedExecutionException if the executor's queue is full
+     */
+    public void submitReplayDue() {
+        batchTasks.submit(DUE, this::replayDue);
+    }
+
+    /**
+     * Queue a replay of every failed land of a day on the batch executor
+     *
+     * @throws IllegalStateException if one is already queued or running for the day
+     * @throws RejectedExecutionException if the executor's queue is full
+     */
+    public void submitReplayDay(LocalDate date) {
+        batchTasks.submit(dayKey(date), () -> replayDay(date));
+    }
+
+    /**
+     * @return the last submitted replay of the due failed lands, or null if there was none
+     */
+    public CompletableFuture<ReplayReport> getReplayDue() {
+        return batchTasks.get(DUE);
+    }
+
+    /**
+     * @return the last submitted replay of a day, or null if there was none
+     */
+    public CompletableFuture<ReplayReport> getReplayDay(LocalDate date) {
+        return batchTasks.get(dayKey(date));
+    }
+
+    private static String dayKey(LocalDate date) {
+        return "replay/" + date;
+    }
+
+    private ReplayReport replay(List<FailedLand> failedLands) {
+        if (failedLands.isEmpty()) {
+            return new ReplayReport(0, 0, 0, 0, 0, 0);
+        }
+        long start = System.currentTimeMillis();
+        int recovered = 0;
+        int exhausted = 0;
+        int unrecoverable = 0;
+        Set<LocalDate> stagedDays = new TreeSet<>();
+        for (FailedLand failedLand : failedLands) {
+            String landId = failedLand.getLandId();
+            LocalDate date = failedLand.getDate();
+            if (segmentStore.isArchived(date)) {
+                if (landRepository.isLandInArchivedDay(landId, date)) {
+                    failedLandRepository.deleteFailedLand(date, landId);
+                    recovered++;
+                } else {
+                    markUnrecoverable(failedLand);
+                    unrecoverable++;
+                }
+                continue;
+            }
+            try {
+                // A later crawl may have stored it already
+                if (!landRepository.isLandStaged(landId, date) && !landRepository.checkIfDataExistsForDate(landId, date)) {
+                    Land land = utils.getContributions(landId, date, date, UpstreamPriority.BATCH);
+                    landRepository.stageLandData(land, date);
+                    stagedDays.add(date);
+                }
+                failedLandRepository.deleteFailedLand(date, landId);
+                recovered++;
+            } catch (Exception e) {
+                log.warn("Replay of land {} for {} failed: {}", landId, date, e.getMessage());
+                if (FailedLandRepository.EXHAUSTED.equals(recordFailure(landId, date, e).getStatus())) {
+                    exhausted++;
+                }
+            }
+        }
+
+        for (LocalDate date : stagedDays) {
+            // Days still being crawled are published by their crawl
+            if (landRepository.getDayVersion(date) != null) {
+                Integer version = landRepository.publishDay(date);
+                if (version != null) {
+                    eventPublisher.publishEvent(new DayIngestionCompletedEvent(date, version));
+                }
+            }
+        }
+
+        int failed = failedLands.size() - recovered - unrecoverable;
+        ReplayReport report = new ReplayReport(failedLands.size(), recovered, failed, exhausted, unrecoverable, System.currentTimeMillis() - start);
+        log.info("Replayed {} failed lands: {} recovered, {} failed again, {} exhausted, {} unrecoverable in {} ms",
+                report.getAttempted(), recovered, failed, exhausted, unrecoverable, report.getDurationMillis());
+        return report;
+    }
+
+    private void markUnrecoverable(FailedLand failedLand) {
+        if (!FailedLandRepository.UNRECOVERABLE.equals(failedLand.getStatus())) {
+            log.warn("Land {} is missing from archived day {}, it can no longer be replayed", failedLand.getLandId(), failedLand.getDate());
+            failedLand.setStatus(FailedLandRepository.UNRECOVERABLE);
+            failedLand.setNextAttemptAt(null);
+            failedLandRepository.saveFailedLand(failedLand);
+        }
+    }
+
+    private long backoffSeconds(int attempts) {
+        // base, 2 x base, 4 x base, ... up to the maximum
+        long multiplier = 1L << Math.min(attempts - 1, 30);
+        return Math.min(backoffBaseSeconds * multiplier, backoffMaxSeconds);
+    }
+
+    private static String truncate(String message) {
+        if (message == null || message.length() <= MAX_ERROR_MESSAGE_LENGTH) {
+            return message;
+        }
+        return message.substring(0, MAX_ERROR_MESSAGE_LENGTH);
+    }
+}
@@ -0,0 +1,276 @@
+package com.lokdashboard.dashboard.service;
+
+import com.lokdashboard.dashboard.models.KingdomSearchResult;
+import com.lokdashboard.dashboard.storage.TopN;
+
+import java.math.BigDecimal;
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory index of kingdom names for autocomplete. Names are normalized (lower case, accents
+ * and punctuation removed) and indexed twice: every word start in a sorted map for prefix
+ * lookups, and every trigram in posting lists for substring lookups. Postings are never removed
+ * when a kingdom is renamed; candidates are always checked against the current name.
+ */
+class KingdomNameIndex {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final int EXACT = 3;
+    private static final int NAME_PREFIX = 2;
+    private static final int WORD_PREFIX = 1;
+    private static final int SUBSTRING = 0;
+
+    private final int maxCandidates;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> kingdomIndex = new HashMap<>();
+    private final List<Entry> entries = new ArrayList<>();
+    private final NavigableMap<String, IntList> wordStarts = new TreeMap<>();
+    private final Map<String, IntList> trigrams = new HashMap<>();
+
+    KingdomNameIndex(int maxCandidates) {
+        this.maxCandidates = maxCandidates;
+    }
+
+    /**
+     * Add a kingdom or update its name; totals are only replaced by those of a later or the same day
+     */
+    void put(String kingdomId, String kingdomName, LocalDate date, BigDecimal totalPoints) {
+        if (kingdomId == null || kingdomName == null) {
+            return;
+        }
+        String normalized = normalize(kingdomName);
+        lock.writeLock().lock();
+        try {
+            Integer k = kingdomIndex.get(kingdomId);
+            Entry entry;
+            if (k == null) {
+                k = entries.size();
+                entry = new Entry(kingdomId);
+                entries.add(entry);
+                kingdomIndex.put(kingdomId, k);
+            } else {
+                entry = entries.get(k);
+            }
+            if (!normalized.equals(entry.normalizedName)) {
+                entry.normalizedName = normalized;
+                indexName(k, normalized);
+            }
+            entry.name = kingdomName;
+            if (date != null && (entry.latestDate == null || !date.isBefore(entry.latestDate))) {
+                entry.latestDate = date;
+                entry.latestTotalPoints = totalPoints;
+                entry.latestTotal = totalPoints == null ? 0 : totalPoints.doubleValue();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Add a kingdom not indexed yet; the name of a known kingdom is left to the next full update
+     */
+    void putIfAbsent(String kingdomId, String kingdomName) {
+        if (kingdomId == null || kingdomName == null) {
+            return;
+        }
+        lock.readLock().lock();
+        try {
+            if (kingdomIndex.containsKey(kingdomId)) {
+                return;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        String normalized = normalize(kingdomName);
+        lock.writeLock().lock();
+        try {
+            // Another thread may have added it between the two locks
+            if (!kingdomIndex.containsKey(kingdomId)) {
+                int k = entries.size();
+                Entry entry = new Entry(kingdomId);
+                entry.name = kingdomName;
+                entry.normalizedName = normalized;
+                entries.add(entry);
+                kingdomIndex.put(kingdomId, k);
+                indexName(k, normalized);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Kingdoms whose name contains the query, best matches first: the exact name, then names and
+     * words starting with the query, then other substrings, each by latest total
+     */
+    List<KingdomSearchResult> search(String query, int limit) {
+        String q = normalize(query);
+        if (q.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Map<Integer, Integer> scores = new HashMap<>();
+            for (IntList kingdoms : wordStarts.subMap(q, true, q + Character.MAX_VALUE, true).values()) {
+                if (scores.size() >= maxCandidates) {
+                    break;
+                }
+                for (int i = 0; i < kingdoms.size && scores.size() < maxCandidates; i++) {
+                    int score = score(entries.get(kingdoms.values[i]).normalizedName, q);
+                    // Postings of a name the kingdom no longer has
+                    if (score > SUBSTRING) {
+                        scores.merge(kingdoms.values[i], score, Math::max);
+                    }
+                }
+            }
+            if (q.length() >= 3 && scores.size() < maxCandidates) {
+                for (int k : substringCandidates(q)) {
+                    if (scores.size() >= maxCandidates) {
+                        break;
+                    }
+                    // Trigrams can match out of order, check the name really contains the query
+                    if (entries.get(k).normalizedName.contains(q)) {
+                        scores.putIfAbsent(k, score(entries.get(k).normalizedName, q));
+                    }
+                }
+            }
+
+            Comparator<Map.Entry<Integer, Integer>> ranking = Comparator.<Map.Entry<Integer, Integer>>comparingInt(Map.Entry::getValue)
+                    .thenComparingDouble(e -> entries.get(e.getKey()).latestTotal)
+                    .thenComparing(e -> entries.get(e.getKey()).normalizedName, Comparator.reverseOrder());
+            return TopN.of(scores.entrySet(), limit, ranking).stream()
+                    .map(best -> entries.get(best.getKey()).toResult())
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static String normalize(String name) {
+        String decomposed = MARKS.matcher(Normalizer.normalize(name, Normalizer.Form.NFKD)).replaceAll("");
+        return SEPARATORS.matcher(decomposed.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    private void indexName(int k, String normalized) {
+        wordStarts.computeIfAbsent(normalized, w -> new IntList()).add(k);
+        for (int i = 1; i < normalized.length(); i++) {
+            if (normalized.charAt(i - 1) == ' ') {
+                wordStarts.computeIfAbsent(normalized.substring(i), w -> new IntList()).add(k);
+            }
+        }
+        for (int i = 0; i + 3 <= normalized.length(); i++) {
+            trigrams.computeIfAbsent(normalized.substring(i, i + 3), t -> new IntList()).add(k);
+        }
+    }
+
+    /**
+     * Kingdoms holding every trigram of the query, from intersecting the shortest posting lists first
+     */
+    private int[] substringCandidates(String q) {
+        List<IntList> postings = new ArrayList<>();
+        for (int i = 0; i + 3 <= q.length(); i++) {
+            IntList posting = trigrams.get(q.substring(i, i + 3));
+            if (posting == null) {
+                return new int[0];
+            }
+            postings.add(posting);
+        }
+        postings.sort(Comparator.comparingInt(p -> p.size));
+        int[] result = Arrays.copyOf(postings.get(0).values, postings.get(0).size);
+        int n = result.length;
+        for (int p = 1; p < postings.size() && n > 0; p++) {
+            n = intersect(result, n, postings.get(p));
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    /**
+     * Keep the values of a that are also in b, in place
+     *
+     * @return the number of values kept
+     */
+    private static int intersect(int[] a, int length, IntList b) {
+        int i = 0, j = 0, n = 0;
+        while (i < length && j < b.size) {
+            if (a[i] < b.values[j]) {
+                i++;
+            } else if (a[i] > b.values[j]) {
+                j++;
+            } else {
+                a[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return n;
+    }
+
+    private static int score(String name, String q) {
+        if (name.equals(q)) {
+            return EXACT;
+        }
+        if (name.startsWith(q)) {
+            return NAME_PREFIX;
+        }
+        if (name.contains(" " + q)) {
+            return WORD_PREFIX;
+        }
+        return SUBSTRING;
+    }
+
+    private static class Entry {
+        private final String kingdomId;
+        private String name;
+        private String normalizedName;
+        private LocalDate latestDate;
+        private BigDecimal latestTotalPoints;
+        private double latestTotal;
+
+        private Entry(String kingdomId) {
+            this.kingdomId = kingdomId;
+        }
+
+        private KingdomSearchResult toResult() {
+            return new KingdomSearchResult(kingdomId, name, latestDate, latestTotalPoints);
+        }
+    }
+
+    /**
+     * Sorted set of kingdom indexes. Kingdoms are indexed in increasing order, so adding is an
+     * append except when an older kingdom is renamed.
+     */
+    private static class IntList {
+        private int[] values = new int[2];
+        private int size;
+
+        private void add(int value) {
+            int position = size > 0 && values[size - 1] < value ? size : Arrays.binarySearch(values, 0, size, value);
+            if (position >= 0 && position < size) {
+                return;
+            }
+            int insertAt = position >= 0 ? position : -position - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            System.arraycopy(values, insertAt, values, insertAt + 1, size - insertAt);
+            values[insertAt] = value;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.lokdashboard.dashboard.service;
+
+import com.lokdashboard.dashboard.events.DayIngestionCompletedEvent;
+import com.lokdashboard.dashboard.events.LandSavedEvent;
+import com.lokdashboard.dashboard.models.Contribution;
+import com.lokdashboard.dashboard.models.KingdomSearchResult;
+import com.lokdashboard.dashboard.models.TotalContribution;
+import com.lokdashboard.dashboard.repository.AggregateRepository;
+import com.lokdashboard.dashboard.repository.LandRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Kingdom name autocomplete. The index is loaded from the latest daily totals and the names in
+ * the contribution table once the application is up, then kept current from ingestion events.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class KingdomSearchService {
+
+    private final AggregateRepository aggregateRepository;
+    private final LandRepository landRepository;
+
+    @Value("${kingdom.search.max-candidates:5000}")
+    private int maxCandidates;
+
+    @Value("${kingdom.search.max-results:50}")
+    private int maxResults;
+
+    private KingdomNameIndex index;
+
+    @PostConstruct
+    public void init() {
+        index = new KingdomNameIndex(maxCandidates);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildIndex() {
+        long start = System.currentTimeMillis();
+        aggregateRepository.forEachLatestKingdomTotal(rs -> index.put(
+                rs.getString("kingdom_id"),
+                rs.getString("kingdom_name"),
+                rs.getDate("total_date").toLocalDate(),
+                rs.getBigDecimal("total_points")));
+        // Kingdoms of days not aggregated yet, without totals
+        landRepository.forEachKingdomName(rs -> index.put(rs.getString("kingdom_id"), rs.getString("kingdom_name"), null, null));
+        log.info("Indexed {} kingdom names in {} ms", index.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Makes kingdoms seen for the first time searchable during a crawl. Almost every kingdom of a
+     * land is already indexed, so this only takes the write lock for new ones; renames and totals
+     * wait for the end of the day's ingestion.
+     */
+    @EventListener
+    public void onLandSaved(LandSavedEvent event) {
+        for (Contribution contribution : event.getLand().getContributions()) {
+            index.putIfAbsent(contribution.getKingdomId(), contribution.getKingdomName());
+        }
+    }
+
+    @EventListener
+    public void onDayIngestionCompleted(DayIngestionCompletedEvent event) {
+        for (TotalContribution kingdom : landRepository.getKingdomTotalsForADay(event.getDate())) {
+            index.put(kingdom.getKingdomId(), kingdom.getKingdomName(), event.getDate(), kingdom.getTotalPoints());
+        }
+    }
+
+    public List<KingdomSearchResult> search(String query, int limit) {
+        return index.search(query, Math.max(1, Math.min(limit, maxResults)));
+    }
+}
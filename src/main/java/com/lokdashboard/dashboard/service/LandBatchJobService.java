@@ -1,132 +1,572 @@
 package com.lokdashboard.dashboard.service;
 
-import com.lokdashboard.dashboard.models.BadLand;
+import com.lokdashboard.dashboard.events.DayIngestionCompletedEvent;
+import com.lokdashboard.dashboard.models.BatchJob;
 import com.lokdashboard.dashboard.models.BatchJobStatus;
+import com.lokdashboard.dashboard.models.BatchProgress;
+import com.lokdashboard.dashboard.models.CrawlShard;
 import com.lokdashboard.dashboard.models.Land;
 import com.lokdashboard.dashboard.repository.BatchJobRepository;
+import com.lokdashboard.dashboard.repository.CrawlLeaseRepository;
+import com.lokdashboard.dashboard.repository.FailedLandRepository;
 import com.lokdashboard.dashboard.repository.LandRepository;
+import com.lokdashboard.dashboard.storage.SegmentStore;
 import jakarta.annotation.PostConstruct;
-import lombok.AllArgsConstructor;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 
+import java.net.InetAddress;
+import java.net.UnknownHostException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 @Service
-@AllArgsConstructor
+@RequiredArgsConstructor
 @Slf4j
 public class LandBatchJobService {
 
     private final LandRepository landRepository;
     private final BatchJobRepository batchJobRepository;
+    private final CrawlLeaseRepository crawlLeaseRepository;
+    private final FailedLandRepository failedLandRepository;
+    private final FailedLandReplayService failedLandReplayService;
     private final Utils utils;
-    private final AtomicBoolean batchJobRunning = new AtomicBoolean(false);
+    private final LiveUpdateService liveUpdateService;
+    private final DaySnapshotService daySnapshotService;
+    private final SegmentStore segmentStore;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ThreadPoolTaskExecutor batchJobExecutor;
+    private final AtomicBoolean stopRequested = new AtomicBoolean(false);
+
+    // Days with a queued or running job in this instance, and the job that holds each
+    private final Map<LocalDate, String> activeDates = new ConcurrentHashMap<>();
+    private final Map<String, CrawlJob> jobs = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CrawlJob> eldest) {
+            return size() > jobHistory && eldest.getValue().isFinished();
+        }
+    };
+
+    @Value("${batch.startup.enabled:true}")
+    private boolean startupCheckEnabled;
+
+    @Value("${batch.startup.delay-seconds:30}")
+    private int startupDelaySeconds;
+
+    @Value("${crawl.shard-size:1000}")
+    private int shardSize;
+
+    @Value("${crawl.lease-seconds:300}")
+    private int leaseSeconds;
+
+    @Value("${crawl.idle-poll-seconds:30}")
+    private int idlePollSeconds;
+
+    @Value("${crawl.instance-id:#{null}}")
+    private String instanceId;
+
+    @Value("${batch.jobs.history:50}")
+    private int jobHistory;
+
+    @Value("${batch.jobs.max-days:31}")
+    private int maxJobDays;
 
-    /**
-     * Run when the application starts up to check for and run today's batch job if needed
-     */
     @PostConstruct
     public void init() {
-        log.info("Initializing batch job checker at application startup");
-        new Thread(this::checkAndRetryBatchJob).start();
+        if (instanceId == null || instanceId.isBlank()) {
+            String host;
+            try {
+                host = InetAddress.getLocalHost().getHostName();
+            } catch (UnknownHostException e) {
+                host = "unknown";
+            }
+            instanceId = host + "-" + UUID.randomUUID().toString().substring(0, 8);
+        }
+        log.info("Crawl instance id: {}", instanceId);
+    }
+
+    /**
+     * Once the application is ready to serve, wait for the configured delay, warm up and then
+     * check for and run yesterday's batch job if needed
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!startupCheckEnabled) {
+            log.info("Batch job check at startup is disabled");
+            return;
+        }
+        log.info("Scheduling batch job checker to run in {} seconds", startupDelaySeconds);
+        CompletableFuture.delayedExecutor(startupDelaySeconds, TimeUnit.SECONDS, batchJobExecutor)
+                .execute(() -> {
+                    warmup();
+                    checkAndRetryBatchJob();
+                });
     }
-    
+
+    /**
+     * Ask a running crawl to stop after the land it is working on, before the executor shuts down
+     */
+    @EventListener(ContextClosedEvent.class)
+    public void onContextClosed() {
+        stopRequested.set(true);
+    }
+
     /**
      * Run daily at 6:30 UTC to collect land contributions for all lands
      */
     @Scheduled(cron = "0 30 6 * * ?", zone = "UTC")
-    public void runDailyBatchJob() {
+    public void scheduleDailyBatchJob() {
+        runDailyBatchJob("SCHEDULED");
+    }
+
+    /**
+     * Check at midnight and every 8 hours if today's batch job was successful, retry if not
+     */
+    @Scheduled(cron = "0 0 1/8 * * ?", zone = "UTC")
+    public void scheduleCheckAndRetryBatchJob() {
+        checkAndRetryBatchJob();
+    }
+
+    /**
+     * Submit a crawl of yesterday unless one is already queued or running in this instance
+     *
+     * @return the submitted job, or null if yesterday already has one
+     */
+    public BatchJob runDailyBatchJob(String trigger) {
+        LocalDate yesterday = LocalDate.now(java.time.Clock.systemUTC()).minusDays(1);
+        try {
+            return submitJob(yesterday, yesterday, trigger, false);
+        } catch (IllegalStateException | RejectedExecutionException e) {
+            log.info("Not submitting a batch job for {}: {}", yesterday, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Queue a crawl of each day from startDate to endDate on the batch executor and return at once.
+     * A day whose shards are all done is not fetched again, its crawl only publishes what is left
+     * staged; pass recrawl to reset its shards and fetch every land again, replacing what is stored.
+     * Archived days cannot be re-crawled.
+     *
+     * @throws IllegalArgumentException if the range is empty, too long, not over yet in UTC, or a re-crawl covers an archived day
+     * @throws IllegalStateException if one of the days already has a queued or running job
+     * @throws RejectedExecutionException if the executor's queue is full
+     */
+    public BatchJob submitJob(LocalDate startDate, LocalDate endDate, String trigger, boolean recrawl) {
+        if (endDate.isBefore(startDate)) {
+            throw new IllegalArgumentException("End date " + endDate + " is before start date " + startDate);
+        }
+        if (startDate.plusDays(maxJobDays).isBefore(endDate.plusDays(1))) {
+            throw new IllegalArgumentException("A job can crawl at most " + maxJobDays + " days");
+        }
+        if (!endDate.isBefore(LocalDate.now(java.time.Clock.systemUTC()))) {
+            throw new IllegalArgumentException("Cannot crawl " + endDate + ", the day is not over yet in UTC");
+        }
+        if (recrawl) {
+            List<LocalDate> archived = segmentStore.getArchivedDays(startDate, endDate);
+            if (!archived.isEmpty()) {
+                throw new IllegalArgumentException("Cannot re-crawl archived days " + archived);
+            }
+        }
+
+        CrawlJob job = new CrawlJob(UUID.randomUUID().toString(), trigger, startDate, endDate, recrawl);
+        holdDates(startDate, endDate, job.id);
+        synchronized (jobs) {
+            jobs.put(job.id, job);
+        }
+        try {
+            batchJobExecutor.execute(() -> runJob(job));
+        } catch (RejectedExecutionException e) {
+            releaseDates(job);
+            synchronized (jobs) {
+                jobs.remove(job.id);
+            }
+            throw e;
+        }
+        log.info("Submitted {} batch job {} for {} to {}", trigger, job.id, startDate, endDate);
+        return job.toModel();
+    }
+
+    public BatchJob getJob(String id) {
+        synchronized (jobs) {
+            CrawlJob job = jobs.get(id);
+            return job == null ? null : job.toModel();
+        }
+    }
+
+    /**
+     * Jobs of this instance, the most recently submitted first
+     */
+    public List<BatchJob> getRecentJobs() {
+        List<BatchJob> result = new ArrayList<>();
+        synchronized (jobs) {
+            jobs.values().forEach(job -> result.add(0, job.toModel()));
+        }
+        return result;
+    }
+
+    /**
+     * Cancel a job. A queued job is dropped; a running one stops after the land it is working on,
+     * handing its shard back with a checkpoint, and its day is recorded as CANCELLED.
+     *
+     * @return the job, or null if there is no such job
+     */
+    public BatchJob cancelJob(String id) {
+        CrawlJob job;
+        synchronized (jobs) {
+            job = jobs.get(id);
+        }
+        if (job == null) {
+            return null;
+        }
+        if (job.cancel()) {
+            releaseDates(job);
+        }
+        log.info("Cancel requested for batch job {}, now {}", id, job.state);
+        return job.toModel();
+    }
+
+    private void runJob(CrawlJob job) {
+        if (!job.start()) {
+            // Cancelled while it was queued
+            return;
+        }
+        List<String> outcomes = new ArrayList<>();
+        boolean failed = false;
+        try {
+            for (LocalDate date = job.startDate; !date.isAfter(job.endDate) && !isStopping(job); date = date.plusDays(1)) {
+                job.beginDay(date);
+                String outcome = crawl(date, job);
+                activeDates.remove(date, job.id);
+                job.daysDone++;
+                failed |= "FAILED".equals(outcome);
+                outcomes.add(date + " " + outcome);
+            }
+        } catch (RuntimeException e) {
+            failed = true;
+            outcomes.add("Error: " + e.getMessage());
+            log.error("Batch job {} failed: {}", job.id, e.getMessage(), e);
+        } finally {
+            releaseDates(job);
+            String state = job.cancelRequested.get() ? "CANCELLED" : stopRequested.get() ? "INTERRUPTED" : failed ? "FAILED" : "SUCCEEDED";
+            job.finish(state, String.join(", ", outcomes));
+            log.info("Batch job {} finished as {}: {}", job.id, state, job.message);
+        }
+    }
+
+    private void releaseDates(CrawlJob job) {
+        releaseDates(job.startDate, job.endDate, job.id);
+    }
+
+    /**
+     * Hold each day from startDate to endDate for a job that writes their staging area, so no
+     * other job of this instance is submitted for them until they are released
+     *
+     * @throws IllegalStateException if one of the days is already held, in which case none is
+     */
+    public void holdDates(LocalDate startDate, LocalDate endDate, String holder) {
+        for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
+            String current = activeDates.putIfAbsent(date, holder);
+            if (current != null) {
+                releaseDates(startDate, date.minusDays(1), holder);
+                throw new IllegalStateException(date + " already has an active job " + current);
+            }
+        }
+    }
+
+    /**
+     * Release the days from startDate to endDate that are still held by the given holder
+     */
+    public void releaseDates(LocalDate startDate, LocalDate endDate, String holder) {
+        for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
+            activeDates.remove(date, holder);
+        }
+    }
+
+    private boolean isStopping(CrawlJob job) {
+        return stopRequested.get() || job.cancelRequested.get();
+    }
+
+    /**
+     * Run yesterday's batch job again if it has not completed successfully
+     */
+    public void checkAndRetryBatchJob() {
+        log.info("Checking if today's batch job needs to be retried");
         LocalDate yesterday = LocalDate.now(java.time.Clock.systemUTC()).minusDays(1);
-        log.info("Starting daily batch job at for date {}", yesterday);
+
+        BatchJobStatus latestStatus = batchJobRepository.getLatestBatchJobStatusForDate(yesterday);
+
+        // If there's no status for today yet or the last run failed or was interrupted, run the batch job
+        if (latestStatus == null || "FAILED".equals(latestStatus.getStatus()) || "INTERRUPTED".equals(latestStatus.getStatus())) {
+            log.info("No successful batch job found for today, retrying for date: {}...", yesterday);
+            runDailyBatchJob("RETRY");
+        } else if ("CANCELLED".equals(latestStatus.getStatus())) {
+            // Someone stopped it on purpose, leave it to them to submit it again
+            log.info("Today's batch job was cancelled, not retrying it");
+        } else {
+            log.info("Today's batch job was already successful, no need to retry");
+        }
+    }
+
+    /**
+     * Crawl a day's lands shard by shard. Shards are claimed through leases in the database, so
+     * several instances can crawl the same day without fetching a land twice. Once no shard is
+     * claimable the instance waits for the remaining leases to finish or lapse, picking up shards
+     * abandoned by instances that died.
+     *
+     * @return the day's outcome: SUCCESS, FAILED, CANCELLED, INTERRUPTED or PUBLISHED_ELSEWHERE
+     */
+    private String crawl(LocalDate date, CrawlJob job) {
+        log.info("Starting batch job {} for date {} as {}", job.id, date, instanceId);
         // List of land IDs to process
         int start_land_id = 132768;
         int end_land_id = 165535;
         try {
-            int successCount = 0;
-            int totalCount = 0;
             List<String> bad_lands = batchJobRepository.getAllBadLandIds();
             log.info("Fetch the list of bad lands from the database, total: {}", bad_lands.size());
-            for (Integer landId = start_land_id; landId <= end_land_id; landId++) {
-                // Skip bad lands
-                if (bad_lands.contains(landId.toString())) {
-                    log.info("Skipping bad land: {}", landId);
+            int expectedCount = end_land_id - start_land_id + 1 - bad_lands.size();
+            job.expected = expectedCount;
+            liveUpdateService.startTracking(date);
+            crawlLeaseRepository.createShards(date, start_land_id, end_land_id, shardSize);
+            if (job.recrawl) {
+                log.info("Reset {} shards of {} to crawl it again", crawlLeaseRepository.resetShards(date), date);
+            }
+
+            while (!isStopping(job)) {
+                CrawlShard shard = crawlLeaseRepository.claimShard(date, instanceId, nextLeaseExpiry());
+                if (shard != null) {
+                    crawlShard(shard, bad_lands, expectedCount, job);
                     continue;
                 }
-                
-                totalCount++;
-                
-                try {
-                    checkLandDataAndSave(landId.toString(), yesterday);
-                    
-                    successCount++;
-                    log.info("Processed land ID: {}, total processed count now : {}", landId, successCount);
-                } catch (Exception e) {
-                    log.error("Error processing land {}: {}", landId, e.getMessage(), e);
+                if (crawlLeaseRepository.countUnfinishedShards(date) == 0) {
+                    break;
                 }
+                // Other instances hold the remaining shards, wait for them to finish or for a lease to lapse
+                TimeUnit.SECONDS.sleep(idlePollSeconds);
+            }
+
+            if (isStopping(job)) {
+                String state = job.cancelRequested.get() ? "CANCELLED" : "INTERRUPTED";
+                batchJobRepository.saveBatchJobStatus(new BatchJobStatus(
+                    date,
+                    LocalDateTime.now(),
+                    state,
+                    String.format("%s, %s processed %d/%d lands", "CANCELLED".equals(state) ? "Cancelled" : "Stopped at shutdown",
+                            instanceId, job.success, job.total)
+                ));
+                liveUpdateService.publishProgress(new BatchProgress(
+                    date, state, job.success, job.total - job.success, expectedCount, null, null));
+                log.info("Batch job for {} stopped: {}", date, state);
+                return state;
+            }
+
+            // Swap the staged day in for readers, unless another instance finishing at the same time already did
+            Integer version = landRepository.publishDay(date);
+            if (version == null) {
+                log.info("Nothing staged for {}, it was published by another instance", date);
+                return "PUBLISHED_ELSEWHERE";
             }
-            
+
             // Save job status
             batchJobRepository.saveBatchJobStatus(new BatchJobStatus(
-                yesterday,
-                LocalDateTime.now(), 
-                "SUCCESS", 
-                String.format("Processed %d/%d lands successfully", successCount, totalCount)
+                date,
+                LocalDateTime.now(),
+                "SUCCESS",
+                String.format("All shards done, %s processed %d/%d lands successfully, published version %d, %d failed lands queued for replay",
+                        instanceId, job.success, job.total, version, failedLandRepository.countFailedLandsForADay(date))
             ));
-            
-            log.info("Completed daily batch job. Processed {}/{} lands", successCount, totalCount);
+            eventPublisher.publishEvent(new DayIngestionCompletedEvent(date, version));
+
+            liveUpdateService.publishProgress(new BatchProgress(
+                date, "SUCCESS", job.success, job.total - job.success, job.total, null, null));
+            log.info("Completed daily batch job. Processed {}/{} lands", job.success, job.total);
+            return "SUCCESS";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Batch job for {} interrupted", date);
+            return "INTERRUPTED";
         } catch (Exception e) {
             log.error("Error in daily batch job: {}", e.getMessage(), e);
-            
+
             // Save job status
             batchJobRepository.saveBatchJobStatus(new BatchJobStatus(
-                yesterday,
-                LocalDateTime.now(), 
-                "FAILED", 
+                date,
+                LocalDateTime.now(),
+                "FAILED",
                 "Error: " + e.getMessage()
             ));
+            liveUpdateService.publishProgress(new BatchProgress(
+                date, "FAILED", job.success, job.total - job.success, job.total, null, null));
+            return "FAILED";
+        }
+    }
+
+    private void crawlShard(CrawlShard shard, List<String> bad_lands, int expectedCount, CrawlJob job) {
+        LocalDate date = shard.getJobDate();
+        int firstLandId = shard.getLastLandId() == null ? shard.getShardStart() : shard.getLastLandId() + 1;
+        log.info("Claimed shard {}-{} for {}, starting at land {}", shard.getShardStart(), shard.getShardEnd(), date, firstLandId);
+
+        for (Integer landId = firstLandId; landId <= shard.getShardEnd(); landId++) {
+            if (isStopping(job)) {
+                // Hand the shard back with its checkpoint so another instance can continue right away
+                crawlLeaseRepository.releaseShard(date, shard.getShardStart(), instanceId, landId - 1);
+                log.info("Released shard {}-{} on stop after land {}", shard.getShardStart(), shard.getShardEnd(), landId - 1);
+                return;
+            }
+
+            // Skip bad lands
+            if (!bad_lands.contains(landId.toString())) {
+                job.total++;
+
+                try {
+                    checkLandDataAndSave(landId.toString(), date, shard.isRefetch());
+
+                    job.success++;
+                    log.info("Processed land ID: {}, total processed count now : {}", landId, job.success);
+                } catch (Exception e) {
+                    // Dead-letter the land, the replay worker fetches it again later
+                    log.error("Error processing land {}: {}", landId, e.getMessage(), e);
+                    failedLandReplayService.recordFailure(landId.toString(), date, e);
+                }
+                liveUpdateService.publishProgress(new BatchProgress(
+                    date, "RUNNING", job.success, job.total - job.success, expectedCount, landId.toString(), null));
+            } else {
+                log.info("Skipping bad land: {}", landId);
+            }
+
+            if (!crawlLeaseRepository.renewLease(date, shard.getShardStart(), instanceId, nextLeaseExpiry(), landId)) {
+                log.warn("Lost the lease on shard {}-{} for {}, leaving it to its new owner", shard.getShardStart(), shard.getShardEnd(), date);
+                return;
+            }
         }
+        crawlLeaseRepository.completeShard(date, shard.getShardStart(), instanceId);
+    }
+
+    private LocalDateTime nextLeaseExpiry() {
+        return LocalDateTime.now().plusSeconds(leaseSeconds);
     }
-    
+
     /**
-     * Check at midnight and every 8 hours if today's batch job was successful, retry if not
-     * Also runs once at application startup via @PostConstruct
+     * Prime the database cache, the day snapshots and the live leaderboard before the crawl starts writing
      */
-    @Scheduled(cron = "0 0 1/8 * * ?", zone = "UTC")
-    public void checkAndRetryBatchJob() {
-        // Ensure only one instance can execute at a time
-        if (!batchJobRunning.compareAndSet(false, true)) {
-            log.info("Another batch job check is already in progress, skipping this execution");
-            return;
-        }
-        
+    private void warmup() {
+        LocalDate yesterday = LocalDate.now(java.time.Clock.systemUTC()).minusDays(1);
+        long start = System.currentTimeMillis();
         try {
-            log.info("Checking if today's batch job needs to be retried");
-            LocalDate yesterday = LocalDate.now(java.time.Clock.systemUTC()).minusDays(1);
+            landRepository.getLeaderboardForADay(yesterday);
+            landRepository.getLandLeaderboardForADay(yesterday);
+            daySnapshotService.getSnapshot(yesterday);
+            daySnapshotService.getSnapshot(yesterday.minusDays(1));
+            liveUpdateService.startTracking(yesterday);
+            log.info("Warmup for {} completed in {} ms", yesterday, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.warn("Warmup failed, continuing with batch job check: {}", e.getMessage());
+        }
+    }
 
-            BatchJobStatus latestStatus = batchJobRepository.getLatestBatchJobStatusForDate(yesterday);
+    /**
+     * Stage a land unless it is already staged, or published for the day and not being re-crawled
+     */
+    private void checkLandDataAndSave(String landId, LocalDate date, boolean refetch) {
+        if(!landRepository.isLandStaged(landId, date) && (refetch || !landRepository.checkIfDataExistsForDate(landId, date))) {
+            Land land = utils.getContributions(landId, date, date, UpstreamPriority.BATCH);
+            landRepository.stageLandData(land, date);
+        }
+    }
 
-            // If there's no status for today yet or the last status is FAILED, run the batch job
-            if (latestStatus == null || "FAILED".equals(latestStatus.getStatus())) {
-                log.info("No successful batch job found for today, retrying for date: {}...", yesterday);
-                runDailyBatchJob();
-            } else {
-                log.info("Today's batch job was already successful, no need to retry");
+    /**
+     * A submitted job and its progress. Only the worker thread writes the counters; state changes
+     * are synchronized so a cancel cannot race the job starting.
+     */
+    private static class CrawlJob {
+        private final String id;
+        private final String trigger;
+        private final LocalDate startDate;
+        private final LocalDate endDate;
+        private final boolean recrawl;
+        private final LocalDateTime submittedAt = LocalDateTime.now();
+        private final AtomicBoolean cancelRequested = new AtomicBoolean();
+        private volatile String state = "QUEUED";
+        private volatile LocalDate currentDate;
+        private volatile int daysDone;
+        private volatile int success;
+        private volatile int total;
+        private volatile int expected;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+        private volatile String message;
+
+        private CrawlJob(String id, String trigger, LocalDate startDate, LocalDate endDate, boolean recrawl) {
+            this.id = id;
+            this.trigger = trigger;
+            this.startDate = startDate;
+            this.endDate = endDate;
+            this.recrawl = recrawl;
+        }
+
+        private synchronized boolean start() {
+            if (!"QUEUED".equals(state)) {
+                return false;
             }
-        } finally {
-            // Reset the flag to allow future executions
-            batchJobRunning.set(false);
+            state = "RUNNING";
+            startedAt = LocalDateTime.now();
+            return true;
+        }
+
+        /**
+         * @return true if the job was still queued and is now finished
+         */
+        private synchronized boolean cancel() {
+            if (isFinished()) {
+                return false;
+            }
+            cancelRequested.set(true);
+            if ("QUEUED".equals(state)) {
+                finish("CANCELLED", "Cancelled before it started");
+                return true;
+            }
+            return false;
+        }
+
+        private void beginDay(LocalDate date) {
+            currentDate = date;
+            success = 0;
+            total = 0;
+            expected = 0;
+        }
+
+        private synchronized void finish(String state, String message) {
+            this.state = state;
+            this.message = message;
+            finishedAt = LocalDateTime.now();
+        }
+
+        private boolean isFinished() {
+            return finishedAt != null;
         }
-    }
 
-    private void checkLandDataAndSave(String landId, LocalDate date) {
-        if(!landRepository.checkIfDataExistsForDate(landId, date)) {
-            Land land = utils.getContributions(landId, date, date);
-            landRepository.saveLandData(land, date);
+        private BatchJob toModel() {
+            return new BatchJob(id, trigger, startDate, endDate, recrawl, state, currentDate, daysDone,
+                    (int) (endDate.toEpochDay() - startDate.toEpochDay()) + 1, success, total - success, expected,
+                    cancelRequested.get(), submittedAt, startedAt, finishedAt, message);
         }
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,187 @@
+package com.lokdashboard.dashboard.service;
+
+import com.lokdashboard.dashboard.models.Contribution;
+import com.lokdashboard.dashboard.models.Land;
+import com.lokdashboard.dashboard.repository.LandRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Fetches missing land data from upstream off the request thread. Concurrent requests for the
+ * same land and date share a single upstream call.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class LandFetchService {
+
+    private final LandRepository landRepository;
+    private final Utils utils;
+    private final DaySnapshotService daySnapshotService;
+    private final ThreadPoolTaskExecutor landFetchExecutor;
+    private final ThreadPoolTaskExecutor landBatchExecutor;
+
+    @Value("${land.batch.max-fetches:10}")
+    private int maxBatchFetches;
+
+    private final Map<String, CompletableFuture<Land>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Get a land's contributions for a day, fetching them from upstream if they are not stored yet.
+     * The returned future completes on a fetch thread once the data is stored.
+     *
+     * @throws TaskRejectedException if too many fetches are queued
+     */
+    public CompletableFuture<Land> getLand(String landId, LocalDate date) {
+        Land fromSnapshot = daySnapshotService.getSnapshot(date).map(snapshot -> snapshot.getLand(landId)).orElse(null);
+        if (fromSnapshot != null) {
+            return CompletableFuture.completedFuture(fromSnapshot);
+        }
+        if (landRepository.checkIfDataExistsForDate(landId, date)) {
+            return CompletableFuture.completedFuture(landRepository.getStoredContributionForADay(date, landId));
+        }
+        return fetch(landId, date);
+    }
+
+    /**
+     * Fetch a land's day on the fetch executor, or join the fetch already running for it
+     *
+     * @throws TaskRejectedException if too many fetches are queued
+     */
+    private CompletableFuture<Land> fetch(String landId, LocalDate date) {
+        String key = landId + "/" + date;
+        CompletableFuture<Land> future = new CompletableFuture<>();
+        CompletableFuture<Land> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            return existing;
+        }
+
+        try {
+            landFetchExecutor.execute(() -> {
+                try {
+                    future.complete(fetchAndSave(landId, date));
+                } catch (Exception e) {
+                    log.error("Error fetching land {} on {}: {}", landId, date, e.getMessage());
+                    future.completeExceptionally(e);
+                } finally {
+                    inFlight.remove(key, future);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            inFlight.remove(key, future);
+            throw e;
+        }
+        return future;
+    }
+
+    /**
+     * Get several lands' contributions from startDate to endDate. The lookup is resolved on the
+     * batch executor: what is stored, and which days are, is read once for all lands, and missing
+     * days are fetched like {@link #getLand} does, sharing its executor and in-flight calls. At most
+     * land.batch.max-fetches are queued per lookup; lands needing more fail with a
+     * {@link TaskRejectedException}, as they do when the fetch queue is full, and are found stored
+     * by a later lookup. The futures are in the order of the given ids.
+     *
+     * @throws TaskRejectedException if too many lookups are queued
+     */
+    public Map<String, CompletableFuture<Land>> getLands(Collection<String> landIds, LocalDate startDate, LocalDate endDate) {
+        Map<String, CompletableFuture<Land>> lands = new LinkedHashMap<>();
+        for (String landId : landIds) {
+            lands.put(landId, new CompletableFuture<>());
+        }
+        landBatchExecutor.execute(() -> {
+            try {
+                resolve(lands, startDate, endDate);
+            } catch (RuntimeException e) {
+                log.error("Error looking up lands from {} to {}: {}", startDate, endDate, e.getMessage());
+                lands.values().forEach(land -> land.completeExceptionally(e));
+            }
+        });
+        return lands;
+    }
+
+    private void resolve(Map<String, CompletableFuture<Land>> lands, LocalDate startDate, LocalDate endDate) {
+        Map<String, Land> stored = landRepository.getStoredContributions(lands.keySet(), startDate, endDate);
+        Map<String, Set<LocalDate>> storedDays = landRepository.getStoredDays(lands.keySet(), startDate, endDate);
+        int fetchesLeft = maxBatchFetches;
+        for (Map.Entry<String, CompletableFuture<Land>> entry : lands.entrySet()) {
+            String landId = entry.getKey();
+            Set<LocalDate> days = storedDays.getOrDefault(landId, Set.of());
+            List<CompletableFuture<Land>> fetches = new ArrayList<>();
+            for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
+                if (days.contains(date)) {
+                    continue;
+                }
+                if (fetchesLeft-- > 0) {
+                    fetches.add(fetchOrFailure(landId, date));
+                } else {
+                    fetches.add(CompletableFuture.failedFuture(new TaskRejectedException("Fetch limit of the lookup reached")));
+                }
+            }
+            CompletableFuture<Land> land = entry.getValue();
+            CompletableFuture.allOf(fetches.toArray(CompletableFuture[]::new))
+                    .thenApply(done -> merge(landId, stored.get(landId), fetches))
+                    .whenComplete((merged, e) -> {
+                        if (e == null) {
+                            land.complete(merged);
+                        } else {
+                            land.completeExceptionally(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+                        }
+                    });
+        }
+    }
+
+    private CompletableFuture<Land> fetchOrFailure(String landId, LocalDate date) {
+        try {
+            return fetch(landId, date);
+        } catch (TaskRejectedException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static Land merge(String landId, Land stored, List<CompletableFuture<Land>> fetched) {
+        Land land = new Land();
+        land.setId(landId);
+        List<Contribution> contributions = new ArrayList<>();
+        if (stored != null) {
+            land.setOwner(stored.getOwner());
+            contributions.addAll(stored.getContributions());
+        }
+        for (CompletableFuture<Land> day : fetched) {
+            Land fetchedDay = day.join();
+            if (land.getOwner() == null) {
+                land.setOwner(fetchedDay.getOwner());
+            }
+            contributions.addAll(fetchedDay.getContributions());
+        }
+        contributions.sort(Comparator.comparing(Contribution::getDate, Comparator.nullsLast(Comparator.naturalOrder())));
+        land.setContributions(contributions);
+        return land;
+    }
+
+    private Land fetchAndSave(String landId, LocalDate date) {
+        // Another request may have stored it while this one was queued
+        if (!landRepository.checkIfDataExistsForDate(landId, date)) {
+            log.info("Cache miss for land {} on {}, fetching from upstream", landId, date);
+            Land land = utils.getContributions(landId, date, date);
+            landRepository.saveLandData(land, date);
+        }
+        return landRepository.getStoredContributionForADay(date, landId);
+    }
+}
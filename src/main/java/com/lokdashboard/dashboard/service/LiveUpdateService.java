@@ -0,0 +1,206 @@
+package com.lokdashboard.dashboard.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lokdashboard.dashboard.events.LandSavedEvent;
+import com.lokdashboard.dashboard.models.*;
+import com.lokdashboard.dashboard.repository.LandRepository;
+import com.lokdashboard.dashboard.storage.TopN;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pushes crawl progress and leaderboard changes for the date being ingested to SSE subscribers.
+ * Totals are kept in memory and updated as each land is saved, and pushes are coalesced so that
+ * one leaderboard computation is shared by every subscriber.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class LiveUpdateService {
+
+    private static final int LEADERBOARD_SIZE = 10;
+
+    private final LandRepository landRepository;
+    private final ObjectMapper objectMapper;
+
+    @Value("${live.emitter-timeout-millis:1800000}")
+    private long emitterTimeoutMillis;
+
+    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+
+    // Running totals for the date currently being ingested, guarded by "this"
+    private LocalDate liveDate;
+    private final Map<String, KingdomTotal> kingdomTotals = new HashMap<>();
+    private final Map<String, LandTotal> landTotals = new HashMap<>();
+
+    private volatile BatchProgress latestProgress;
+    private volatile String latestLeaderboardJson;
+    private final AtomicBoolean progressDirty = new AtomicBoolean(false);
+    private final AtomicBoolean leaderboardDirty = new AtomicBoolean(false);
+
+    /**
+     * Register a new subscriber and send it the latest known state
+     */
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMillis);
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(() -> emitters.remove(emitter));
+        emitter.onError(e -> emitters.remove(emitter));
+        emitters.add(emitter);
+
+        try {
+            if (latestProgress != null) {
+                emitter.send(SseEmitter.event().name("progress").data(toJson(latestProgress), MediaType.APPLICATION_JSON));
+            }
+            if (latestLeaderboardJson != null) {
+                emitter.send(SseEmitter.event().name("leaderboard").data(latestLeaderboardJson, MediaType.APPLICATION_JSON));
+            }
+        } catch (IOException e) {
+            emitters.remove(emitter);
+        }
+        log.debug("New live update subscriber, total subscribers: {}", emitters.size());
+        return emitter;
+    }
+
+    /**
+     * Start tracking the given date, seeding the running totals from what is already stored. Each
+     * land keeps its points per kingdom, so a land saved again, or re-staged by a recrawl, replaces
+     * its share of the totals instead of adding to it.
+     */
+    public synchronized void startTracking(LocalDate date) {
+        if (date.equals(liveDate)) {
+            return;
+        }
+        liveDate = date;
+        kingdomTotals.clear();
+        landTotals.clear();
+        landRepository.forEachContributionOfADay(date, (landId, owner, kingdomId, kingdomName, continent, totalPoints) ->
+                add(landTotals.computeIfAbsent(landId, k -> new LandTotal(owner)), kingdomId, kingdomName, totalPoints));
+        leaderboardDirty.set(true);
+        log.info("Live updates now tracking {} ({} kingdoms, {} lands already stored)", date, kingdomTotals.size(), landTotals.size());
+    }
+
+    public void publishProgress(BatchProgress progress) {
+        progress.setUpdatedAt(LocalDateTime.now());
+        latestProgress = progress;
+        progressDirty.set(true);
+    }
+
+    @EventListener
+    public synchronized void onLandSaved(LandSavedEvent event) {
+        if (!event.getDate().equals(liveDate)) {
+            return;
+        }
+        Land land = event.getLand();
+        LandTotal landTotal = landTotals.computeIfAbsent(land.getId(), k -> new LandTotal(land.getOwner()));
+        landTotal.owner = land.getOwner();
+        for (Map.Entry<String, Double> previous : landTotal.kingdoms.entrySet()) {
+            kingdomTotals.get(previous.getKey()).points -= previous.getValue();
+        }
+        landTotal.kingdoms.clear();
+        landTotal.points = 0;
+        for (Contribution contribution : land.getContributions()) {
+            add(landTotal, contribution.getKingdomId(), contribution.getKingdomName(),
+                    contribution.getTotalPoints() == null ? 0 : contribution.getTotalPoints());
+        }
+        leaderboardDirty.set(true);
+    }
+
+    private void add(LandTotal landTotal, String kingdomId, String kingdomName, double points) {
+        kingdomTotals.computeIfAbsent(kingdomId, k -> new KingdomTotal(kingdomName, 0)).points += points;
+        landTotal.kingdoms.merge(kingdomId, points, Double::sum);
+        landTotal.points += points;
+    }
+
+    /**
+     * Send pending changes to all subscribers, at most once per push interval
+     */
+    @Scheduled(fixedDelayString = "${live.push-interval-millis:1000}")
+    public void flush() {
+        if (progressDirty.getAndSet(false) && latestProgress != null) {
+            broadcast("progress", toJson(latestProgress));
+        }
+        if (leaderboardDirty.getAndSet(false)) {
+            latestLeaderboardJson = toJson(computeLeaderboards());
+            broadcast("leaderboard", latestLeaderboardJson);
+        }
+    }
+
+    private synchronized LiveLeaderboardUpdate computeLeaderboards() {
+        ContributionLeaderboard contributionLeaderboard = new ContributionLeaderboard();
+        contributionLeaderboard.setContributions(
+                TopN.of(kingdomTotals.entrySet(), LEADERBOARD_SIZE, Comparator.comparingDouble(each -> each.getValue().points)).stream().map(each -> {
+                    TotalContribution contribution = new TotalContribution();
+                    contribution.setKingdomId(each.getKey());
+                    contribution.setKingdomName(each.getValue().name);
+                    contribution.setTotalPoints(BigDecimal.valueOf(each.getValue().points));
+                    return contribution;
+                }).toList());
+
+        LandLeaderboard landLeaderboard = new LandLeaderboard();
+        landLeaderboard.setPoints(
+                TopN.of(landTotals.entrySet(), LEADERBOARD_SIZE, Comparator.comparingDouble(each -> each.getValue().points)).stream().map(each -> {
+                    LandTotalPoints landTotalPoints = new LandTotalPoints();
+                    landTotalPoints.setLandId(each.getKey());
+                    landTotalPoints.setOwner(each.getValue().owner);
+                    landTotalPoints.setTotalPoints(BigDecimal.valueOf(each.getValue().points));
+                    return landTotalPoints;
+                }).toList());
+
+        return new LiveLeaderboardUpdate(liveDate, contributionLeaderboard, landLeaderboard);
+    }
+
+    private void broadcast(String eventName, String json) {
+        for (SseEmitter emitter : emitters) {
+            try {
+                emitter.send(SseEmitter.event().name(eventName).data(json, MediaType.APPLICATION_JSON));
+            } catch (IOException | IllegalStateException e) {
+                // Client went away, it will be cleaned up by the completion callbacks
+                emitters.remove(emitter);
+            }
+        }
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize live update", e);
+        }
+    }
+
+    private static class KingdomTotal {
+        private final String name;
+        private double points;
+
+        private KingdomTotal(String name, double points) {
+            this.name = name;
+            this.points = points;
+        }
+    }
+
+    private static class LandTotal {
+        private String owner;
+        private final Map<String, Double> kingdoms = new HashMap<>();
+        private double points;
+
+        private LandTotal(String owner) {
+            this.owner = owner;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.lokdashboard.dashboard.service;
+
+import com.lokdashboard.dashboard.models.LandOwnership;
+import com.lokdashboard.dashboard.models.LandTotalPoints;
+import com.lokdashboard.dashboard.models.OwnerDailyTotal;
+import com.lokdashboard.dashboard.models.OwnerPortfolio;
+import com.lokdashboard.dashboard.repository.OwnerRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Lands of an owner and their combined points. The total of a range is the sum of the owner's
+ * daily totals, so it costs the same for one land or thousands.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OwnerPortfolioService {
+
+    private final OwnerRepository ownerRepository;
+
+    @PostConstruct
+    public void init() {
+        int added = ownerRepository.backfillOwnership();
+        if (added > 0) {
+            log.info("Recorded the current owner of {} lands without ownership history", added);
+        }
+    }
+
+    public OwnerPortfolio getPortfolio(String owner, LocalDate startDate, LocalDate endDate) {
+        List<LandTotalPoints> lands = ownerRepository.getOwnedLands(owner, startDate, endDate);
+        List<OwnerDailyTotal> days = ownerRepository.getDailyTotals(owner, startDate, endDate);
+        BigDecimal totalPoints = days.stream()
+                .map(OwnerDailyTotal::getTotalPoints)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return new OwnerPortfolio(owner, startDate, endDate, lands.size(), totalPoints, lands, days);
+    }
+
+    /**
+     * The open ownership row of every land, including those recorded by the startup backfill
+     */
+    public List<LandOwnership> getCurrentOwnerships() {
+        return ownerRepository.getCurrentOwnerships();
+    }
+
+    public List<LandOwnership> getOwnershipHistory(String landId) {
+        return ownerRepository.getOwnershipHistory(landId);
+    }
+}
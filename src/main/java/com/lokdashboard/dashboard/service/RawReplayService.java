@@ -0,0 +1,205 @@
+package com.lokdashboard.dashboard.service;
+
+import com.lokdashboard.dashboard.events.DayIngestionCompletedEvent;
+import com.lokdashboard.dashboard.models.Land;
+import com.lokdashboard.dashboard.models.ReprocessReport;
+import com.lokdashboard.dashboard.repository.CrawlLeaseRepository;
+import com.lokdashboard.dashboard.repository.LandRepository;
+import com.lokdashboard.dashboard.storage.RawResponseArchive;
+import com.lokdashboard.dashboard.storage.RawResponseHandler;
+import com.lokdashboard.dashboard.storage.SegmentStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Re-derives days from the raw response archive instead of the upstream API. Each day's archived
+ * responses are parsed again, the latest response of every land is staged and the day is
+ * published, so a parser fix or a new derived table costs a local read instead of a crawl.
+ * Reprocessing runs on the batch executor and holds its days like a crawl job, so no crawl of
+ * those days can be submitted while their staging area is being replaced.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RawReplayService {
+
+    private static final int STAGE_BATCH_SIZE = 1000;
+
+    private final RawResponseArchive rawResponseArchive;
+    private final LandRepository landRepository;
+    private final CrawlLeaseRepository crawlLeaseRepository;
+    private final SegmentStore segmentStore;
+    private final Utils utils;
+    private final ApplicationEventPublisher eventPublisher;
+    private final LandBatchJobService batchJobService;
+    private final BatchTasks batchTasks;
+
+    @Value("${batch.jobs.max-days:31}")
+    private int maxDays;
+
+    /**
+     * Queue a reprocess of each day from startDate to endDate on the batch executor
+     *
+     * @throws IllegalArgumentException if the range is empty or longer than batch.jobs.max-days
+     * @throws IllegalStateException if one of the days already has a queued or running job
+     * @throws RejectedExecutionException if the executor's queue is full
+     */
+    public void submitReprocess(LocalDate startDate, LocalDate endDate) {
+        if (endDate.isBefore(startDate)) {
+            throw new IllegalArgumentException("End date " + endDate + " is before start date " + startDate);
+        }
+        if (startDate.plusDays(maxDays).isBefore(endDate.plusDays(1))) {
+            throw new IllegalArgumentException("A reprocess can cover at most " + maxDays + " days");
+        }
+        String key = key(startDate, endDate);
+        batchJobService.holdDates(startDate, endDate, key);
+        try {
+            batchTasks.submit(key, () -> {
+                try {
+                    return reprocess(startDate, endDate, key);
+                } finally {
+                    batchJobService.releaseDates(startDate, endDate, key);
+                }
+            });
+        } catch (RuntimeException e) {
+            batchJobService.releaseDates(startDate, endDate, key);
+            throw e;
+        }
+    }
+
+    /**
+     * @return the last submitted reprocess of the range, or null if there was none
+     */
+    public CompletableFuture<List<ReprocessReport>> getReprocess(LocalDate startDate, LocalDate endDate) {
+        return batchTasks.get(key(startDate, endDate));
+    }
+
+    private List<ReprocessReport> reprocess(LocalDate startDate, LocalDate endDate, String key) {
+        List<ReprocessReport> reports = new ArrayList<>();
+        for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
+            reports.add(reprocessDay(date));
+            batchJobService.releaseDates(date, date, key);
+        }
+        return reports;
+    }
+
+    private static String key(LocalDate startDate, LocalDate endDate) {
+        return "reprocess/" + startDate + "/" + endDate;
+    }
+
+    /**
+     * Replace a day's published lands with those parsed from its archived responses. Lands without
+     * an archived response keep their published rows.
+     */
+    public synchronized ReprocessReport reprocessDay(LocalDate date) {
+        long start = System.currentTimeMillis();
+        if (!rawResponseArchive.hasDay(date)) {
+            return new ReprocessReport(date, "NOT_ARCHIVED", 0, 0, 0, null, 0);
+        }
+        // Segment files are immutable, and a running crawl owns the day's staging area
+        if (segmentStore.isArchived(date)) {
+            return new ReprocessReport(date, "IN_SEGMENT", 0, 0, 0, null, 0);
+        }
+        if (crawlLeaseRepository.countUnfinishedShards(date) > 0) {
+            return new ReprocessReport(date, "CRAWL_RUNNING", 0, 0, 0, null, 0);
+        }
+
+        try {
+            // The latest response of a land wins, as it did when it was fetched
+            Map<String, Integer> latest = new HashMap<>();
+            int responses = rawResponseArchive.forEachResponse(date, new ResponseCounter(latest));
+
+            landRepository.clearStagedDay(date);
+            LandStager stager = new LandStager(date, latest);
+            rawResponseArchive.forEachResponse(date, stager);
+            stager.flush();
+
+            Integer version = landRepository.publishDay(date);
+            if (version != null) {
+                eventPublisher.publishEvent(new DayIngestionCompletedEvent(date, version));
+            }
+            ReprocessReport report = new ReprocessReport(date, "PUBLISHED", responses, stager.staged, stager.failed,
+                    version, System.currentTimeMillis() - start);
+            log.info("Reprocessed {} from {} archived responses: {} lands, {} unparseable, version {} in {} ms",
+                    date, responses, stager.staged, stager.failed, version, report.getDurationMillis());
+            return report;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read archived responses of " + date, e);
+        }
+    }
+
+    /**
+     * First pass: the position of each land's last response
+     */
+    private static class ResponseCounter implements RawResponseHandler {
+        private final Map<String, Integer> latest;
+        private int position;
+
+        private ResponseCounter(Map<String, Integer> latest) {
+            this.latest = latest;
+        }
+
+        @Override
+        public void handle(String landId, long fetchedAtMillis, String body) {
+            latest.put(landId, position++);
+        }
+    }
+
+    /**
+     * Second pass: parse each land's last response and stage them in batches
+     */
+    private class LandStager implements RawResponseHandler {
+        private final LocalDate date;
+        private final Map<String, Integer> latest;
+        private final List<Land> batch = new ArrayList<>();
+        private int position;
+        private int staged;
+        private int failed;
+
+        private LandStager(LocalDate date, Map<String, Integer> latest) {
+            this.date = date;
+            this.latest = latest;
+        }
+
+        @Override
+        public void handle(String landId, long fetchedAtMillis, String body) {
+            // Responses appended since the first pass are left for the next reprocess
+            int current = position++;
+            Integer last = latest.get(landId);
+            if (last == null || last != current) {
+                return;
+            }
+            try {
+                batch.add(utils.parseContributions(landId, date, body));
+            } catch (RuntimeException e) {
+                failed++;
+                log.warn("Could not parse archived response of land {} for {}: {}", landId, date, e.getMessage());
+                return;
+            }
+            if (batch.size() >= STAGE_BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            if (!batch.isEmpty()) {
+                landRepository.stageLands(batch, date);
+                staged += batch.size();
+                batch.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.lokdashboard.dashboard.service;
+
+import com.lokdashboard.dashboard.events.DayIngestionCompletedEvent;
+import com.lokdashboard.dashboard.models.ContributionLeaderboard;
+import com.lokdashboard.dashboard.models.LandLeaderboard;
+import com.lokdashboard.dashboard.repository.AggregateRepository;
+import com.lokdashboard.dashboard.repository.LandRepository;
+import com.lokdashboard.dashboard.storage.SegmentStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Keeps the daily and rolling window totals of kingdoms and lands up to date as days are
+ * published, and answers range leaderboards from them. Rolling totals are only kept for windows
+ * ending in the last aggregate.rolling.retention-days days, archived or not; leaderboards of older
+ * windows are summed from the daily totals instead.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RollingAggregateService {
+
+    private static final int LEADERBOARD_SIZE = 10;
+
+    private final AggregateRepository aggregateRepository;
+    private final LandRepository landRepository;
+    private final SegmentStore segmentStore;
+    private final BatchTasks batchTasks;
+
+    @Value("${aggregate.windows:7,30}")
+    private int[] windows;
+
+    @Value("${aggregate.repair.days:35}")
+    private int repairDays;
+
+    @Value("${aggregate.repair.max-days:92}")
+    private int repairMaxDays;
+
+    @Value("${aggregate.rolling.retention-days:90}")
+    private int rollingRetentionDays;
+
+    @EventListener
+    public void onDayIngestionCompleted(DayIngestionCompletedEvent event) {
+        aggregateDay(event.getDate());
+    }
+
+    /**
+     * Store a day's totals and roll every window forward over the days the day is part of
+     */
+    public synchronized void aggregateDay(LocalDate date) {
+        long start = System.currentTimeMillis();
+        aggregateRepository.replaceDailyTotals(date, landRepository.getKingdomTotalsForADay(date), landRepository.getLandTotalsForADay(date));
+        LocalDate horizon = rollingHorizon();
+        for (int windowDays : windows) {
+            // Later days already aggregated include this one in their window
+            for (LocalDate endDate : aggregateRepository.getAggregatedDays(latest(date, horizon), date.plusDays(windowDays - 1))) {
+                if (endDate.isAfter(horizon) && aggregateRepository.isAggregated(endDate.minusDays(1))) {
+                    aggregateRepository.rollForward(windowDays, endDate);
+                } else {
+                    aggregateRepository.rebuildRolling(windowDays, endDate);
+                }
+            }
+        }
+        log.info("Aggregated {} for windows {} in {} ms", date, Arrays.toString(windows), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Aggregate stored days that were never aggregated, then recompute the recent days from
+     * scratch to clear any drift from incremental updates or lands saved after publishing
+     */
+    @Scheduled(cron = "${aggregate.repair.cron:0 0 4 * * ?}", zone = "UTC")
+    public void scheduleRepair() {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        repair(today.minusDays(repairDays), today);
+        pruneRolling();
+    }
+
+    /**
+     * Delete the rolling totals of windows ending before the retention horizon
+     *
+     * @return the number of rows deleted
+     */
+    public synchronized int pruneRolling() {
+        long start = System.currentTimeMillis();
+        LocalDate horizon = rollingHorizon();
+        int deleted = 0;
+        for (int windowDays : windows) {
+            deleted += aggregateRepository.deleteRollingBefore(windowDays, horizon);
+        }
+        log.info("Pruned {} rolling total rows ending before {} in {} ms", deleted, horizon, System.currentTimeMillis() - start);
+        return deleted;
+    }
+
+    /**
+     * Queue a repair of the days from startDate to endDate on the batch executor
+     *
+     * @throws IllegalArgumentException if the range is empty or longer than aggregate.repair.max-days
+     * @throws IllegalStateException if a repair of the same range is already queued or running
+     * @throws RejectedExecutionException if the executor's queue is full
+     */
+    public void submitRepair(LocalDate startDate, LocalDate endDate) {
+        if (endDate.isBefore(startDate)) {
+            throw new IllegalArgumentException("End date " + endDate + " is before start date " + startDate);
+        }
+        if (startDate.plusDays(repairMaxDays).isBefore(endDate.plusDays(1))) {
+            throw new IllegalArgumentException("A repair can cover at most " + repairMaxDays + " days");
+        }
+        batchTasks.submit(repairKey(startDate, endDate), () -> {
+            repair(startDate, endDate);
+            return "Aggregates repaired from " + startDate + " to " + endDate;
+        });
+    }
+
+    /**
+     * @return the last submitted repair of the range, or null if there was none
+     */
+    public CompletableFuture<String> getRepair(LocalDate startDate, LocalDate endDate) {
+        return batchTasks.get(repairKey(startDate, endDate));
+    }
+
+    private static String repairKey(LocalDate startDate, LocalDate endDate) {
+        return "aggregates/repair/" + startDate + "/" + endDate;
+    }
+
+    public synchronized void repair(LocalDate startDate, LocalDate endDate) {
+        long start = System.currentTimeMillis();
+        TreeSet<LocalDate> storedDays = new TreeSet<>(landRepository.getStoredDaysBefore(endDate.plusDays(1)));
+        storedDays.addAll(segmentStore.getArchivedDays(LocalDate.of(2000, 1, 1), endDate));
+
+        int backfilled = 0;
+        for (LocalDate date : storedDays) {
+            if (date.isBefore(startDate) && !aggregateRepository.isAggregated(date)) {
+                aggregateDay(date);
+                backfilled++;
+            }
+        }
+
+        List<LocalDate> recomputed = storedDays.subSet(startDate, true, endDate, true).stream().toList();
+        for (LocalDate date : recomputed) {
+            aggregateRepository.replaceDailyTotals(date, landRepository.getKingdomTotalsForADay(date), landRepository.getLandTotalsForADay(date));
+        }
+        int maxWindow = Arrays.stream(windows).max().orElse(1);
+        for (LocalDate day : aggregateRepository.getAggregatedDays(latest(startDate, rollingHorizon()), endDate.plusDays(maxWindow - 1))) {
+            for (int windowDays : windows) {
+                aggregateRepository.rebuildRolling(windowDays, day);
+            }
+        }
+        log.info("Repaired aggregates from {} to {}: backfilled {} days, recomputed {} days in {} ms",
+                startDate, endDate, backfilled, recomputed.size(), System.currentTimeMillis() - start);
+    }
+
+    public boolean isWindow(int windowDays) {
+        return Arrays.stream(windows).anyMatch(w -> w == windowDays);
+    }
+
+    public ContributionLeaderboard getRollingContributionLeaderboard(int windowDays, LocalDate endDate) {
+        if (endDate.isBefore(rollingHorizon())) {
+            return getContributionLeaderboardForRange(endDate.minusDays(windowDays - 1), endDate);
+        }
+        ContributionLeaderboard result = new ContributionLeaderboard();
+        result.setContributions(aggregateRepository.getRollingKingdomLeaderboard(windowDays, endDate, LEADERBOARD_SIZE));
+        return result;
+    }
+
+    public LandLeaderboard getRollingLandLeaderboard(int windowDays, LocalDate endDate) {
+        if (endDate.isBefore(rollingHorizon())) {
+            return getLandLeaderboardForRange(endDate.minusDays(windowDays - 1), endDate);
+        }
+        LandLeaderboard result = new LandLeaderboard();
+        result.setPoints(aggregateRepository.getRollingLandLeaderboard(windowDays, endDate, LEADERBOARD_SIZE));
+        return result;
+    }
+
+    public ContributionLeaderboard getContributionLeaderboardForRange(LocalDate startDate, LocalDate endDate) {
+        ContributionLeaderboard result = new ContributionLeaderboard();
+        result.setContributions(aggregateRepository.getKingdomLeaderboardForRange(startDate, endDate, LEADERBOARD_SIZE));
+        return result;
+    }
+
+    public LandLeaderboard getLandLeaderboardForRange(LocalDate startDate, LocalDate endDate) {
+        LandLeaderboard result = new LandLeaderboard();
+        result.setPoints(aggregateRepository.getLandLeaderboardForRange(startDate, endDate, LEADERBOARD_SIZE));
+        return result;
+    }
+
+    /**
+     * First day whose windows keep rolling totals
+     */
+    private LocalDate rollingHorizon() {
+        return LocalDate.now(ZoneOffset.UTC).minusDays(rollingRetentionDays);
+    }
+
+    private static LocalDate latest(LocalDate date, LocalDate other) {
+        return date.isAfter(other) ? date : other;
+    }
+}
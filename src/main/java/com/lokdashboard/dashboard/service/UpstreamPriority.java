@@ -0,0 +1,15 @@
+package com.lokdashboard.dashboard.service;
+
+/**
+ * Priority class of an upstream API call
+ */
+public enum UpstreamPriority {
+    /**
+     * A user is waiting for the response, e.g. a cache miss on a land's page
+     */
+    INTERACTIVE,
+    /**
+     * Background work such as the daily crawl, which only uses capacity not reserved for interactive calls
+     */
+    BATCH
+}
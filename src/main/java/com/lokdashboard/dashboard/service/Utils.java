@@ -1,8 +1,10 @@
 package com.lokdashboard.dashboard.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.lokdashboard.dashboard.models.Contribution;
 import com.lokdashboard.dashboard.models.Land;
-import com.lokdashboard.dashboard.service.ApiService;
+import com.lokdashboard.dashboard.storage.RawResponseArchive;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
@@ -21,8 +23,14 @@ import java.util.Map;
 public class Utils {
 
     private final ApiService apiService;
+    private final RawResponseArchive rawResponseArchive;
+    private final ObjectMapper objectMapper;
 
     public Land getContributions(String landId, LocalDate startDate, LocalDate endDate) {
+        return getContributions(landId, startDate, endDate, UpstreamPriority.INTERACTIVE);
+    }
+
+    public Land getContributions(String landId, LocalDate startDate, LocalDate endDate, UpstreamPriority priority) {
         if(endDate.isBefore(startDate)) {
             throw new RuntimeException("End date before start date");
         }
@@ -39,9 +47,25 @@ public class Utils {
                 .build().encode().toUri();
 
         // Use ApiService for rate-limited API calls
-        ResponseEntity<Map> responseEntity = apiService.get(uri, Map.class);
-        Map<String, Object> response = responseEntity.getBody();
-        
+        ResponseEntity<String> responseEntity = apiService.get(uri, String.class, priority);
+        String body = responseEntity.getBody();
+        if (startDate.equals(endDate)) {
+            rawResponseArchive.append(landId, endDate, body);
+        }
+        return parseContributions(landId, endDate, body);
+    }
+
+    /**
+     * Parse a raw contribution response of the upstream API, as fetched or as archived
+     */
+    public Land parseContributions(String landId, LocalDate endDate, String body) {
+        Map<String, Object> response;
+        try {
+            response = body == null ? null : objectMapper.readValue(body, Map.class);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Invalid response from API for land ID: " + landId, e);
+        }
+
         if (response == null) {
             log.error("Received null response from API for land ID: {}", landId);
             throw new RuntimeException("Null response from API for land ID: " + landId);
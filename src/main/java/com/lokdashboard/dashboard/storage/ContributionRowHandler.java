@@ -0,0 +1,9 @@
+package com.lokdashboard.dashboard.storage;
+
+/**
+ * Receives the contribution rows of a day one at a time, whether they come from H2 or a segment file
+ */
+@FunctionalInterface
+public interface ContributionRowHandler {
+    void handle(String landId, String owner, String kingdomId, String kingdomName, int continent, double totalPoints);
+}
@@ -0,0 +1,171 @@
+package com.lokdashboard.dashboard.storage;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * One day's contribution rows as primitive columns grouped by land, with land and kingdom ids
+ * dictionary-encoded. Both day snapshots and segment files are built from it, so they lay out a
+ * day the same way.
+ */
+public final class DayColumns {
+
+    private final LocalDate date;
+
+    // Dictionaries
+    private final String[] landIds;
+    private final String[] landOwners;
+    private final String[] kingdomIds;
+    private final String[] kingdomNames;
+
+    // One entry per contribution row, the rows of a land together in the order they were added
+    private final int[] rowLand;
+    private final int[] rowKingdom;
+    private final int[] rowContinent;
+    private final double[] rowPoints;
+
+    // landRowStart[l]..landRowStart[l + 1] are the rows of land l
+    private final int[] landRowStart;
+
+    private DayColumns(LocalDate date, String[] landIds, String[] landOwners, String[] kingdomIds, String[] kingdomNames,
+                       int[] rowLand, int[] rowKingdom, int[] rowContinent, double[] rowPoints, int[] landRowStart) {
+        this.date = date;
+        this.landIds = landIds;
+        this.landOwners = landOwners;
+        this.kingdomIds = kingdomIds;
+        this.kingdomNames = kingdomNames;
+        this.rowLand = rowLand;
+        this.rowKingdom = rowKingdom;
+        this.rowContinent = rowContinent;
+        this.rowPoints = rowPoints;
+        this.landRowStart = landRowStart;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public int getRowCount() {
+        return rowLand.length;
+    }
+
+    public String[] getLandIds() {
+        return landIds;
+    }
+
+    public String[] getLandOwners() {
+        return landOwners;
+    }
+
+    public String[] getKingdomIds() {
+        return kingdomIds;
+    }
+
+    public String[] getKingdomNames() {
+        return kingdomNames;
+    }
+
+    public int[] getRowLand() {
+        return rowLand;
+    }
+
+    public int[] getRowKingdom() {
+        return rowKingdom;
+    }
+
+    public int[] getRowContinent() {
+        return rowContinent;
+    }
+
+    public double[] getRowPoints() {
+        return rowPoints;
+    }
+
+    public int[] getLandRowStart() {
+        return landRowStart;
+    }
+
+    /**
+     * Accumulates rows into growable primitive columns while dictionary-encoding land and kingdom ids
+     */
+    public static class Builder implements ContributionRowHandler {
+        private final LocalDate date;
+        private final Map<String, Integer> lands = new HashMap<>();
+        private final List<String> landIds = new ArrayList<>();
+        private final List<String> landOwners = new ArrayList<>();
+        private final Map<String, Integer> kingdoms = new HashMap<>();
+        private final List<String> kingdomIds = new ArrayList<>();
+        private final List<String> kingdomNames = new ArrayList<>();
+        private int[] rowLand = new int[1024];
+        private int[] rowKingdom = new int[1024];
+        private int[] rowContinent = new int[1024];
+        private double[] rowPoints = new double[1024];
+        private int rows;
+
+        public Builder(LocalDate date) {
+            this.date = date;
+        }
+
+        @Override
+        public void handle(String landId, String owner, String kingdomId, String kingdomName, int continent, double totalPoints) {
+            if (rows == rowLand.length) {
+                int capacity = rows * 2;
+                rowLand = Arrays.copyOf(rowLand, capacity);
+                rowKingdom = Arrays.copyOf(rowKingdom, capacity);
+                rowContinent = Arrays.copyOf(rowContinent, capacity);
+                rowPoints = Arrays.copyOf(rowPoints, capacity);
+            }
+            rowLand[rows] = lands.computeIfAbsent(landId, id -> {
+                landIds.add(id);
+                landOwners.add(owner);
+                return landIds.size() - 1;
+            });
+            rowKingdom[rows] = kingdoms.computeIfAbsent(kingdomId, id -> {
+                kingdomIds.add(id);
+                kingdomNames.add(kingdomName);
+                return kingdomIds.size() - 1;
+            });
+            rowContinent[rows] = continent;
+            rowPoints[rows] = totalPoints;
+            rows++;
+        }
+
+        public int getRowCount() {
+            return rows;
+        }
+
+        /**
+         * The rows added so far, grouped by land
+         */
+        public DayColumns build() {
+            int landCount = landIds.size();
+            int[] landRowStart = new int[landCount + 1];
+            for (int i = 0; i < rows; i++) {
+                landRowStart[rowLand[i] + 1]++;
+            }
+            for (int l = 0; l < landCount; l++) {
+                landRowStart[l + 1] += landRowStart[l];
+            }
+
+            int[] sortedLand = new int[rows];
+            int[] sortedKingdom = new int[rows];
+            int[] sortedContinent = new int[rows];
+            double[] sortedPoints = new double[rows];
+            int[] next = Arrays.copyOf(landRowStart, landCount);
+            for (int i = 0; i < rows; i++) {
+                int j = next[rowLand[i]]++;
+                sortedLand[j] = rowLand[i];
+                sortedKingdom[j] = rowKingdom[i];
+                sortedContinent[j] = rowContinent[i];
+                sortedPoints[j] = rowPoints[i];
+            }
+
+            return new DayColumns(date,
+                    landIds.toArray(new String[0]),
+                    landOwners.toArray(new String[0]),
+                    kingdomIds.toArray(new String[0]),
+                    kingdomNames.toArray(new String[0]),
+                    sortedLand, sortedKingdom, sortedContinent, sortedPoints, landRowStart);
+        }
+    }
+}
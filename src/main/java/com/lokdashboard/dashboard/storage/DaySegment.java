@@ -0,0 +1,278 @@
+package com.lokdashboard.dashboard.storage;
+
+import com.lokdashboard.dashboard.models.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Read-only view over an archived day's segment file, memory-mapped so that column scans read
+ * straight from the page cache.
+ *
+ * <pre>
+ * header     magic "LOKSEG01", format version, row count, land count, kingdom count, epoch day
+ * columns    kingdom index int[rows], continent int[rows], points double[rows] (8-byte aligned),
+ *            rows sorted by land
+ * index      land row start int[lands + 1]
+ * dictionary deflated land ids and owners, kingdom ids and names
+ * footer     offsets of every column, the index and the dictionary, dictionary length, magic "LOKSEGFT"
+ * </pre>
+ */
+public final class DaySegment {
+
+    static final byte[] MAGIC = "LOKSEG01".getBytes();
+    static final byte[] FOOTER_MAGIC = "LOKSEGFT".getBytes();
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int FOOTER_SIZE = 5 * 8 + 4 + 4 + 8;
+
+    private static final int LEADERBOARD_SIZE = 10;
+
+    private final LocalDate date;
+    private final int rowCount;
+    private final IntBuffer rowKingdom;
+    private final IntBuffer rowContinent;
+    private final DoubleBuffer rowPoints;
+    private final IntBuffer landRowStart;
+    private final String[] landIds;
+    private final String[] landOwners;
+    private final String[] kingdomIds;
+    private final String[] kingdomNames;
+    private final Map<String, Integer> landIndex;
+    private final Map<String, Integer> kingdomIndex;
+
+    private DaySegment(MappedByteBuffer buffer) throws IOException {
+        byte[] magic = new byte[MAGIC.length];
+        buffer.get(0, magic);
+        if (!Arrays.equals(magic, MAGIC) || buffer.getInt(8) != FORMAT_VERSION) {
+            throw new IOException("Not a version " + FORMAT_VERSION + " day segment");
+        }
+        rowCount = buffer.getInt(12);
+        int landCount = buffer.getInt(16);
+        int kingdomCount = buffer.getInt(20);
+        date = LocalDate.ofEpochDay(buffer.getLong(24));
+
+        int footer = buffer.capacity() - FOOTER_SIZE;
+        byte[] footerMagic = new byte[FOOTER_MAGIC.length];
+        buffer.get(buffer.capacity() - FOOTER_MAGIC.length, footerMagic);
+        if (!Arrays.equals(footerMagic, FOOTER_MAGIC)) {
+            throw new IOException("Day segment has no index footer, it may be truncated");
+        }
+        int kingdomOffset = (int) buffer.getLong(footer);
+        int continentOffset = (int) buffer.getLong(footer + 8);
+        int pointsOffset = (int) buffer.getLong(footer + 16);
+        int landRowStartOffset = (int) buffer.getLong(footer + 24);
+        int dictionaryOffset = (int) buffer.getLong(footer + 32);
+        int dictionaryLength = buffer.getInt(footer + 40);
+
+        rowKingdom = buffer.slice(kingdomOffset, 4 * rowCount).asIntBuffer();
+        rowContinent = buffer.slice(continentOffset, 4 * rowCount).asIntBuffer();
+        rowPoints = buffer.slice(pointsOffset, 8 * rowCount).asDoubleBuffer();
+        landRowStart = buffer.slice(landRowStartOffset, 4 * (landCount + 1)).asIntBuffer();
+
+        byte[] dictionary = new byte[dictionaryLength];
+        buffer.get(dictionaryOffset, dictionary);
+        landIds = new String[landCount];
+        landOwners = new String[landCount];
+        kingdomIds = new String[kingdomCount];
+        kingdomNames = new String[kingdomCount];
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(dictionary)))) {
+            for (int l = 0; l < landCount; l++) {
+                landIds[l] = in.readUTF();
+                landOwners[l] = in.readBoolean() ? in.readUTF() : null;
+            }
+            for (int k = 0; k < kingdomCount; k++) {
+                kingdomIds[k] = in.readUTF();
+                kingdomNames[k] = in.readUTF();
+            }
+        }
+        landIndex = indexOf(landIds);
+        kingdomIndex = indexOf(kingdomIds);
+    }
+
+    public static DaySegment open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new DaySegment(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public boolean hasLand(String landId) {
+        return landIndex.containsKey(landId);
+    }
+
+    /**
+     * Contributions of one land, or a land without contributions if it is not in this segment
+     */
+    public Land getLand(String landId) {
+        Land land = new Land();
+        land.setId(landId);
+        Integer l = landIndex.get(landId);
+        if (l == null) {
+            land.setContributions(List.of());
+            return land;
+        }
+        int from = landRowStart.get(l);
+        int to = landRowStart.get(l + 1);
+        List<Contribution> contributions = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            contributions.add(contribution(i, l));
+        }
+        land.setOwner(landOwners[l]);
+        land.setContributions(contributions);
+        return land;
+    }
+
+    public KingdomContributions getKingdom(String kingdomId) {
+        Integer k = kingdomIndex.get(kingdomId);
+        if (k == null) {
+            return null;
+        }
+        List<Contribution> contributions = new ArrayList<>();
+        double total = 0;
+        for (int l = 0; l < landIds.length; l++) {
+            for (int i = landRowStart.get(l); i < landRowStart.get(l + 1); i++) {
+                if (rowKingdom.get(i) == k) {
+                    contributions.add(contribution(i, l));
+                    total += rowPoints.get(i);
+                }
+            }
+        }
+        return new KingdomContributions(kingdomId, kingdomNames[k], date, BigDecimal.valueOf(total), contributions);
+    }
+
+    public List<TotalContribution> getKingdomTotals() {
+        double[] totals = kingdomTotals();
+        List<TotalContribution> result = new ArrayList<>(totals.length);
+        for (int k = 0; k < totals.length; k++) {
+            result.add(totalContribution(k, totals[k]));
+        }
+        return result;
+    }
+
+    public List<LandTotalPoints> getLandTotals() {
+        double[] totals = landTotals();
+        List<LandTotalPoints> result = new ArrayList<>(totals.length);
+        for (int l = 0; l < totals.length; l++) {
+            result.add(landTotalPoints(l, totals[l]));
+        }
+        return result;
+    }
+
+    public ContributionLeaderboard getContributionLeaderboard() {
+        double[] totals = kingdomTotals();
+        List<TotalContribution> contributions = new ArrayList<>();
+        for (int k : TopN.indexesOf(totals, LEADERBOARD_SIZE)) {
+            contributions.add(totalContribution(k, totals[k]));
+        }
+        ContributionLeaderboard result = new ContributionLeaderboard();
+        result.setContributions(contributions);
+        return result;
+    }
+
+    public LandLeaderboard getLandLeaderboard() {
+        double[] totals = landTotals();
+        List<LandTotalPoints> points = new ArrayList<>();
+        for (int l : TopN.indexesOf(totals, LEADERBOARD_SIZE)) {
+            points.add(landTotalPoints(l, totals[l]));
+        }
+        LandLeaderboard result = new LandLeaderboard();
+        result.setPoints(points);
+        return result;
+    }
+
+    public List<ContinentTotal> getContinentTotals() {
+        Map<Integer, double[]> totals = new TreeMap<>();
+        for (int i = 0; i < rowCount; i++) {
+            totals.computeIfAbsent(rowContinent.get(i), c -> new double[1])[0] += rowPoints.get(i);
+        }
+        List<ContinentTotal> result = new ArrayList<>(totals.size());
+        totals.forEach((continent, total) -> result.add(new ContinentTotal(continent, BigDecimal.valueOf(total[0]))));
+        return result;
+    }
+
+    /**
+     * Sequential scan of every row, in land order
+     */
+    public void forEachRow(ContributionRowHandler handler) {
+        for (int l = 0; l < landIds.length; l++) {
+            for (int i = landRowStart.get(l); i < landRowStart.get(l + 1); i++) {
+                int k = rowKingdom.get(i);
+                handler.handle(landIds[l], landOwners[l], kingdomIds[k], kingdomNames[k], rowContinent.get(i), rowPoints.get(i));
+            }
+        }
+    }
+
+    private double[] kingdomTotals() {
+        double[] totals = new double[kingdomIds.length];
+        for (int i = 0; i < rowCount; i++) {
+            totals[rowKingdom.get(i)] += rowPoints.get(i);
+        }
+        return totals;
+    }
+
+    private double[] landTotals() {
+        double[] totals = new double[landIds.length];
+        for (int l = 0; l < landIds.length; l++) {
+            for (int i = landRowStart.get(l); i < landRowStart.get(l + 1); i++) {
+                totals[l] += rowPoints.get(i);
+            }
+        }
+        return totals;
+    }
+
+    private Contribution contribution(int row, int land) {
+        int k = rowKingdom.get(row);
+        Contribution contribution = new Contribution();
+        contribution.setKingdomId(kingdomIds[k]);
+        contribution.setKingdomName(kingdomNames[k]);
+        contribution.setTotalPoints(rowPoints.get(row));
+        contribution.setContinent(rowContinent.get(row));
+        contribution.setLandId(landIds[land]);
+        contribution.setDate(date);
+        return contribution;
+    }
+
+    private TotalContribution totalContribution(int k, double total) {
+        TotalContribution contribution = new TotalContribution();
+        contribution.setKingdomId(kingdomIds[k]);
+        contribution.setKingdomName(kingdomNames[k]);
+        contribution.setTotalPoints(BigDecimal.valueOf(total));
+        return contribution;
+    }
+
+    private LandTotalPoints landTotalPoints(int l, double total) {
+        LandTotalPoints landTotalPoints = new LandTotalPoints();
+        landTotalPoints.setLandId(landIds[l]);
+        landTotalPoints.setOwner(landOwners[l]);
+        landTotalPoints.setTotalPoints(BigDecimal.valueOf(total));
+        return landTotalPoints;
+    }
+
+    private static Map<String, Integer> indexOf(String[] values) {
+        Map<String, Integer> index = new HashMap<>(values.length * 2);
+        for (int i = 0; i < values.length; i++) {
+            index.put(values[i], i);
+        }
+        return index;
+    }
+}
@@ -0,0 +1,125 @@
+package com.lokdashboard.dashboard.storage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Collects one day's contribution rows into {@link DayColumns} and writes them as an immutable
+ * segment file. See {@link DaySegment} for the layout.
+ */
+public class DaySegmentWriter implements ContributionRowHandler {
+
+    private final DayColumns.Builder columns;
+
+    public DaySegmentWriter(LocalDate date) {
+        this.columns = new DayColumns.Builder(date);
+    }
+
+    @Override
+    public void handle(String landId, String owner, String kingdomId, String kingdomName, int continent, double totalPoints) {
+        columns.handle(landId, owner, kingdomId, kingdomName, continent, totalPoints);
+    }
+
+    public int getRowCount() {
+        return columns.getRowCount();
+    }
+
+    /**
+     * Write the segment to a temporary file next to the target and move it into place atomically,
+     * so an instance reading the shared directory never sees a partly written segment
+     */
+    public void write(Path target) throws IOException {
+        DayColumns day = columns.build();
+        int rows = day.getRowCount();
+        int landCount = day.getLandIds().length;
+        int kingdomCount = day.getKingdomIds().length;
+
+        byte[] dictionary = compressedDictionary(day);
+
+        long kingdomOffset = DaySegment.HEADER_SIZE;
+        long continentOffset = kingdomOffset + 4L * rows;
+        long pointsOffset = align(continentOffset + 4L * rows);
+        long landRowStartOffset = pointsOffset + 8L * rows;
+        long dictionaryOffset = landRowStartOffset + 4L * (landCount + 1);
+        long size = dictionaryOffset + dictionary.length + DaySegment.FOOTER_SIZE;
+
+        ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(size));
+        buffer.put(DaySegment.MAGIC);
+        buffer.putInt(DaySegment.FORMAT_VERSION);
+        buffer.putInt(rows);
+        buffer.putInt(landCount);
+        buffer.putInt(kingdomCount);
+        buffer.putLong(day.getDate().toEpochDay());
+
+        buffer.position((int) kingdomOffset);
+        for (int kingdom : day.getRowKingdom()) {
+            buffer.putInt(kingdom);
+        }
+        for (int continent : day.getRowContinent()) {
+            buffer.putInt(continent);
+        }
+        buffer.position((int) pointsOffset);
+        for (double points : day.getRowPoints()) {
+            buffer.putDouble(points);
+        }
+        for (int start : day.getLandRowStart()) {
+            buffer.putInt(start);
+        }
+        buffer.put(dictionary);
+
+        // Index footer
+        buffer.putLong(kingdomOffset);
+        buffer.putLong(continentOffset);
+        buffer.putLong(pointsOffset);
+        buffer.putLong(landRowStartOffset);
+        buffer.putLong(dictionaryOffset);
+        buffer.putInt(dictionary.length);
+        buffer.putInt(0);
+        buffer.put(DaySegment.FOOTER_MAGIC);
+        buffer.flip();
+
+        // Unique, as another instance sharing the directory may be writing the same day
+        Path temporary = target.resolveSibling(target.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static byte[] compressedDictionary(DayColumns day) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+            String[] landOwners = day.getLandOwners();
+            for (int l = 0; l < landOwners.length; l++) {
+                out.writeUTF(day.getLandIds()[l]);
+                out.writeBoolean(landOwners[l] != null);
+                if (landOwners[l] != null) {
+                    out.writeUTF(landOwners[l]);
+                }
+            }
+            String[] kingdomNames = day.getKingdomNames();
+            for (int k = 0; k < kingdomNames.length; k++) {
+                out.writeUTF(day.getKingdomIds()[k]);
+                out.writeUTF(kingdomNames[k] == null ? "" : kingdomNames[k]);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static long align(long offset) {
+        return (offset + 7) & ~7L;
+    }
+}
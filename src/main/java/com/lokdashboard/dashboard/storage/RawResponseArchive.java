@@ -0,0 +1,367 @@
+package com.lokdashboard.dashboard.storage;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Append-only archive of raw upstream responses, one gzip file per day. Callers only queue a
+ * response; a background thread keeps the files of the days being written open and appends to
+ * the current gzip member of each, sync-flushing it after every batch. A member is finished once
+ * it holds storage.raw.member-max-bytes or is storage.raw.member-max-millis old, and a file whose
+ * day goes quiet is closed, so a file is a valid gzip stream of several members. Lines are
+ * {@code landId TAB fetchedAtMillis TAB body}, with line breaks in the JSON body replaced by spaces.
+ * <p>
+ * The archive is best effort: when the queue is full responses are dropped and counted rather
+ * than slowing down the fetch.
+ */
+@Component
+@Slf4j
+public class RawResponseArchive {
+
+    private static final String PREFIX = "raw-";
+    private static final String SUFFIX = ".tsv.gz";
+    private static final int MAX_BATCH = 1000;
+
+    @Value("${storage.raw.enabled:true}")
+    private boolean enabled;
+
+    @Value("${storage.raw.directory:./data/raw}")
+    private String directory;
+
+    @Value("${storage.raw.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${storage.raw.flush-millis:1000}")
+    private long flushMillis;
+
+    @Value("${storage.raw.member-max-bytes:8388608}")
+    private long memberMaxBytes;
+
+    @Value("${storage.raw.member-max-millis:60000}")
+    private long memberMaxMillis;
+
+    @Value("${storage.raw.max-open-days:4}")
+    private int maxOpenDays;
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private BlockingQueue<RawResponse> queue;
+    private Thread writer;
+    private volatile boolean running;
+
+    // Only touched by the writer thread, the least recently written day first
+    private final Map<LocalDate, DayFile> openDays = new LinkedHashMap<>(16, 0.75f, true);
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (!enabled) {
+            log.info("Raw response archive is disabled");
+            return;
+        }
+        Files.createDirectories(Paths.get(directory));
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        writer = new Thread(this::writeLoop, "raw-archive-writer");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("Raw response archive at {}", directory);
+    }
+
+    /**
+     * Flush what is queued before the application stops
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (writer != null) {
+            running = false;
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    /**
+     * Queue a response for the archive without waiting for it to be written
+     */
+    public void append(String landId, LocalDate date, String body) {
+        if (!enabled || body == null) {
+            return;
+        }
+        if (!queue.offer(new RawResponse(landId, date, System.currentTimeMillis(), body))) {
+            long count = dropped.incrementAndGet();
+            if (count == 1 || count % 1000 == 0) {
+                log.warn("Raw response archive queue is full, {} responses dropped so far", count);
+            }
+        }
+    }
+
+    public boolean hasDay(LocalDate date) {
+        return Files.exists(pathFor(date));
+    }
+
+    public List<LocalDate> getDays() {
+        if (!Files.isDirectory(Paths.get(directory))) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(Paths.get(directory))) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(PREFIX) && name.endsWith(SUFFIX))
+                    .map(name -> LocalDate.parse(name.substring(PREFIX.length(), name.length() - SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not list the raw response archive", e);
+        }
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public Path pathFor(LocalDate date) {
+        return Paths.get(directory, PREFIX + date + SUFFIX);
+    }
+
+    /**
+     * Read a day's responses in the order they were archived. A gzip member cut short by a crash,
+     * or still being written, ends the day early instead of failing it.
+     *
+     * @return the number of responses read
+     */
+    public int forEachResponse(LocalDate date, RawResponseHandler handler) throws IOException {
+        int count = 0;
+        TruncatedEndInputStream in = new TruncatedEndInputStream(
+                new GZIPInputStream(new BufferedInputStream(Files.newInputStream(pathFor(date)), 1 << 16)));
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t", 3);
+                if (fields.length < 3) {
+                    continue;
+                }
+                handler.handle(fields[0], Long.parseLong(fields[1]), fields[2]);
+                count++;
+            }
+        }
+        if (in.truncated) {
+            log.debug("Raw responses of {} end in an unfinished member, read {} responses", date, count);
+        }
+        return count;
+    }
+
+    private void writeLoop() {
+        List<RawResponse> batch = new ArrayList<>();
+        try {
+            while (running || !queue.isEmpty()) {
+                try {
+                    RawResponse first = queue.poll(flushMillis, TimeUnit.MILLISECONDS);
+                    if (first != null) {
+                        batch.add(first);
+                        queue.drainTo(batch, MAX_BATCH - 1);
+                        write(batch);
+                    }
+                    rotate(System.currentTimeMillis());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } finally {
+                    batch.clear();
+                }
+            }
+        } finally {
+            for (LocalDate date : new ArrayList<>(openDays.keySet())) {
+                close(date);
+            }
+        }
+    }
+
+    private void write(List<RawResponse> batch) {
+        Map<LocalDate, List<RawResponse>> byDay = new TreeMap<>();
+        for (RawResponse response : batch) {
+            byDay.computeIfAbsent(response.date, d -> new ArrayList<>()).add(response);
+        }
+        long now = System.currentTimeMillis();
+        for (Map.Entry<LocalDate, List<RawResponse>> day : byDay.entrySet()) {
+            try {
+                DayFile file = open(day.getKey());
+                for (RawResponse response : day.getValue()) {
+                    file.write(response, now);
+                }
+                file.flush();
+                written.addAndGet(day.getValue().size());
+            } catch (IOException e) {
+                log.error("Could not write {} raw responses of {}: {}", day.getValue().size(), day.getKey(), e.getMessage(), e);
+                close(day.getKey());
+            }
+        }
+    }
+
+    private DayFile open(LocalDate date) throws IOException {
+        DayFile file = openDays.get(date);
+        if (file == null) {
+            file = new DayFile(new BufferedOutputStream(Files.newOutputStream(
+                    pathFor(date), StandardOpenOption.CREATE, StandardOpenOption.APPEND), 1 << 16));
+            openDays.put(date, file);
+            while (openDays.size() > maxOpenDays) {
+                close(openDays.keySet().iterator().next());
+            }
+        }
+        return file;
+    }
+
+    /**
+     * Finish members that are full or old enough, and close the files of days no longer written
+     */
+    private void rotate(long now) {
+        for (Map.Entry<LocalDate, DayFile> entry : new ArrayList<>(openDays.entrySet())) {
+            DayFile file = entry.getValue();
+            try {
+                if (file.member != null && (file.memberBytes >= memberMaxBytes || now - file.memberStartedAt >= memberMaxMillis)) {
+                    file.finishMember();
+                } else if (file.member == null && now - file.lastWriteAt >= memberMaxMillis) {
+                    close(entry.getKey());
+                }
+            } catch (IOException e) {
+                log.error("Could not finish the raw responses of {}: {}", entry.getKey(), e.getMessage(), e);
+                close(entry.getKey());
+            }
+        }
+    }
+
+    private void close(LocalDate date) {
+        DayFile file = openDays.remove(date);
+        if (file == null) {
+            return;
+        }
+        try {
+            file.close();
+        } catch (IOException e) {
+            log.error("Could not close the raw responses of {}: {}", date, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Ends the stream where a gzip member is cut short, by a crash or because it is still being
+     * written, so the lines before it are still read
+     */
+    private static class TruncatedEndInputStream extends FilterInputStream {
+        private boolean truncated;
+
+        private TruncatedEndInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (truncated) {
+                return -1;
+            }
+            try {
+                return in.read(b, off, len);
+            } catch (EOFException e) {
+                truncated = true;
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * The open file of a day and its current gzip member, if one is started
+     */
+    private static class DayFile {
+        private final OutputStream out;
+        private GZIPOutputStream gzip;
+        private Writer member;
+        private long memberBytes;
+        private long memberStartedAt;
+        private long lastWriteAt;
+
+        private DayFile(OutputStream out) {
+            this.out = out;
+        }
+
+        private void write(RawResponse response, long now) throws IOException {
+            if (member == null) {
+                // Sync flush, so what a batch wrote can be read before the member is finished
+                gzip = new GZIPOutputStream(out, 1 << 16, true);
+                member = new OutputStreamWriter(gzip, StandardCharsets.UTF_8);
+                memberBytes = 0;
+                memberStartedAt = now;
+            }
+            member.write(response.landId);
+            member.write('\t');
+            member.write(Long.toString(response.fetchedAtMillis));
+            member.write('\t');
+            // JSON strings cannot hold raw line breaks, so these are whitespace between tokens
+            member.write(response.body.replace('\n', ' ').replace('\r', ' '));
+            member.write('\n');
+            memberBytes += response.landId.length() + response.body.length() + 16;
+            lastWriteAt = now;
+        }
+
+        private void flush() throws IOException {
+            if (member != null) {
+                member.flush();
+            }
+        }
+
+        private void finishMember() throws IOException {
+            if (member != null) {
+                member.flush();
+                gzip.finish();
+                out.flush();
+                member = null;
+                gzip = null;
+            }
+        }
+
+        private void close() throws IOException {
+            try {
+                finishMember();
+            } finally {
+                out.close();
+            }
+        }
+    }
+
+    private static class RawResponse {
+        private final String landId;
+        private final LocalDate date;
+        private final long fetchedAtMillis;
+        private final String body;
+
+        private RawResponse(String landId, LocalDate date, long fetchedAtMillis, String body) {
+            this.landId = landId;
+            this.date = date;
+            this.fetchedAtMillis = fetchedAtMillis;
+            this.body = body;
+        }
+    }
+}
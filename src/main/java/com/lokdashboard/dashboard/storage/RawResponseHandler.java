@@ -0,0 +1,9 @@
+package com.lokdashboard.dashboard.storage;
+
+/**
+ * Receives the archived upstream responses of a day one at a time, in the order they were fetched
+ */
+@FunctionalInterface
+public interface RawResponseHandler {
+    void handle(String landId, long fetchedAtMillis, String body);
+}
@@ -0,0 +1,129 @@
+package com.lokdashboard.dashboard.storage;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Cold tier for closed days. Each archived day lives in its own segment file and is listed in
+ * the archived_day table; the set of archived days is cached so routing a read costs no query.
+ * <p>
+ * The instance that archives a day deletes its rows, so instances sharing a database must share
+ * the segment directory too. A day listed in the table whose file is not in the directory is
+ * reported and left out of the archived days until the file shows up.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class SegmentStore {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${storage.segment.directory:./data/segments}")
+    private String directory;
+
+    @Value("${storage.segment.max-open:16}")
+    private int maxOpenSegments;
+
+    private final Set<LocalDate> archivedDays = new ConcurrentSkipListSet<>();
+
+    // Days archived in the database whose segment file is not in the directory, reported once
+    private final Set<LocalDate> missingDays = new ConcurrentSkipListSet<>();
+
+    private final Map<LocalDate, DaySegment> openSegments = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<LocalDate, DaySegment> eldest) {
+            return size() > maxOpenSegments;
+        }
+    };
+
+    @PostConstruct
+    public void init() throws IOException {
+        Files.createDirectories(Paths.get(directory));
+        refreshArchivedDays();
+        log.info("Segment store at {} with {} archived days", directory, archivedDays.size());
+    }
+
+    /**
+     * Pick up days archived by other instances sharing the database
+     */
+    @Scheduled(fixedDelayString = "${storage.segment.refresh-millis:60000}")
+    public void refreshArchivedDays() {
+        for (LocalDate date : jdbcTemplate.query("SELECT archive_date FROM archived_day", (rs, rowNum) -> rs.getDate("archive_date").toLocalDate())) {
+            if (archivedDays.contains(date)) {
+                continue;
+            }
+            if (Files.exists(pathFor(date))) {
+                archivedDays.add(date);
+                if (missingDays.remove(date)) {
+                    log.info("Segment for {} is now in {}", date, directory);
+                }
+            } else if (missingDays.add(date)) {
+                log.error("{} is archived but {} does not exist, reads of the day find nothing until it does. "
+                        + "storage.segment.directory must be shared by every instance using the database", date, pathFor(date));
+            }
+        }
+    }
+
+    public boolean isArchived(LocalDate date) {
+        return archivedDays.contains(date);
+    }
+
+    public List<LocalDate> getArchivedDays(LocalDate startDate, LocalDate endDate) {
+        return archivedDays.stream().filter(day -> !day.isBefore(startDate) && !day.isAfter(endDate)).toList();
+    }
+
+    public List<LocalDate> getArchivedDays() {
+        return new ArrayList<>(archivedDays);
+    }
+
+    /**
+     * Days archived in the database whose segment file this instance cannot find
+     */
+    public List<LocalDate> getMissingDays() {
+        return new ArrayList<>(missingDays);
+    }
+
+    public Path pathFor(LocalDate date) {
+        return Paths.get(directory, "contribution-" + date + ".seg");
+    }
+
+    public DaySegment getSegment(LocalDate date) {
+        synchronized (openSegments) {
+            DaySegment segment = openSegments.get(date);
+            if (segment == null) {
+                try {
+                    segment = DaySegment.open(pathFor(date));
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Could not open segment for " + date, e);
+                }
+                openSegments.put(date, segment);
+            }
+            return segment;
+        }
+    }
+
+    /**
+     * Record a written and verified segment; from now on reads for the day are served from it
+     */
+    public void registerArchivedDay(LocalDate date, int rowCount) throws IOException {
+        jdbcTemplate.update(
+                "MERGE INTO archived_day (archive_date, file_name, row_count, file_bytes, archived_at) KEY (archive_date) VALUES (?, ?, ?, ?, ?)",
+                date, pathFor(date).getFileName().toString(), rowCount, Files.size(pathFor(date)), LocalDateTime.now());
+        archivedDays.add(date);
+    }
+}
@@ -0,0 +1,41 @@
+package com.lokdashboard.dashboard.storage;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Bounded top-N selection for leaderboards and search results: a heap of at most n items whose
+ * head is the worst of them, so the top n of m items cost O(m log n) and are never all sorted.
+ */
+public final class TopN {
+
+    private TopN() {
+    }
+
+    /**
+     * The n greatest items in the given order, greatest first
+     */
+    public static <T> List<T> of(Iterable<T> items, int n, Comparator<? super T> order) {
+        PriorityQueue<T> top = new PriorityQueue<>(n + 1, order);
+        for (T item : items) {
+            top.offer(item);
+            if (top.size() > n) {
+                top.poll();
+            }
+        }
+        List<T> result = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            result.add(top.poll());
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    /**
+     * Indexes of the n greatest values, greatest first
+     */
+    public static int[] indexesOf(double[] values, int n) {
+        Iterable<Integer> indexes = () -> IntStream.range(0, values.length).iterator();
+        return of(indexes, n, Comparator.comparingDouble(i -> values[i])).stream().mapToInt(Integer::intValue).toArray();
+    }
+}
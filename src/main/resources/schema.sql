@@ -45,4 +45,179 @@ CREATE TABLE IF NOT EXISTS activity_log (
     timestamp TIMESTAMP NOT NULL,
     status_code INT,
     FOREIGN KEY (visitor_id) REFERENCES visitor_log(id)
-);
\ No newline at end of file
+);
+
+-- Land-range shards of a day's crawl, claimed by instances with expiring leases.
+-- last_land_id is the shard's checkpoint, so an abandoned shard resumes where it stopped.
+CREATE TABLE IF NOT EXISTS crawl_lease (
+    job_date DATE NOT NULL,
+    shard_start INT NOT NULL,
+    shard_end INT NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    owner_id VARCHAR(255),
+    lease_until TIMESTAMP,
+    last_land_id INT,
+    updated_at TIMESTAMP,
+    refetch BOOLEAN DEFAULT FALSE NOT NULL,
+    PRIMARY KEY (job_date, shard_start)
+);
+
+-- Databases created before shards could be re-crawled
+ALTER TABLE crawl_lease ADD COLUMN IF NOT EXISTS refetch BOOLEAN DEFAULT FALSE NOT NULL;
+
+-- Days moved out of the contribution table into segment files
+CREATE TABLE IF NOT EXISTS archived_day (
+    archive_date DATE PRIMARY KEY,
+    file_name VARCHAR(255) NOT NULL,
+    row_count INT NOT NULL,
+    file_bytes BIGINT NOT NULL,
+    archived_at TIMESTAMP NOT NULL
+);
+
+-- Crawled data waiting to be published. A day's staged rows replace its published rows for the
+-- same lands in a single transaction.
+CREATE TABLE IF NOT EXISTS land_staging (
+    staging_date DATE NOT NULL,
+    land_id VARCHAR(255) NOT NULL,
+    owner VARCHAR(255),
+    last_updated DATE
+);
+
+CREATE TABLE IF NOT EXISTS contribution_staging (
+    staging_date DATE NOT NULL,
+    kingdom_id VARCHAR(255),
+    total_points DOUBLE,
+    continent INT,
+    kingdom_name VARCHAR(255),
+    land_id VARCHAR(255)
+);
+
+-- Restaging a land and checking whether it is staged look up one land of a day
+CREATE INDEX IF NOT EXISTS idx_land_staging_land ON land_staging (staging_date, land_id);
+CREATE INDEX IF NOT EXISTS idx_contribution_staging_land ON contribution_staging (staging_date, land_id);
+
+-- Lands fetched for a day that had no contributions, so they count as stored and are not fetched again
+CREATE TABLE IF NOT EXISTS empty_land_day (
+    empty_date DATE NOT NULL,
+    land_id VARCHAR(255) NOT NULL,
+    PRIMARY KEY (empty_date, land_id)
+);
+
+-- Version of each day's published contributions, bumped by every publish
+CREATE TABLE IF NOT EXISTS day_version (
+    version_date DATE PRIMARY KEY,
+    version INT NOT NULL,
+    row_count INT NOT NULL,
+    published_at TIMESTAMP
+);
+
+-- The unique natural key of contribution, (contribution_date, land_id, kingdom_id), is created by
+-- ContributionCompactionService at the first startup without it, once existing duplicates are removed
+
+-- Per-day totals, written when a day is published; rolling window totals are derived from them
+CREATE TABLE IF NOT EXISTS aggregate_day (
+    total_date DATE PRIMARY KEY,
+    updated_at TIMESTAMP NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS kingdom_daily_total (
+    total_date DATE NOT NULL,
+    kingdom_id VARCHAR(255) NOT NULL,
+    kingdom_name VARCHAR(255),
+    total_points DOUBLE NOT NULL,
+    PRIMARY KEY (total_date, kingdom_id)
+);
+
+CREATE TABLE IF NOT EXISTS land_daily_total (
+    total_date DATE NOT NULL,
+    land_id VARCHAR(255) NOT NULL,
+    total_points DOUBLE NOT NULL,
+    PRIMARY KEY (total_date, land_id)
+);
+
+-- Days of one land, for portfolios and the ownership backfill
+CREATE INDEX IF NOT EXISTS idx_land_daily_total_land ON land_daily_total (land_id, total_date);
+
+-- Totals of the window_days days ending on end_date, kept for every aggregated day
+CREATE TABLE IF NOT EXISTS kingdom_rolling_total (
+    window_days INT NOT NULL,
+    end_date DATE NOT NULL,
+    kingdom_id VARCHAR(255) NOT NULL,
+    kingdom_name VARCHAR(255),
+    total_points DOUBLE NOT NULL,
+    PRIMARY KEY (window_days, end_date, kingdom_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_kingdom_rolling_rank ON kingdom_rolling_total (window_days, end_date, total_points DESC);
+
+CREATE TABLE IF NOT EXISTS land_rolling_total (
+    window_days INT NOT NULL,
+    end_date DATE NOT NULL,
+    land_id VARCHAR(255) NOT NULL,
+    total_points DOUBLE NOT NULL,
+    PRIMARY KEY (window_days, end_date, land_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_land_rolling_rank ON land_rolling_total (window_days, end_date, total_points DESC);
+
+-- Lands whose fetch failed during a crawl, replayed with backoff until they are stored.
+-- A row is removed once its land is stored; EXHAUSTED rows are only replayed on request.
+CREATE TABLE IF NOT EXISTS failed_land (
+    failed_date DATE NOT NULL,
+    land_id VARCHAR(255) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    attempts INT NOT NULL,
+    error_class VARCHAR(255),
+    error_message VARCHAR(1000),
+    first_failed_at TIMESTAMP NOT NULL,
+    last_failed_at TIMESTAMP NOT NULL,
+    next_attempt_at TIMESTAMP,
+    PRIMARY KEY (failed_date, land_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_failed_land_due ON failed_land (status, next_attempt_at);
+
+-- Owner of each land over time. valid_to is exclusive and NULL for the current owner; a row is
+-- closed and a new one opened when a land is stored with a different owner.
+CREATE TABLE IF NOT EXISTS land_ownership (
+    land_id VARCHAR(255) NOT NULL,
+    owner VARCHAR(255) NOT NULL,
+    valid_from DATE NOT NULL,
+    valid_to DATE,
+    PRIMARY KEY (land_id, valid_from)
+);
+
+CREATE INDEX IF NOT EXISTS idx_land_ownership_owner ON land_ownership (owner, valid_from);
+
+-- Per-day totals of the lands each owner held that day, written with the other daily totals
+CREATE TABLE IF NOT EXISTS owner_daily_total (
+    owner VARCHAR(255) NOT NULL,
+    total_date DATE NOT NULL,
+    land_count INT NOT NULL,
+    total_points DOUBLE NOT NULL,
+    PRIMARY KEY (owner, total_date)
+);
+
+-- Alert rules evaluated as lands are ingested, and the alerts they fired
+CREATE TABLE IF NOT EXISTS alert_rule (
+    rule_id IDENTITY PRIMARY KEY,
+    rule_type VARCHAR(32) NOT NULL,
+    land_id VARCHAR(255),
+    kingdom_id VARCHAR(255),
+    threshold DOUBLE,
+    created_at TIMESTAMP NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS alert (
+    alert_id IDENTITY PRIMARY KEY,
+    rule_id BIGINT NOT NULL,
+    rule_type VARCHAR(32) NOT NULL,
+    alert_date DATE NOT NULL,
+    land_id VARCHAR(255),
+    kingdom_id VARCHAR(255),
+    alert_value DOUBLE,
+    message VARCHAR(1024) NOT NULL,
+    fired_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_alert_date ON alert (alert_date, rule_id);
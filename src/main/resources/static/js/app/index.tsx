@@ -1,5 +1,5 @@
 // src/main/resources/static/js/app/index.tsx
-import React, { useState, useEffect } from 'react';
+import React, { useState, useEffect, useRef } from 'react';
 import { createRoot } from 'react-dom/client';
 import {
   PieChart, Pie, BarChart, Bar, XAxis, YAxis, Tooltip, Legend, ResponsiveContainer,
@@ -21,6 +21,32 @@ interface ContributionData {
   contributions: Contribution[];
 }
 
+// Land in the compact column format, only the columns asked for in fields= are present
+interface CompactLand {
+  id: string;
+  owner?: string;
+  lastUpdated?: string;
+  count: number;
+  kingdomIds: string[];
+  kingdomNames: string[];
+  points: number[];
+  continents: number[];
+}
+
+const LAND_FIELDS = 'kingdomId,kingdomName,totalPoints,continent';
+
+const fromCompactLand = (land: CompactLand, date: string): ContributionData => ({
+  lastUpdated: land.lastUpdated || '',
+  contributions: Array.from({ length: land.count }, (_, i) => ({
+    date,
+    kingdomId: land.kingdomIds[i],
+    kingdomName: land.kingdomNames[i],
+    totalPoints: land.points[i],
+    continent: land.continents[i],
+    landId: land.id,
+  })),
+});
+
 interface TotalContribution {
   kingdomId: string;
   kingdomName: string;
@@ -42,6 +68,22 @@ interface LandLeaderboard {
   lands: LandTotalPoints[];
 }
 
+interface BatchProgress {
+  date: string;
+  state: string;
+  processed: number;
+  failed: number;
+  total: number;
+  lastLandId: string | null;
+  updatedAt: string;
+}
+
+interface LiveLeaderboardUpdate {
+  date: string;
+  contributionLeaderboard: ContributionLeaderboard;
+  landLeaderboard: { points: LandTotalPoints[] };
+}
+
 // Color palette for the charts
 const COLORS = [
   '#3498db', '#2ecc71', '#f39c12', '#e74c3c', '#9b59b6',
@@ -75,6 +117,13 @@ const KingdomContributionsApp: React.FC = () => {
   const [landLeaderboardLoading, setLandLeaderboardLoading] = useState<boolean>(false);
   const [landLeaderboardError, setLandLeaderboardError] = useState<string | null>(null);
 
+  // Live crawl progress pushed by the server
+  const [liveProgress, setLiveProgress] = useState<BatchProgress | null>(null);
+  const leaderboardDateRef = useRef(leaderboardDate);
+  const landLeaderboardDateRef = useRef(landLeaderboardDate);
+  leaderboardDateRef.current = leaderboardDate;
+  landLeaderboardDateRef.current = landLeaderboardDate;
+
   const fetchData = async () => {
     if (!landId || !date) {
       setError('Please enter both Land ID and Date');
@@ -85,12 +134,19 @@ const KingdomContributionsApp: React.FC = () => {
     setError(null);
 
     try {
-      const response = await fetch(`/land/${landId}/${date}`);
+      const url = `/land/${landId}/${date}?format=compact&fields=${LAND_FIELDS}`;
+      let response = await fetch(url);
+      // 202 means the server is still fetching the land from upstream, poll until it is stored
+      while (response.status === 202) {
+        const retryAfter = parseInt(response.headers.get('Retry-After') || '5', 10);
+        await new Promise((resolve) => setTimeout(resolve, retryAfter * 1000));
+        response = await fetch(response.headers.get('Location') || url);
+      }
       if (!response.ok) {
         throw new Error(`Error: ${response.status}`);
       }
-      const result = await response.json();
-      setData(result);
+      const result: CompactLand = await response.json();
+      setData(fromCompactLand(result, date));
       // Reset to first page when new data is loaded
       setCurrentPage(1);
     } catch (err) {
@@ -367,6 +423,33 @@ const KingdomContributionsApp: React.FC = () => {
     }
   }, [activeTab, leaderboardDate, landLeaderboardDate]);
 
+  // Subscribe once to live updates instead of polling while a crawl is running
+  useEffect(() => {
+    const source = new EventSource('/live/stream');
+
+    source.addEventListener('progress', (event) => {
+      setLiveProgress(JSON.parse((event as MessageEvent).data));
+    });
+
+    source.addEventListener('leaderboard', (event) => {
+      const update: LiveLeaderboardUpdate = JSON.parse((event as MessageEvent).data);
+      if (update.date === leaderboardDateRef.current) {
+        setLeaderboardData(update.contributionLeaderboard);
+      }
+      if (update.date === landLeaderboardDateRef.current) {
+        setLandLeaderboardData({
+          lands: update.landLeaderboard.points.map((point) => ({
+            landId: point.landId || '',
+            totalPoints: Number(point.totalPoints) || 0,
+            owner: point.owner || ''
+          }))
+        });
+      }
+    });
+
+    return () => source.close();
+  }, []);
+
   // Is data limited for visualization?
   const isDataLimited = data?.contributions && data.contributions.length > 10;
 
@@ -393,6 +476,23 @@ const KingdomContributionsApp: React.FC = () => {
         Kingdom Contributions Dashboard
       </h1>
 
+      {liveProgress && liveProgress.state === 'RUNNING' && (
+        <div className="live-progress" style={{
+          marginBottom: '20px',
+          padding: '10px 15px',
+          backgroundColor: '#ebf5ff',
+          border: '1px solid #bfdbfe',
+          borderRadius: '8px',
+          fontSize: '14px',
+          color: '#1e3a8a',
+          textAlign: 'center'
+        }}>
+          Crawling {liveProgress.date}: {liveProgress.processed.toLocaleString()} / {liveProgress.total.toLocaleString()} lands
+          {liveProgress.failed > 0 && ` (${liveProgress.failed.toLocaleString()} failed)`}
+          {liveProgress.lastLandId && ` — last land ${liveProgress.lastLandId}`}
+        </div>
+      )}
+
       <div className="tabs-container" style={{
         marginBottom: '30px',
         display: 'flex',
@@ -0,0 +1,105 @@
+package com.lokdashboard.dashboard.config;
+
+import com.lokdashboard.dashboard.controller.LandPointsController;
+import com.lokdashboard.dashboard.models.BulkheadStats;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.method.HandlerMethod;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdmissionControlInterceptorTest {
+
+    private AdmissionControlInterceptor interceptor;
+    private HandlerMethod landHandler;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        interceptor = new AdmissionControlInterceptor();
+        ReflectionTestUtils.setField(interceptor, "enabled", true);
+        ReflectionTestUtils.setField(interceptor, "clientRequestsPerMinute", 2);
+        ReflectionTestUtils.setField(interceptor, "maxTrackedClients", 100);
+        ReflectionTestUtils.setField(interceptor, "landConcurrency", 1);
+        ReflectionTestUtils.setField(interceptor, "analyticsConcurrency", 1);
+        ReflectionTestUtils.setField(interceptor, "batchConcurrency", 1);
+        ReflectionTestUtils.setField(interceptor, "bulkheadWaitMillis", 10L);
+        ReflectionTestUtils.setField(interceptor, "retryAfterSeconds", 3);
+        interceptor.init();
+
+        // Only the controller's type matters, so it is never instantiated
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerBeanDefinition("landPointsController", new RootBeanDefinition(LandPointsController.class));
+        landHandler = new HandlerMethod("landPointsController", beanFactory,
+                LandPointsController.class.getMethod("getContributionLeaderboard", LocalDate.class));
+    }
+
+    @Test
+    void clientOverItsRateGets429AndCannotEscapeWithForwardedFor() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            MockHttpServletRequest request = request("10.0.0.1");
+            assertThat(admit(request, new MockHttpServletResponse())).isTrue();
+            interceptor.afterCompletion(request, new MockHttpServletResponse(), landHandler, null);
+        }
+
+        MockHttpServletRequest spoofed = request("10.0.0.1");
+        spoofed.addHeader("X-Forwarded-For", "192.0.2.99");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertThat(admit(spoofed, response)).isFalse();
+        assertThat(response.getStatus()).isEqualTo(429);
+        assertThat(Integer.parseInt(response.getHeader("Retry-After"))).isPositive();
+        assertThat(interceptor.getRateLimitedCount()).isEqualTo(1);
+
+        assertThat(admit(request("10.0.0.2"), new MockHttpServletResponse())).isTrue();
+    }
+
+    @Test
+    void fullBulkheadGets503() throws Exception {
+        assertThat(admit(request("10.0.0.1"), new MockHttpServletResponse())).isTrue();
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertThat(admit(request("10.0.0.2"), response)).isFalse();
+        assertThat(response.getStatus()).isEqualTo(503);
+        assertThat(response.getHeader("Retry-After")).isEqualTo("3");
+        assertThat(landStats().getRejected()).isEqualTo(1);
+    }
+
+    @Test
+    void asyncRequestHoldsItsPermitUntilItCompletes() throws Exception {
+        MockHttpServletRequest request = request("10.0.0.1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertThat(admit(request, response)).isTrue();
+        request.startAsync(request, response);
+        interceptor.afterConcurrentHandlingStarted(request, response, landHandler);
+        // The request thread is done, the request is not
+        interceptor.afterCompletion(request, response, landHandler, null);
+        assertThat(landStats().getInFlight()).isEqualTo(1);
+        assertThat(admit(request("10.0.0.2"), new MockHttpServletResponse())).isFalse();
+
+        request.getAsyncContext().complete();
+
+        assertThat(landStats().getInFlight()).isZero();
+        assertThat(admit(request("10.0.0.2"), new MockHttpServletResponse())).isTrue();
+    }
+
+    private boolean admit(MockHttpServletRequest request, MockHttpServletResponse response) throws Exception {
+        return interceptor.preHandle(request, response, landHandler);
+    }
+
+    private MockHttpServletRequest request(String remoteAddr) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/land/contributionLeaderboard/2025-01-01");
+        request.setRemoteAddr(remoteAddr);
+        request.setAsyncSupported(true);
+        return request;
+    }
+
+    private BulkheadStats landStats() {
+        return interceptor.getBulkheadStats().stream().filter(stats -> "land".equals(stats.getName())).findFirst().orElseThrow();
+    }
+}
@@ -0,0 +1,169 @@
+package com.lokdashboard.dashboard.perf;
+
+import com.lokdashboard.dashboard.service.KingdomSearchService;
+import com.lokdashboard.dashboard.service.RollingAggregateService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Calls every read endpoint against a synthetic dataset and fails when an endpoint's p95 latency
+ * or its allocation per request is over the budget in perf-budgets.properties. Allocation is
+ * measured on the request thread, so work handed to executors is not counted.
+ * <p>
+ * Budgets are for the default volume of {@link SyntheticDataGenerator}. When running with larger
+ * perf.* volumes, pass -Dperf.enforce=false to only print the measurements.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:perf;DB_CLOSE_DELAY=-1",
+        "batch.startup.enabled=false",
+        "admission.enabled=false",
+        "storage.archive.enabled=false",
+        "storage.segment.directory=build/perf/segments",
+        "storage.raw.enabled=false",
+        "crawl.replay.enabled=false",
+        // The synthetic days are in the past, keep their rolling totals so the rolling endpoints read them
+        "aggregate.rolling.retention-days=36500"
+})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class EndpointLatencyRegressionTest {
+
+    private static final String DATE = SyntheticDataGenerator.LAST_DATE.toString();
+    private static final String LAND = String.valueOf(SyntheticDataGenerator.FIRST_LAND_ID + 17);
+    private static final String CHANGED_LAND = String.valueOf(SyntheticDataGenerator.FIRST_LAND_ID + 20);
+    private static final String OWNER = SyntheticDataGenerator.owner(3);
+
+    private static final int WARMUP = Integer.getInteger("perf.warmup", 5);
+    private static final int ITERATIONS = Integer.getInteger("perf.iterations", 40);
+    private static final boolean ENFORCE = Boolean.parseBoolean(System.getProperty("perf.enforce", "true"));
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private RollingAggregateService rollingAggregateService;
+
+    @Autowired
+    private KingdomSearchService kingdomSearchService;
+
+    private final Properties budgets = new Properties();
+
+    @BeforeAll
+    void generateData() throws IOException {
+        SyntheticDataGenerator generator = SyntheticDataGenerator.fromSystemProperties();
+        long start = System.currentTimeMillis();
+        int rows = generator.generate(jdbcTemplate);
+        rollingAggregateService.repair(generator.getFirstDate(), SyntheticDataGenerator.LAST_DATE);
+        kingdomSearchService.buildIndex();
+        System.out.printf("Generated %d contributions of %d lands in %d ms%n", rows, generator.getLands(), System.currentTimeMillis() - start);
+
+        try (InputStream in = new ClassPathResource("perf-budgets.properties").getInputStream()) {
+            budgets.load(in);
+        }
+    }
+
+    static Stream<Arguments> endpoints() {
+        return Stream.of(
+                Arguments.of("land.details", "/land/" + LAND + "/" + DATE),
+                Arguments.of("land.details.compact", "/land/" + LAND + "/" + DATE + "?format=compact&fields=kingdomId,totalPoints"),
+                Arguments.of("land.contributionLeaderboard", "/land/contributionLeaderboard/" + DATE),
+                Arguments.of("land.landLeaderboard", "/land/landLeaderboard/" + DATE),
+                Arguments.of("land.continentTotals", "/land/continentTotals/" + DATE),
+                Arguments.of("land.kingdom", "/land/kingdom/k17/" + DATE),
+                Arguments.of("land.rolling.contributionLeaderboard", "/land/rolling/7/contributionLeaderboard/" + DATE),
+                Arguments.of("land.rolling.landLeaderboard", "/land/rolling/7/landLeaderboard/" + DATE),
+                Arguments.of("land.range.contributionLeaderboard", "/land/range/contributionLeaderboard/2025-01-01/" + DATE),
+                Arguments.of("land.range.landLeaderboard", "/land/range/landLeaderboard/2025-01-01/" + DATE),
+                Arguments.of("owners.portfolio", "/owners/" + OWNER + "/portfolio/" + DATE),
+                Arguments.of("owners.portfolio.range", "/owners/" + OWNER + "/portfolio/2025-01-01/" + DATE),
+                Arguments.of("owners.history", "/owners/history/" + CHANGED_LAND),
+                Arguments.of("alerts", "/alerts?afterId=100&limit=100"),
+                Arguments.of("alerts.rules", "/alerts/rules"),
+                Arguments.of("kingdoms.search", "/kingdoms/search?q=dra"),
+                Arguments.of("analytics.visitors", "/analytics/visitors"),
+                Arguments.of("analytics.upstream", "/analytics/upstream"),
+                Arguments.of("analytics.admission", "/analytics/admission"),
+                Arguments.of("batch.jobs", "/batch/jobs"),
+                Arguments.of("batch.status", "/batch/status/" + DATE),
+                Arguments.of("batch.shards", "/batch/shards/" + DATE),
+                Arguments.of("batch.version", "/batch/version/" + DATE),
+                Arguments.of("batch.archived", "/batch/archived"),
+                Arguments.of("batch.compaction", "/batch/compaction"),
+                Arguments.of("batch.failed", "/batch/failed"),
+                Arguments.of("batch.raw", "/batch/raw"),
+                Arguments.of("batch.badlands", "/batch/badlands"));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("endpoints")
+    void staysWithinBudget(String name, String url) throws Exception {
+        for (int i = 0; i < WARMUP; i++) {
+            call(url);
+        }
+        long[] nanos = new long[ITERATIONS];
+        long[] bytes = new long[ITERATIONS];
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < ITERATIONS; i++) {
+            long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            call(url);
+            nanos[i] = System.nanoTime() - start;
+            bytes[i] = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        }
+
+        double p95Millis = percentile(nanos, 95) / 1e6;
+        long medianBytes = percentile(bytes, 50);
+        double maxMillis = Double.parseDouble(budget(name, "p95-millis"));
+        long maxBytes = Long.parseLong(budget(name, "allocated-bytes"));
+        System.out.printf("%-40s p95 %8.2f ms (budget %6.0f)  allocated %,12d B (budget %,12d)%n", name, p95Millis, maxMillis, medianBytes, maxBytes);
+
+        if (ENFORCE) {
+            assertTrue(p95Millis <= maxMillis, String.format("%s p95 latency %.2f ms is over its budget of %.0f ms", name, p95Millis, maxMillis));
+            assertTrue(medianBytes <= maxBytes, String.format("%s allocates %,d bytes per request, over its budget of %,d", name, medianBytes, maxBytes));
+        }
+    }
+
+    private void call(String url) throws Exception {
+        MvcResult result = mockMvc.perform(get(url)).andReturn();
+        if (result.getRequest().isAsyncStarted()) {
+            result = mockMvc.perform(asyncDispatch(result)).andReturn();
+        }
+        assertEquals(200, result.getResponse().getStatus(), url);
+    }
+
+    private String budget(String name, String key) {
+        return budgets.getProperty(name + "." + key, budgets.getProperty("default." + key));
+    }
+
+    private static long percentile(long[] values, int percentile) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, index)];
+    }
+}
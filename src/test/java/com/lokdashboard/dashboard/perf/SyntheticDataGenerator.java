@@ -0,0 +1,225 @@
+package com.lokdashboard.dashboard.perf;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Fills the database with a deterministic synthetic dataset: lands with their daily contributions
+ * and owners, alerts, visitors and their activity. The same settings always produce the same rows.
+ * <p>
+ * Volumes come from system properties ({@code perf.days}, {@code perf.lands}, ...), so a run can
+ * be scaled towards production without code changes, e.g. {@code -Dperf.lands=32768}. Run
+ * {@link #main} with a JDBC URL to fill a database file for local investigation.
+ */
+public class SyntheticDataGenerator {
+
+    public static final int FIRST_LAND_ID = 132768;
+    public static final LocalDate LAST_DATE = LocalDate.of(2025, 1, 31);
+
+    private static final int BATCH_SIZE = 5000;
+    private static final int LANDS_PER_OWNER = 20;
+    // Every tenth land changed owner on the last day
+    private static final int OWNER_CHANGE_EVERY = 10;
+    private static final String[] SYLLABLES = {"dra", "gon", "ash", "vel", "mor", "tis", "kar", "lun", "sol", "eth", "ri", "an"};
+    private static final String[] ENDPOINTS = {"/land/%d/2025-01-31", "/land/contributionLeaderboard/2025-01-31",
+            "/land/landLeaderboard/2025-01-31", "/land/continentTotals/2025-01-31", "/analytics/visitors", "/"};
+
+    private final long seed;
+    private final int days;
+    private final int lands;
+    private final int kingdoms;
+    private final int kingdomsPerLand;
+    private final int visitors;
+    private final int activities;
+
+    public SyntheticDataGenerator(long seed, int days, int lands, int kingdoms, int kingdomsPerLand, int visitors, int activities) {
+        this.seed = seed;
+        this.days = days;
+        this.lands = lands;
+        this.kingdoms = kingdoms;
+        this.kingdomsPerLand = kingdomsPerLand;
+        this.visitors = visitors;
+        this.activities = activities;
+    }
+
+    /**
+     * Settings from perf.* system properties, defaulting to a volume small enough for every build
+     */
+    public static SyntheticDataGenerator fromSystemProperties() {
+        return new SyntheticDataGenerator(
+                Long.getLong("perf.seed", 42),
+                Integer.getInteger("perf.days", 3),
+                Integer.getInteger("perf.lands", 2000),
+                Integer.getInteger("perf.kingdoms", 500),
+                Integer.getInteger("perf.kingdoms-per-land", 8),
+                Integer.getInteger("perf.visitors", 2000),
+                Integer.getInteger("perf.activities", 20000));
+    }
+
+    public LocalDate getFirstDate() {
+        return LAST_DATE.minusDays(days - 1);
+    }
+
+    public int getLands() {
+        return lands;
+    }
+
+    /**
+     * Owner address of the given index; owners hold about {@value #LANDS_PER_OWNER} lands each
+     */
+    public static String owner(int index) {
+        return String.format("0x%016x", (index + 1) * 0x9E3779B97F4A7C15L);
+    }
+
+    public String kingdomId(int kingdom) {
+        return "k" + kingdom;
+    }
+
+    /**
+     * Name built from syllables, so that searches see shared prefixes and substrings like real names
+     */
+    public String kingdomName(int kingdom) {
+        StringBuilder name = new StringBuilder();
+        int value = kingdom;
+        do {
+            name.append(SYLLABLES[value % SYLLABLES.length]);
+            value /= SYLLABLES.length;
+        } while (value > 0);
+        name.setCharAt(0, Character.toUpperCase(name.charAt(0)));
+        return name + " " + kingdom;
+    }
+
+    /**
+     * @return the number of contribution rows written
+     */
+    public int generate(JdbcTemplate jdbcTemplate) {
+        Random random = new Random(seed);
+
+        int owners = Math.max(1, lands / LANDS_PER_OWNER);
+        List<Object[]> landRows = new ArrayList<>(lands);
+        List<Object[]> ownershipRows = new ArrayList<>(lands);
+        for (int l = 0; l < lands; l++) {
+            int owner = Math.floorMod(random.nextLong(), owners);
+            landRows.add(new Object[]{FIRST_LAND_ID + l, owner(owner), LAST_DATE});
+            if (l % OWNER_CHANGE_EVERY == 0 && days > 1) {
+                ownershipRows.add(new Object[]{String.valueOf(FIRST_LAND_ID + l), owner((owner + 1) % owners), getFirstDate(), LAST_DATE});
+                ownershipRows.add(new Object[]{String.valueOf(FIRST_LAND_ID + l), owner(owner), LAST_DATE, null});
+            } else {
+                ownershipRows.add(new Object[]{String.valueOf(FIRST_LAND_ID + l), owner(owner), getFirstDate(), null});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO land (land_id, owner, last_updated) VALUES (?, ?, ?)", landRows);
+        jdbcTemplate.batchUpdate("INSERT INTO land_ownership (land_id, owner, valid_from, valid_to) VALUES (?, ?, ?, ?)", ownershipRows);
+
+        int contributions = 0;
+        List<Object[]> rows = new ArrayList<>(BATCH_SIZE);
+        for (LocalDate date = getFirstDate(); !date.isAfter(LAST_DATE); date = date.plusDays(1)) {
+            for (int l = 0; l < lands; l++) {
+                String landId = String.valueOf(FIRST_LAND_ID + l);
+                int count = Math.min(kingdoms, 1 + random.nextInt(2 * kingdomsPerLand - 1));
+                // Lands draw from a neighbourhood of kingdoms, as they do in the game
+                int base = random.nextInt(kingdoms);
+                for (int c = 0; c < count; c++) {
+                    int kingdom = (base + c) % kingdoms;
+                    double points = Math.round(random.nextDouble() * 50000) / 100.0;
+                    rows.add(new Object[]{kingdomId(kingdom), points, date, 1 + kingdom % 60, kingdomName(kingdom), landId});
+                }
+                if (rows.size() >= BATCH_SIZE) {
+                    contributions += insertContributions(jdbcTemplate, rows);
+                }
+            }
+        }
+        contributions += insertContributions(jdbcTemplate, rows);
+
+        generateAlerts(jdbcTemplate);
+        generateVisitors(jdbcTemplate, random);
+        return contributions;
+    }
+
+    /**
+     * One land threshold rule per owner-change land, each fired once a day
+     */
+    private void generateAlerts(JdbcTemplate jdbcTemplate) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> ruleRows = new ArrayList<>();
+        for (int l = 0; l < lands; l += OWNER_CHANGE_EVERY) {
+            ruleRows.add(new Object[]{"LAND_THRESHOLD", String.valueOf(FIRST_LAND_ID + l), 100.0, now});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO alert_rule (rule_type, land_id, threshold, created_at) VALUES (?, ?, ?, ?)", ruleRows);
+        Long firstRuleId = jdbcTemplate.queryForObject("SELECT MIN(rule_id) FROM alert_rule", Long.class);
+
+        List<Object[]> alertRows = new ArrayList<>();
+        for (LocalDate date = getFirstDate(); !date.isAfter(LAST_DATE); date = date.plusDays(1)) {
+            for (int r = 0; r < ruleRows.size(); r++) {
+                String landId = (String) ruleRows.get(r)[1];
+                alertRows.add(new Object[]{firstRuleId + r, "LAND_THRESHOLD", date, landId, 150.0,
+                        "Land " + landId + " made 150.0 points, over 100.0", date.atTime(12, 0)});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO alert (rule_id, rule_type, alert_date, land_id, alert_value, message, fired_at) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?)", alertRows);
+    }
+
+    private void generateVisitors(JdbcTemplate jdbcTemplate, Random random) {
+        LocalDateTime start = getFirstDate().atStartOfDay();
+        long spanSeconds = (long) days * 24 * 3600;
+
+        List<Object[]> visitorRows = new ArrayList<>(visitors);
+        for (int v = 0; v < visitors; v++) {
+            Timestamp first = Timestamp.valueOf(start.plusSeconds((long) (random.nextDouble() * spanSeconds)));
+            visitorRows.add(new Object[]{"10." + (v >> 16 & 255) + "." + (v >> 8 & 255) + "." + (v & 255),
+                    "Mozilla/5.0 synthetic " + random.nextInt(20), first, first, 1 + random.nextInt(50)});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO visitor_log (ip_address, user_agent, first_visit_time, last_visit_time, visit_count) " +
+                "VALUES (?, ?, ?, ?, ?)", visitorRows);
+        Long firstVisitorId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM visitor_log", Long.class);
+
+        List<Object[]> rows = new ArrayList<>(BATCH_SIZE);
+        for (int a = 0; a < activities; a++) {
+            String endpoint = String.format(ENDPOINTS[random.nextInt(ENDPOINTS.length)], FIRST_LAND_ID + random.nextInt(lands));
+            rows.add(new Object[]{firstVisitorId + random.nextInt(visitors), endpoint, "GET",
+                    Timestamp.valueOf(start.plusSeconds((long) (random.nextDouble() * spanSeconds))), random.nextInt(20) == 0 ? 404 : 200});
+            if (rows.size() >= BATCH_SIZE || a == activities - 1) {
+                jdbcTemplate.batchUpdate("INSERT INTO activity_log (visitor_id, endpoint, method, timestamp, status_code) VALUES (?, ?, ?, ?, ?)", rows);
+                rows.clear();
+            }
+        }
+    }
+
+    private static int insertContributions(JdbcTemplate jdbcTemplate, List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO contribution (kingdom_id, total_points, contribution_date, continent, kingdom_name, land_id) " +
+                "VALUES (?, ?, ?, ?, ?, ?)", rows);
+        int inserted = rows.size();
+        rows.clear();
+        return inserted;
+    }
+
+    /**
+     * Create the schema and fill the database at the given JDBC URL, e.g. jdbc:h2:file:./data/synthetic
+     */
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("Usage: SyntheticDataGenerator <jdbc-url> (volumes from -Dperf.* properties)");
+            System.exit(1);
+        }
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(args[0], "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+        SyntheticDataGenerator generator = fromSystemProperties();
+        long start = System.currentTimeMillis();
+        int rows = generator.generate(new JdbcTemplate(dataSource));
+        System.out.printf("Generated %d contributions of %d lands over %d days in %d ms%n",
+                rows, generator.lands, generator.days, System.currentTimeMillis() - start);
+    }
+}
@@ -0,0 +1,157 @@
+package com.lokdashboard.dashboard.repository;
+
+import com.lokdashboard.dashboard.models.CrawlShard;
+import org.h2.tools.Server;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Several "instances", each with its own connection to a shared H2 server, competing for shards
+ */
+class CrawlLeaseRepositoryTest {
+
+    private static final LocalDate DATE = LocalDate.of(2025, 1, 1);
+
+    private Server server;
+    private List<CrawlLeaseRepository> instances;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = Server.createTcpServer("-tcpPort", "0", "-ifNotExists").start();
+        String url = "jdbc:h2:tcp://localhost:" + server.getPort() + "/mem:leases-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+
+        instances = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            DriverManagerDataSource dataSource = new DriverManagerDataSource(url, "sa", "");
+            if (i == 0) {
+                new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+            }
+            instances.add(new CrawlLeaseRepository(new JdbcTemplate(dataSource)));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    void everyShardIsClaimedByExactlyOneInstance() throws Exception {
+        instances.forEach(repository -> repository.createShards(DATE, 1, 1000, 10));
+        assertThat(instances.get(0).getShards(DATE)).hasSize(100);
+
+        ExecutorService executor = Executors.newFixedThreadPool(instances.size());
+        List<Future<List<Integer>>> claims = new ArrayList<>();
+        for (int i = 0; i < instances.size(); i++) {
+            CrawlLeaseRepository repository = instances.get(i);
+            String owner = "instance-" + i;
+            claims.add(executor.submit(() -> {
+                List<Integer> claimed = new ArrayList<>();
+                CrawlShard shard;
+                while ((shard = repository.claimShard(DATE, owner, LocalDateTime.now().plusMinutes(5))) != null) {
+                    claimed.add(shard.getShardStart());
+                    assertThat(repository.completeShard(DATE, shard.getShardStart(), owner)).isTrue();
+                }
+                return claimed;
+            }));
+        }
+
+        List<Integer> allClaimed = new ArrayList<>();
+        for (Future<List<Integer>> claim : claims) {
+            allClaimed.addAll(claim.get(30, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        assertThat(allClaimed).hasSize(100).doesNotHaveDuplicates();
+        assertThat(instances.get(0).countUnfinishedShards(DATE)).isZero();
+    }
+
+    @Test
+    void freshClaimHasNoCheckpoint() {
+        CrawlLeaseRepository repository = instances.get(0);
+        repository.createShards(DATE, 1, 40, 20);
+
+        CrawlShard shard = repository.claimShard(DATE, "first", LocalDateTime.now().plusMinutes(5));
+        assertThat(shard).isNotNull();
+        assertThat(shard.getShardStart()).isEqualTo(1);
+        assertThat(shard.getLastLandId()).isNull();
+
+        // Also for a shard that does not start at land 1, which would otherwise be crawled from the beginning
+        CrawlShard next = repository.claimShard(DATE, "first", LocalDateTime.now().plusMinutes(5));
+        assertThat(next.getShardStart()).isEqualTo(21);
+        assertThat(next.getLastLandId()).isNull();
+    }
+
+    @Test
+    void lapsedLeaseIsPickedUpAndResumesFromItsCheckpoint() {
+        CrawlLeaseRepository first = instances.get(0);
+        CrawlLeaseRepository second = instances.get(1);
+        first.createShards(DATE, 1, 20, 20);
+
+        CrawlShard shard = first.claimShard(DATE, "first", LocalDateTime.now().plusMinutes(5));
+        assertThat(shard).isNotNull();
+        assertThat(first.renewLease(DATE, 1, "first", LocalDateTime.now().minusSeconds(1), 7)).isTrue();
+
+        CrawlShard takenOver = second.claimShard(DATE, "second", LocalDateTime.now().plusMinutes(5));
+        assertThat(takenOver).isNotNull();
+        assertThat(takenOver.getOwnerId()).isEqualTo("second");
+        assertThat(takenOver.getLastLandId()).isEqualTo(7);
+
+        // The original owner notices it lost the lease and cannot finish the shard
+        assertThat(first.renewLease(DATE, 1, "first", LocalDateTime.now().plusMinutes(5), 8)).isFalse();
+        assertThat(first.completeShard(DATE, 1, "first")).isFalse();
+        assertThat(second.completeShard(DATE, 1, "second")).isTrue();
+    }
+
+    @Test
+    void releasedShardIsAvailableImmediately() {
+        CrawlLeaseRepository first = instances.get(0);
+        CrawlLeaseRepository second = instances.get(1);
+        first.createShards(DATE, 1, 20, 20);
+
+        first.claimShard(DATE, "first", LocalDateTime.now().plusMinutes(5));
+        assertThat(second.claimShard(DATE, "second", LocalDateTime.now().plusMinutes(5))).isNull();
+
+        first.releaseShard(DATE, 1, "first", 12);
+        CrawlShard shard = second.claimShard(DATE, "second", LocalDateTime.now().plusMinutes(5));
+        assertThat(shard).isNotNull();
+        assertThat(shard.getLastLandId()).isEqualTo(12);
+    }
+
+    @Test
+    void resetShardsReopensACrawledDayForRefetching() {
+        CrawlLeaseRepository repository = instances.get(0);
+        repository.createShards(DATE, 1, 40, 20);
+        CrawlShard done = repository.claimShard(DATE, "first", LocalDateTime.now().plusMinutes(5));
+        repository.renewLease(DATE, done.getShardStart(), "first", LocalDateTime.now().plusMinutes(5), 20);
+        repository.completeShard(DATE, done.getShardStart(), "first");
+        CrawlShard running = repository.claimShard(DATE, "first", LocalDateTime.now().plusMinutes(5));
+        repository.renewLease(DATE, running.getShardStart(), "first", LocalDateTime.now().plusMinutes(5), 30);
+        assertThat(repository.claimShard(DATE, "second", LocalDateTime.now().plusMinutes(5))).isNull();
+        assertThat(repository.getShard(DATE, 1).isRefetch()).isFalse();
+
+        assertThat(repository.resetShards(DATE)).isEqualTo(2);
+
+        // The done shard starts over, the running one keeps its lease and checkpoint
+        CrawlShard reopened = repository.claimShard(DATE, "second", LocalDateTime.now().plusMinutes(5));
+        assertThat(reopened.getShardStart()).isEqualTo(1);
+        assertThat(reopened.getLastLandId()).isNull();
+        assertThat(reopened.isRefetch()).isTrue();
+        assertThat(repository.getShard(DATE, 21).getOwnerId()).isEqualTo("first");
+        assertThat(repository.getShard(DATE, 21).getLastLandId()).isEqualTo(30);
+        assertThat(repository.getShard(DATE, 21).isRefetch()).isTrue();
+        assertThat(repository.countUnfinishedShards(DATE)).isEqualTo(2);
+    }
+}
@@ -0,0 +1,128 @@
+package com.lokdashboard.dashboard.repository;
+
+import com.lokdashboard.dashboard.models.Contribution;
+import com.lokdashboard.dashboard.models.Land;
+import com.lokdashboard.dashboard.models.LandOwnership;
+import org.assertj.core.groups.Tuple;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:land-repository;DB_CLOSE_DELAY=-1",
+        "batch.startup.enabled=false",
+        "storage.archive.enabled=false",
+        "storage.segment.directory=build/land-repository/segments",
+        "storage.raw.enabled=false",
+        "crawl.replay.enabled=false"
+})
+class LandRepositoryTest {
+
+    @Autowired
+    private LandRepository landRepository;
+
+    @Autowired
+    private OwnerRepository ownerRepository;
+
+    @Test
+    void publishDaySwapsStagedLandsIn() {
+        LocalDate date = LocalDate.of(2025, 3, 1);
+        landRepository.saveLandData(land("310001", "alice", "k1", 10.0, "k2", 5.0), date);
+        landRepository.saveLandData(land("310002", "bob", "k1", 3.0), date);
+
+        landRepository.stageLandData(land("310001", "alice", "k1", 99.0), date);
+        // Staging a land again replaces what was staged for it
+        landRepository.stageLandData(land("310001", "carol", "k1", 20.0), date);
+        landRepository.stageLandData(land("310003", "dave", "k3", 7.0), date);
+
+        // Readers keep seeing the published rows until the day is published
+        assertThat(landRepository.isLandStaged("310001", date)).isTrue();
+        assertThat(contributions("310001", date)).containsExactlyInAnyOrder(tuple("k1", 10.0), tuple("k2", 5.0));
+
+        Integer version = landRepository.publishDay(date);
+
+        assertThat(version).isNotNull();
+        assertThat(contributions("310001", date)).containsExactly(tuple("k1", 20.0));
+        assertThat(landRepository.getStoredContributionForADay(date, "310001").getOwner()).isEqualTo("carol");
+        assertThat(contributions("310002", date)).containsExactly(tuple("k1", 3.0));
+        assertThat(contributions("310003", date)).containsExactly(tuple("k3", 7.0));
+        assertThat(landRepository.isLandStaged("310001", date)).isFalse();
+        assertThat(landRepository.getDayVersion(date).getVersion()).isEqualTo(version);
+        assertThat(landRepository.getDayVersion(date).getRowCount()).isEqualTo(3);
+
+        // Nothing left to publish, and the version stays where it was
+        assertThat(landRepository.publishDay(date)).isNull();
+        assertThat(landRepository.getDayVersion(date).getVersion()).isEqualTo(version);
+    }
+
+    @Test
+    void landFetchedWithoutContributionsCountsAsStored() {
+        LocalDate date = LocalDate.of(2025, 3, 2);
+        landRepository.saveLandData(land("320001", "alice"), date);
+        landRepository.saveLandData(land("320002", "bob", "k1", 1.0), date.plusDays(1));
+        landRepository.stageLandData(land("320003", "carol"), date);
+        landRepository.publishDay(date);
+
+        assertThat(landRepository.checkIfDataExistsForDate("320001", date)).isTrue();
+        assertThat(landRepository.checkIfDataExistsForDate("320003", date)).isTrue();
+        assertThat(landRepository.checkIfDataExistsForDate("320002", date)).isFalse();
+        assertThat(landRepository.getStoredDays(List.of("320001", "320002", "320003"), date, date.plusDays(1)))
+                .containsEntry("320001", Set.of(date))
+                .containsEntry("320002", Set.of(date.plusDays(1)))
+                .containsEntry("320003", Set.of(date));
+    }
+
+    @Test
+    void storingLandsKeepsTheirOwnershipHistory() {
+        LocalDate date = LocalDate.of(2025, 3, 10);
+        landRepository.saveLandData(land("330001", "alice", "k1", 1.0), date.plusDays(2));
+        // An earlier day of the only owner extends its row back
+        landRepository.saveLandData(land("330001", "alice", "k1", 1.0), date);
+        landRepository.saveLandData(land("330001", "bob", "k1", 1.0), date.plusDays(3));
+        // Stored again for the same day with another owner: replaces the owner of that day
+        landRepository.saveLandData(land("330001", "carol", "k1", 1.0), date.plusDays(3));
+        // Days before the current row leave the history as it is
+        landRepository.saveLandData(land("330001", "dave", "k1", 1.0), date.plusDays(1));
+        landRepository.saveLandData(land("330001", "alice", "k1", 1.0), date.minusDays(1));
+        landRepository.stageLandData(land("330001", "erin", "k1", 1.0), date.plusDays(5));
+        landRepository.publishDay(date.plusDays(5));
+
+        assertThat(ownerRepository.getOwnershipHistory("330001"))
+                .extracting(LandOwnership::getOwner, LandOwnership::getValidFrom, LandOwnership::getValidTo)
+                .containsExactly(
+                        tuple("alice", date, date.plusDays(3)),
+                        tuple("carol", date.plusDays(3), date.plusDays(5)),
+                        tuple("erin", date.plusDays(5), null));
+    }
+
+    private List<Tuple> contributions(String landId, LocalDate date) {
+        return landRepository.getStoredContributionForADay(date, landId).getContributions().stream()
+                .map(contribution -> tuple(contribution.getKingdomId(), contribution.getTotalPoints()))
+                .toList();
+    }
+
+    static Land land(String landId, String owner, Object... kingdomPoints) {
+        Land land = new Land();
+        land.setId(landId);
+        land.setOwner(owner);
+        List<Contribution> contributions = new ArrayList<>();
+        for (int i = 0; i < kingdomPoints.length; i += 2) {
+            Contribution contribution = new Contribution();
+            contribution.setKingdomId((String) kingdomPoints[i]);
+            contribution.setKingdomName("Kingdom " + kingdomPoints[i]);
+            contribution.setTotalPoints((Double) kingdomPoints[i + 1]);
+            contribution.setLandId(landId);
+            contributions.add(contribution);
+        }
+        land.setContributions(contributions);
+        return land;
+    }
+}
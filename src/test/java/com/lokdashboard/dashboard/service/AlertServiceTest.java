@@ -0,0 +1,149 @@
+package com.lokdashboard.dashboard.service;
+
+import com.lokdashboard.dashboard.models.Alert;
+import com.lokdashboard.dashboard.models.AlertRule;
+import com.lokdashboard.dashboard.models.Contribution;
+import com.lokdashboard.dashboard.models.Land;
+import com.lokdashboard.dashboard.repository.LandRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:alerts;DB_CLOSE_DELAY=-1",
+        "batch.startup.enabled=false",
+        "storage.archive.enabled=false",
+        "storage.segment.directory=build/alerts/segments",
+        "storage.raw.enabled=false",
+        "crawl.replay.enabled=false"
+})
+class AlertServiceTest {
+
+    @Autowired
+    private AlertService alertService;
+
+    @Autowired
+    private LandRepository landRepository;
+
+    @Autowired
+    private ThreadPoolTaskExecutor alertExecutor;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void contributionAndLandThresholdsFireOncePerDay() throws Exception {
+        LocalDate date = LocalDate.of(2025, 4, 1);
+        AlertRule contribution = alertService.addRule(rule(AlertRule.CONTRIBUTION_THRESHOLD, null, "k40", 50.0));
+        AlertRule land = alertService.addRule(rule(AlertRule.LAND_THRESHOLD, "400003", null, 30.0));
+
+        landRepository.saveLandData(land("400001", "alice", "k40", 49.0), date);
+        landRepository.saveLandData(land("400003", "bob", "k40", 60.0, "k41", 5.0), date);
+        landRepository.saveLandData(land("400003", "bob", "k40", 61.0), date);
+        landRepository.saveLandData(land("400003", "bob", "k40", 70.0), date.plusDays(1));
+
+        assertThat(alertsOf(contribution)).extracting(Alert::getLandId, Alert::getDate, Alert::getValue)
+                .containsExactly(
+                        tuple("400003", date, 60.0),
+                        tuple("400003", date.plusDays(1), 70.0));
+        assertThat(alertsOf(land)).extracting(Alert::getValue).containsExactly(65.0, 70.0);
+    }
+
+    @Test
+    void kingdomThresholdCountsPublishedAndStagedLandsOnce() throws Exception {
+        LocalDate date = LocalDate.of(2025, 4, 2);
+        landRepository.saveLandData(land("400011", "alice", "k42", 10.0), date);
+        landRepository.stageLandData(land("400012", "alice", "k42", 20.0), date);
+        AlertRule rule = alertService.addRule(rule(AlertRule.KINGDOM_THRESHOLD, null, "k42", 100.0));
+
+        landRepository.saveLandData(land("400013", "bob", "k42", 60.0), date);
+        // Saved again: replaces its share instead of adding to it
+        landRepository.saveLandData(land("400013", "bob", "k42", 61.0), date);
+        assertThat(alertsOf(rule)).isEmpty();
+
+        landRepository.saveLandData(land("400011", "alice", "k42", 19.0), date);
+        assertThat(alertsOf(rule)).extracting(Alert::getValue).containsExactly(100.0);
+
+        landRepository.saveLandData(land("400011", "alice", "k42", 25.0), date);
+        assertThat(alertsOf(rule)).hasSize(1);
+    }
+
+    @Test
+    void ownerChangeIsReportedForTheFirstChangeAfterTheRuleIsAdded() throws Exception {
+        LocalDate date = LocalDate.of(2025, 4, 3);
+        landRepository.saveLandData(land("400021", "alice", "k43", 1.0), date);
+        AlertRule rule = alertService.addRule(rule(AlertRule.OWNER_CHANGE, "400021", null, null));
+
+        landRepository.saveLandData(land("400021", "bob", "k43", 1.0), date.plusDays(1));
+        // An older day does not change the current owner
+        landRepository.saveLandData(land("400021", "carol", "k43", 1.0), date.minusDays(1));
+        landRepository.saveLandData(land("400021", "bob", "k43", 2.0), date.plusDays(2));
+
+        assertThat(alertsOf(rule)).extracting(Alert::getMessage)
+                .containsExactly("Land 400021 changed owner from alice to bob");
+    }
+
+    @Test
+    void rolledBackSaveFiresNothing() throws Exception {
+        LocalDate date = LocalDate.of(2025, 4, 4);
+        AlertRule rule = alertService.addRule(rule(AlertRule.LAND_THRESHOLD, "400031", null, 10.0));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            landRepository.saveLandData(land("400031", "alice", "k44", 50.0), date);
+            status.setRollbackOnly();
+        });
+        assertThat(alertsOf(rule)).isEmpty();
+
+        landRepository.saveLandData(land("400031", "alice", "k44", 11.0), date);
+        assertThat(alertsOf(rule)).extracting(Alert::getValue).containsExactly(11.0);
+    }
+
+    @Test
+    void incompleteRulesAreRejected() {
+        assertThatThrownBy(() -> alertService.addRule(rule("NOPE", null, null, 1.0))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> alertService.addRule(rule(AlertRule.LAND_THRESHOLD, null, null, null))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> alertService.addRule(rule(AlertRule.KINGDOM_THRESHOLD, null, null, 1.0))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Alerts of a rule, once the worker has evaluated every land saved so far
+     */
+    private List<Alert> alertsOf(AlertRule rule) throws Exception {
+        alertExecutor.submit(() -> { }).get(10, TimeUnit.SECONDS);
+        return alertService.getAlertsAfter(0, 1000).stream()
+                .filter(alert -> alert.getRuleId().equals(rule.getId()))
+                .toList();
+    }
+
+    private static AlertRule rule(String type, String landId, String kingdomId, Double threshold) {
+        return new AlertRule(null, type, landId, kingdomId, threshold, null);
+    }
+
+    private static Land land(String landId, String owner, Object... kingdomPoints) {
+        Land land = new Land();
+        land.setId(landId);
+        land.setOwner(owner);
+        List<Contribution> contributions = new ArrayList<>();
+        for (int i = 0; i < kingdomPoints.length; i += 2) {
+            Contribution contribution = new Contribution();
+            contribution.setKingdomId((String) kingdomPoints[i]);
+            contribution.setKingdomName("Kingdom " + kingdomPoints[i]);
+            contribution.setTotalPoints((Double) kingdomPoints[i + 1]);
+            contribution.setLandId(landId);
+            contributions.add(contribution);
+        }
+        land.setContributions(contributions);
+        return land;
+    }
+}
@@ -0,0 +1,83 @@
+package com.lokdashboard.dashboard.service;
+
+import com.lokdashboard.dashboard.models.Contribution;
+import com.lokdashboard.dashboard.models.FailedLand;
+import com.lokdashboard.dashboard.models.Land;
+import com.lokdashboard.dashboard.models.ReplayReport;
+import com.lokdashboard.dashboard.repository.FailedLandRepository;
+import com.lokdashboard.dashboard.repository.LandRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:failed-land-replay;DB_CLOSE_DELAY=-1",
+        "batch.startup.enabled=false",
+        "storage.archive.enabled=false",
+        "storage.segment.directory=build/failed-land-replay/segments",
+        "storage.raw.enabled=false",
+        "crawl.replay.enabled=false",
+        "crawl.replay.max-attempts=1"
+})
+class FailedLandReplayServiceTest {
+
+    @Autowired
+    private FailedLandReplayService failedLandReplayService;
+
+    @Autowired
+    private DayArchiveService dayArchiveService;
+
+    @Autowired
+    private FailedLandRepository failedLandRepository;
+
+    @Autowired
+    private LandRepository landRepository;
+
+    @Test
+    void archivedDayKeepsLandsMissingFromItAsUnrecoverable() {
+        LocalDate archived = LocalDate.of(2025, 2, 1);
+        LocalDate retrying = LocalDate.of(2025, 2, 2);
+        landRepository.saveLandData(land("510001", "alice", "k1", 10.0), archived);
+        // Stored after its fetch failed, and a land that never was
+        failedLandReplayService.recordFailure("510001", archived, new IOException("timeout"));
+        failedLandReplayService.recordFailure("510002", archived, new IOException("timeout"));
+
+        landRepository.saveLandData(land("510003", "bob", "k1", 5.0), retrying);
+        failedLandRepository.saveFailedLand(new FailedLand(retrying, "510004", FailedLandRepository.PENDING, 1, "java.io.IOException",
+                "timeout", LocalDateTime.now(), LocalDateTime.now(), LocalDateTime.now().plusHours(1)));
+
+        // A day whose failed lands are still retried is not archived yet
+        assertThat(dayArchiveService.archiveClosedDays()).containsExactly(archived);
+
+        ReplayReport report = failedLandReplayService.replayDay(archived);
+
+        assertThat(report.getAttempted()).isEqualTo(2);
+        assertThat(report.getRecovered()).isEqualTo(1);
+        assertThat(report.getUnrecoverable()).isEqualTo(1);
+        assertThat(report.getFailed()).isZero();
+        assertThat(failedLandRepository.getFailedLandsForADay(archived))
+                .extracting(FailedLand::getLandId, FailedLand::getStatus)
+                .containsExactly(tuple("510002", FailedLandRepository.UNRECOVERABLE));
+    }
+
+    private static Land land(String landId, String owner, String kingdomId, double points) {
+        Contribution contribution = new Contribution();
+        contribution.setKingdomId(kingdomId);
+        contribution.setKingdomName("Kingdom " + kingdomId);
+        contribution.setTotalPoints(points);
+        contribution.setLandId(landId);
+        Land land = new Land();
+        land.setId(landId);
+        land.setOwner(owner);
+        land.setContributions(List.of(contribution));
+        return land;
+    }
+}
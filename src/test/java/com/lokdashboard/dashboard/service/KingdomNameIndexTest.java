@@ -0,0 +1,68 @@
+package com.lokdashboard.dashboard.service;
+
+import com.lokdashboard.dashboard.models.KingdomSearchResult;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KingdomNameIndexTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 1, 1);
+
+    @Test
+    void ranksExactThenPrefixThenSubstringByTotal() {
+        KingdomNameIndex index = new KingdomNameIndex(1000);
+        index.put("1", "Dragonfly", DAY, BigDecimal.valueOf(10));
+        index.put("2", "Red Dragon", DAY, BigDecimal.valueOf(50));
+        index.put("3", "Dragon", DAY, BigDecimal.valueOf(1));
+        index.put("4", "Snapdragons", DAY, BigDecimal.valueOf(100));
+        index.put("5", "Dragonborn", DAY, BigDecimal.valueOf(20));
+
+        assertEquals(List.of("3", "5", "1", "2", "4"), ids(index.search("dragon", 10)));
+        assertEquals(List.of("3", "5"), ids(index.search("dragon", 2)));
+    }
+
+    @Test
+    void ignoresCaseAccentsAndPunctuation() {
+        KingdomNameIndex index = new KingdomNameIndex(1000);
+        index.put("1", "Élan-Vital", DAY, BigDecimal.ONE);
+
+        assertEquals(List.of("1"), ids(index.search("elan vit", 10)));
+        assertEquals(List.of("1"), ids(index.search("VITAL", 10)));
+        assertEquals(List.of("1"), ids(index.search("lan v", 10)));
+    }
+
+    @Test
+    void followsRenamesAndKeepsLatestTotal() {
+        KingdomNameIndex index = new KingdomNameIndex(1000);
+        index.put("1", "Old Name", DAY, BigDecimal.valueOf(5));
+        index.put("1", "New Name", null, null);
+        index.put("1", "New Name", DAY.minusDays(1), BigDecimal.valueOf(99));
+
+        assertTrue(index.search("old", 10).isEmpty());
+        List<KingdomSearchResult> results = index.search("new", 10);
+        assertEquals(List.of("1"), ids(results));
+        assertEquals(BigDecimal.valueOf(5), results.get(0).getLatestTotalPoints());
+    }
+
+    @Test
+    void putIfAbsentOnlyAddsNewKingdoms() {
+        KingdomNameIndex index = new KingdomNameIndex(1000);
+        index.put("1", "Old Name", DAY, BigDecimal.valueOf(5));
+        index.putIfAbsent("1", "New Name");
+        index.putIfAbsent("2", "Newcomer");
+
+        assertEquals(List.of("1"), ids(index.search("old", 10)));
+        assertEquals(List.of("2"), ids(index.search("new", 10)));
+        assertEquals(2, index.size());
+    }
+
+    private static List<String> ids(List<KingdomSearchResult> results) {
+        return results.stream().map(KingdomSearchResult::getKingdomId).toList();
+    }
+}
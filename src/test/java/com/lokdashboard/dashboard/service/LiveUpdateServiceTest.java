@@ -0,0 +1,88 @@
+package com.lokdashboard.dashboard.service;
+
+import com.lokdashboard.dashboard.models.*;
+import com.lokdashboard.dashboard.repository.LandRepository;
+import org.assertj.core.groups.Tuple;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:live-updates;DB_CLOSE_DELAY=-1",
+        "batch.startup.enabled=false",
+        "storage.archive.enabled=false",
+        "storage.segment.directory=build/live-updates/segments",
+        "storage.raw.enabled=false",
+        "crawl.replay.enabled=false"
+})
+class LiveUpdateServiceTest {
+
+    @Autowired
+    private LiveUpdateService liveUpdateService;
+
+    @Autowired
+    private LandRepository landRepository;
+
+    @Test
+    void recrawlingAPublishedDayKeepsItsTotals() {
+        LocalDate date = LocalDate.of(2025, 6, 1);
+        landRepository.saveLandData(land("600001", "alice", "k60", 10.0, "k61", 5.0), date);
+        landRepository.saveLandData(land("600002", "bob", "k60", 3.0), date);
+
+        liveUpdateService.startTracking(date);
+        LiveLeaderboardUpdate before = leaderboards();
+        assertThat(kingdoms(before)).containsExactly(tuple("k60", 13.0), tuple("k61", 5.0));
+        assertThat(lands(before)).containsExactly(tuple("600001", 15.0), tuple("600002", 3.0));
+
+        // The recrawl stages every land of the day again, one of them with a new value
+        landRepository.stageLandData(land("600001", "alice", "k60", 10.0, "k61", 5.0), date);
+        landRepository.stageLandData(land("600002", "bob", "k60", 3.0), date);
+        assertThat(kingdoms(leaderboards())).isEqualTo(kingdoms(before));
+        assertThat(lands(leaderboards())).isEqualTo(lands(before));
+
+        landRepository.stageLandData(land("600002", "bob", "k60", 4.0), date);
+        assertThat(kingdoms(leaderboards())).containsExactly(tuple("k60", 14.0), tuple("k61", 5.0));
+        assertThat(lands(leaderboards())).containsExactly(tuple("600001", 15.0), tuple("600002", 4.0));
+    }
+
+    private LiveLeaderboardUpdate leaderboards() {
+        return ReflectionTestUtils.invokeMethod(liveUpdateService, "computeLeaderboards");
+    }
+
+    private static List<Tuple> kingdoms(LiveLeaderboardUpdate update) {
+        return update.getContributionLeaderboard().getContributions().stream()
+                .map(each -> tuple(each.getKingdomId(), each.getTotalPoints().doubleValue()))
+                .toList();
+    }
+
+    private static List<Tuple> lands(LiveLeaderboardUpdate update) {
+        return update.getLandLeaderboard().getPoints().stream()
+                .map(each -> tuple(each.getLandId(), each.getTotalPoints().doubleValue()))
+                .toList();
+    }
+
+    private static Land land(String landId, String owner, Object... kingdomPoints) {
+        Land land = new Land();
+        land.setId(landId);
+        land.setOwner(owner);
+        List<Contribution> contributions = new ArrayList<>();
+        for (int i = 0; i < kingdomPoints.length; i += 2) {
+            Contribution contribution = new Contribution();
+            contribution.setKingdomId((String) kingdomPoints[i]);
+            contribution.setKingdomName("Kingdom " + kingdomPoints[i]);
+            contribution.setTotalPoints((Double) kingdomPoints[i + 1]);
+            contribution.setLandId(landId);
+            contributions.add(contribution);
+        }
+        land.setContributions(contributions);
+        return land;
+    }
+}
@@ -0,0 +1,88 @@
+package com.lokdashboard.dashboard.service;
+
+import com.lokdashboard.dashboard.models.Contribution;
+import com.lokdashboard.dashboard.models.Land;
+import com.lokdashboard.dashboard.models.LandTotalPoints;
+import com.lokdashboard.dashboard.repository.LandRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.assertj.core.groups.Tuple;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:rolling-aggregates;DB_CLOSE_DELAY=-1",
+        "batch.startup.enabled=false",
+        "storage.archive.enabled=false",
+        "storage.segment.directory=build/rolling-aggregates/segments",
+        "storage.raw.enabled=false",
+        "crawl.replay.enabled=false",
+        "aggregate.windows=7",
+        "aggregate.rolling.retention-days=10"
+})
+class RollingAggregateServiceTest {
+
+    @Autowired
+    private RollingAggregateService rollingAggregateService;
+
+    @Autowired
+    private LandRepository landRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void windowsBeforeTheRetentionAreSummedFromDailyTotalsAndPruned() {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        LocalDate old = today.minusDays(30);
+        LocalDate recent = today.minusDays(2);
+        for (int day = 0; day < 3; day++) {
+            store(old.minusDays(day), 10.0 + day);
+            store(recent.minusDays(day), 20.0 + day);
+        }
+
+        // Only windows ending within the retention get rolling rows
+        assertThat(rollingRowsBefore(today.minusDays(10))).isZero();
+        assertThat(rollingRowsBefore(today)).isPositive();
+        assertThat(leaderboard(rollingAggregateService.getRollingLandLeaderboard(7, old).getPoints()))
+                .containsExactly(tuple("610001", 33.0));
+        assertThat(leaderboard(rollingAggregateService.getRollingLandLeaderboard(7, recent).getPoints()))
+                .containsExactly(tuple("610001", 63.0));
+
+        // Left over from before the retention
+        jdbcTemplate.update("INSERT INTO land_rolling_total (window_days, end_date, land_id, total_points) VALUES (7, ?, '610001', 1)", old);
+        assertThat(rollingAggregateService.pruneRolling()).isEqualTo(1);
+        assertThat(rollingRowsBefore(today.minusDays(10))).isZero();
+        assertThat(leaderboard(rollingAggregateService.getRollingLandLeaderboard(7, recent).getPoints()))
+                .containsExactly(tuple("610001", 63.0));
+    }
+
+    private void store(LocalDate date, double points) {
+        Contribution contribution = new Contribution();
+        contribution.setKingdomId("k61");
+        contribution.setKingdomName("Kingdom k61");
+        contribution.setTotalPoints(points);
+        contribution.setLandId("610001");
+        Land land = new Land();
+        land.setId("610001");
+        land.setOwner("alice");
+        land.setContributions(List.of(contribution));
+        landRepository.saveLandData(land, date);
+        rollingAggregateService.aggregateDay(date);
+    }
+
+    private int rollingRowsBefore(LocalDate date) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM land_rolling_total WHERE end_date < ?", Integer.class, date);
+    }
+
+    private static List<Tuple> leaderboard(List<LandTotalPoints> points) {
+        return points.stream().map(land -> tuple(land.getLandId(), land.getTotalPoints().doubleValue())).toList();
+    }
+}
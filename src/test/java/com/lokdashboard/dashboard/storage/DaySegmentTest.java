@@ -0,0 +1,97 @@
+package com.lokdashboard.dashboard.storage;
+
+import com.lokdashboard.dashboard.models.Contribution;
+import com.lokdashboard.dashboard.models.Land;
+import com.lokdashboard.dashboard.models.LandTotalPoints;
+import com.lokdashboard.dashboard.models.TotalContribution;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class DaySegmentTest {
+
+    private static final LocalDate DATE = LocalDate.of(2025, 7, 1);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void emptyDayRoundTrips() throws IOException {
+        DaySegment segment = roundTrip(new DaySegmentWriter(DATE));
+
+        assertThat(segment.getDate()).isEqualTo(DATE);
+        assertThat(segment.getRowCount()).isZero();
+        assertThat(segment.getKingdomTotals()).isEmpty();
+        assertThat(segment.getLandTotals()).isEmpty();
+        assertThat(segment.getContinentTotals()).isEmpty();
+        assertThat(segment.getContributionLeaderboard().getContributions()).isEmpty();
+        assertThat(segment.getLandLeaderboard().getPoints()).isEmpty();
+        assertThat(segment.getKingdom("k1")).isNull();
+        assertThat(segment.hasLand("700001")).isFalse();
+        assertThat(segment.getLand("700001").getContributions()).isEmpty();
+    }
+
+    @Test
+    void rowsRoundTripGroupedByLand() throws IOException {
+        DaySegmentWriter writer = new DaySegmentWriter(DATE);
+        // Rows of a land do not have to arrive together
+        writer.handle("700001", "alice", "k1", "Kingdom 1", 1, 10.0);
+        writer.handle("700002", null, "k1", "Kingdom 1", 2, 3.0);
+        writer.handle("700001", "alice", "k2", "Kingdom 2", 1, 5.0);
+        writer.handle("700003", "carol", "k2", "Kingdom 2", 2, 20.0);
+
+        DaySegment segment = roundTrip(writer);
+
+        assertThat(segment.getRowCount()).isEqualTo(4);
+        Land alice = segment.getLand("700001");
+        assertThat(alice.getOwner()).isEqualTo("alice");
+        assertThat(alice.getContributions())
+                .extracting(Contribution::getKingdomId, Contribution::getKingdomName, Contribution::getContinent, Contribution::getTotalPoints, Contribution::getDate)
+                .containsExactly(tuple("k1", "Kingdom 1", 1, 10.0, DATE), tuple("k2", "Kingdom 2", 1, 5.0, DATE));
+        assertThat(segment.getLand("700002").getOwner()).isNull();
+
+        // A land fetched without contributions has no rows, so it is not in the segment
+        assertThat(segment.hasLand("700004")).isFalse();
+        assertThat(segment.getLand("700004").getContributions()).isEmpty();
+
+        assertThat(segment.getKingdom("k2").getTotalPoints().doubleValue()).isEqualTo(25.0);
+        assertThat(segment.getContinentTotals()).extracting(total -> total.getTotalPoints().doubleValue()).containsExactly(15.0, 23.0);
+
+        List<String> scanned = new ArrayList<>();
+        segment.forEachRow((landId, owner, kingdomId, kingdomName, continent, totalPoints) -> scanned.add(landId + "/" + kingdomId));
+        assertThat(scanned).containsExactly("700001/k1", "700001/k2", "700002/k1", "700003/k2");
+    }
+
+    @Test
+    void leaderboardsKeepTheTopTenInDescendingOrder() throws IOException {
+        DaySegmentWriter writer = new DaySegmentWriter(DATE);
+        for (int i = 1; i <= 12; i++) {
+            writer.handle("7100" + String.format("%02d", i), "owner", "k" + i, "Kingdom " + i, 1, i * 10.0);
+        }
+        // A second land lifts the smallest kingdom to the top
+        writer.handle("710013", "owner", "k1", "Kingdom 1", 1, 1000.0);
+
+        DaySegment segment = roundTrip(writer);
+
+        assertThat(segment.getContributionLeaderboard().getContributions())
+                .extracting(TotalContribution::getKingdomId)
+                .containsExactly("k1", "k12", "k11", "k10", "k9", "k8", "k7", "k6", "k5", "k4");
+        assertThat(segment.getLandLeaderboard().getPoints())
+                .extracting(LandTotalPoints::getLandId)
+                .containsExactly("710013", "710012", "710011", "710010", "710009", "710008", "710007", "710006", "710005", "710004");
+    }
+
+    private DaySegment roundTrip(DaySegmentWriter writer) throws IOException {
+        Path path = directory.resolve("contribution-" + DATE + ".seg");
+        writer.write(path);
+        return DaySegment.open(path);
+    }
+}
@@ -0,0 +1,81 @@
+package com.lokdashboard.dashboard.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RawResponseArchiveTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void batchesAreReadableWhileTheDayIsOpenAndAfterItIsClosed() throws Exception {
+        // Members small enough to be finished after every batch, files never closed for idling
+        RawResponseArchive archive = archive(1, 3_600_000L);
+        LocalDate date = LocalDate.of(2025, 5, 1);
+
+        archive.append("500001", date, "{\"a\":\n1}");
+        awaitWritten(archive, 1);
+        archive.append("500002", date, "{\"b\":2}");
+        awaitWritten(archive, 2);
+        assertThat(landIds(archive, date)).containsExactly("500001", "500002");
+
+        archive.append("500003", date, "{\"c\":3}");
+        archive.append("500004", date.plusDays(1), "{\"d\":4}");
+        archive.stop();
+
+        List<String> bodies = new ArrayList<>();
+        assertThat(archive.forEachResponse(date, (landId, fetchedAt, body) -> bodies.add(body))).isEqualTo(3);
+        assertThat(bodies).containsExactly("{\"a\": 1}", "{\"b\":2}", "{\"c\":3}");
+        assertThat(landIds(archive, date.plusDays(1))).containsExactly("500004");
+        assertThat(archive.getDays()).containsExactly(date, date.plusDays(1));
+    }
+
+    @Test
+    void openMemberIsReadableBeforeItIsFinished() throws Exception {
+        RawResponseArchive archive = archive(1 << 20, 3_600_000L);
+        LocalDate date = LocalDate.of(2025, 5, 2);
+
+        archive.append("500011", date, "{}");
+        awaitWritten(archive, 1);
+
+        assertThat(landIds(archive, date)).containsExactly("500011");
+        archive.stop();
+        assertThat(landIds(archive, date)).containsExactly("500011");
+    }
+
+    private RawResponseArchive archive(long memberMaxBytes, long memberMaxMillis) throws Exception {
+        RawResponseArchive archive = new RawResponseArchive();
+        ReflectionTestUtils.setField(archive, "enabled", true);
+        ReflectionTestUtils.setField(archive, "directory", directory.toString());
+        ReflectionTestUtils.setField(archive, "queueCapacity", 100);
+        ReflectionTestUtils.setField(archive, "flushMillis", 10L);
+        ReflectionTestUtils.setField(archive, "memberMaxBytes", memberMaxBytes);
+        ReflectionTestUtils.setField(archive, "memberMaxMillis", memberMaxMillis);
+        ReflectionTestUtils.setField(archive, "maxOpenDays", 4);
+        archive.init();
+        return archive;
+    }
+
+    private static void awaitWritten(RawResponseArchive archive, long count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (archive.getWrittenCount() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(archive.getWrittenCount()).isEqualTo(count);
+    }
+
+    private static List<String> landIds(RawResponseArchive archive, LocalDate date) throws Exception {
+        List<String> landIds = new ArrayList<>();
+        archive.forEachResponse(date, (landId, fetchedAt, body) -> landIds.add(landId));
+        return landIds;
+    }
+}
@@ -0,0 +1,50 @@
+package com.lokdashboard.dashboard.storage;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SegmentStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void dayArchivedElsewhereIsOnlyReadOnceItsSegmentIsHere() throws Exception {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:segment-store;DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS archived_day (
+                    archive_date DATE PRIMARY KEY, file_name VARCHAR(255) NOT NULL, row_count INT NOT NULL,
+                    file_bytes BIGINT NOT NULL, archived_at TIMESTAMP NOT NULL)
+                """);
+        SegmentStore store = new SegmentStore(jdbcTemplate);
+        ReflectionTestUtils.setField(store, "directory", directory.toString());
+        ReflectionTestUtils.setField(store, "maxOpenSegments", 4);
+        store.init();
+
+        // Another instance archived the day into a directory this one does not see
+        LocalDate date = LocalDate.of(2025, 7, 2);
+        jdbcTemplate.update("INSERT INTO archived_day VALUES (?, ?, 0, 0, ?)", date, "contribution-" + date + ".seg", LocalDateTime.now());
+        store.refreshArchivedDays();
+
+        assertThat(store.isArchived(date)).isFalse();
+        assertThat(store.getMissingDays()).containsExactly(date);
+
+        new DaySegmentWriter(date).write(store.pathFor(date));
+        store.refreshArchivedDays();
+
+        assertThat(store.isArchived(date)).isTrue();
+        assertThat(store.getMissingDays()).isEmpty();
+        assertThat(store.getSegment(date).getDate()).isEqualTo(date);
+    }
+}